@@ -0,0 +1,100 @@
+package com.edb2;
+
+import java.util.PrimitiveIterator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mede cada operação da {@link ArvoreBinariadeBusca} sobre o {@link Cenario}.
+ *
+ *  As operações de escrita são medidas em pares para que a árvore mantenha o mesmo tamanho e formato entre as
+ * iterações: {@link #inserirRemover} insere uma chave ausente e a remove em seguida, e {@link #removerInserir}
+ * remove uma chave presente e a insere de volta.
+ *  As operações que percorrem a árvore inteira (emOrdem, media, ehCompleta e ehCheia) são O(n) ou piores, então
+ * nos tamanhos maiores cada chamada leva de milissegundos a segundos.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", "-Xss256m"})
+public class ArvoreBinariadeBuscaBenchmark {
+
+    @Benchmark
+    public No buscar(Cenario c) {
+        return c.abb.buscar(c.proximaChave());
+    }
+    @Benchmark
+    public boolean inserirRemover(Cenario c) {
+        int chave = c.proximaChave() + 1;
+        return c.abb.inserir(chave) & c.abb.remover(chave);
+    }
+    @Benchmark
+    public boolean removerInserir(Cenario c) {
+        int chave = c.proximaChave();
+        return c.abb.remover(chave) & c.abb.inserir(chave);
+    }
+    /**
+     * Insere e remove um lote de 1000 chaves ausentes e próximas (as ímpares a partir de uma chave sorteada),
+     * para comparar com 1000 chamadas de {@link #inserirRemover}.
+     */
+    @Benchmark
+    public int inserirRemoverLote(Cenario c) {
+        int[] lote = new int[1000];
+        int chave = c.proximaChave();
+        for (int i = 0; i < lote.length; i++) {
+            lote[i] = chave + 2 * i + 1;
+        }
+        return c.abb.inserirTodos(lote).cardinality() + c.abb.removerTodos(lote).cardinality();
+    }
+    @Benchmark
+    public int posicao(Cenario c) {
+        return c.abb.posicao(c.proximaChave());
+    }
+    @Benchmark
+    public Integer enesimoElemento(Cenario c) {
+        return c.abb.enesimoElemento(c.proximaPosicao() + 1);
+    }
+    @Benchmark
+    public Integer mediana(Cenario c) {
+        return c.abb.mediana();
+    }
+    @Benchmark
+    public Double media(Cenario c) {
+        return c.abb.media(c.abb.getRaiz().getValor());
+    }
+    @Benchmark
+    public long somaNoIntervalo(Cenario c) {
+        int inicio = c.proximaChave();
+        return c.abb.somaNoIntervalo(inicio, inicio + 2000);
+    }
+    @Benchmark
+    public int percorrerIntervalo(Cenario c) {
+        int inicio = c.proximaChave();
+        int soma = 0;
+        PrimitiveIterator.OfInt it = c.abb.intervalo(inicio, inicio + 200);
+        while (it.hasNext()) {
+            soma += it.nextInt();
+        }
+        return soma;
+    }
+    @Benchmark
+    public String emOrdem(Cenario c) {
+        return c.abb.emOrdem();
+    }
+    @Benchmark
+    public boolean ehCompleta(Cenario c) {
+        return c.abb.ehCompleta();
+    }
+    @Benchmark
+    public boolean ehCheia(Cenario c) {
+        return c.abb.ehCheia();
+    }
+}
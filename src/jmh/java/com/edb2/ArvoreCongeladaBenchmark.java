@@ -0,0 +1,54 @@
+package com.edb2;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mede as consultas da {@link ArvoreCongelada} obtida da árvore do {@link Cenario}, com as mesmas sequências de
+ * chaves e posições, para comparar com os métodos de mesmo nome de {@link ArvoreBinariadeBuscaBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", "-Xss256m"})
+public class ArvoreCongeladaBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Congelada {
+        ArvoreCongelada arvore;
+
+        @Setup(Level.Trial)
+        public void congelar(Cenario c) {
+            this.arvore = c.abb.congelar();
+        }
+    }
+
+    @Benchmark
+    public boolean buscar(Cenario c, Congelada g) {
+        return g.arvore.contains(c.proximaChave());
+    }
+    @Benchmark
+    public int posicao(Cenario c, Congelada g) {
+        return g.arvore.posicao(c.proximaChave());
+    }
+    @Benchmark
+    public Integer enesimoElemento(Cenario c, Congelada g) {
+        return g.arvore.enesimoElemento(c.proximaPosicao() + 1);
+    }
+    @Benchmark
+    public Integer mediana(Cenario c, Congelada g) {
+        return g.arvore.mediana();
+    }
+}
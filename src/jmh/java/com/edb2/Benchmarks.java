@@ -0,0 +1,37 @@
+package com.edb2;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Ponto de entrada do benchmarks.jar. Aceita as mesmas opções da linha de comando do JMH e sempre liga o
+ * {@link GCProfiler}, que acrescenta ao relatório a taxa de alocação (gc.alloc.rate e gc.alloc.rate.norm) ao lado
+ * da vazão de cada operação.
+ *
+ *  Exemplos:
+ *      mvn -Pbenchmark package -DskipTests
+ *      java -jar target/benchmarks.jar
+ *      java -jar target/benchmarks.jar ArvoreBinariadeBuscaBenchmark.buscar -p tamanho=1000,1000000 -p balanceamento=AVL
+ *      java -jar target/benchmarks.jar CargaMista -p distribuicao=ZIPF -rf json -rff resultado.json
+ */
+public final class Benchmarks {
+    private Benchmarks() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opcoes = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        try {
+            new Runner(opcoes).run();
+        } catch (RunnerException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+}
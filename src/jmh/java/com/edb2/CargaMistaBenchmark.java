@@ -0,0 +1,68 @@
+package com.edb2;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mede uma carga que mistura leituras e escritas na proporção dada por {@code percentualEscrita}.
+ *
+ *  Cada operação escolhe uma posição da sequência do {@link Cenario}. Uma leitura busca a chave daquela posição;
+ * uma escrita troca a chave pela vizinha que não está na árvore (2i por 2i + 1 e vice-versa), com uma remoção e
+ * uma inserção. Assim o tamanho da árvore não muda, mas o seu formato evolui com as escritas.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", "-Xss256m"})
+public class CargaMistaBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Mistura {
+        @Param({"0", "10", "50", "100"})
+        public int percentualEscrita;
+
+        boolean[] escritas;
+        private int proxima;
+
+        @Setup(Level.Trial)
+        public void sortear() {
+            Random aleatorio = new Random(7);
+            this.escritas = new boolean[Cenario.CONSULTAS];
+            for (int i = 0; i < this.escritas.length; i++) {
+                this.escritas[i] = aleatorio.nextInt(100) < this.percentualEscrita;
+            }
+            this.proxima = 0;
+        }
+
+        boolean proximaEhEscrita() {
+            boolean escrita = this.escritas[this.proxima];
+            this.proxima = (this.proxima + 1) & (Cenario.CONSULTAS - 1);
+            return escrita;
+        }
+    }
+
+    @Benchmark
+    public boolean operacao(Cenario c, Mistura m) {
+        int p = c.proximaPosicao();
+        int chave = c.chaves[p];
+        if (!m.proximaEhEscrita()) {
+            return c.abb.contains(chave);
+        }
+        c.chaves[p] = chave ^ 1;
+        return c.abb.remover(chave) & c.abb.inserir(chave ^ 1);
+    }
+}
@@ -0,0 +1,74 @@
+package com.edb2;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Árvore montada para os benchmarks, parametrizada pelo tamanho, pela distribuição das chaves e pelo balanceamento.
+ *
+ *  A árvore guarda as chaves pares 0, 2, ..., 2(tamanho - 1), inseridas na ordem da distribuição; as consultas
+ * seguem uma sequência pré-calculada de {@link #CONSULTAS} posições, percorrida em ciclo, para que a geração
+ * de números aleatórios não entre na medição.
+ *
+ *  Sem balanceamento, as distribuições CRESCENTE e DECRESCENTE degeneram a árvore em uma lista e a montagem
+ * custa O(n²); acima de {@link #LIMITE_DEGENERADA} chaves essa combinação é recusada na preparação e o JMH
+ * segue para a próxima. Com AFUNILAMENTO cada chave inserida sobe para a raiz, então a montagem em ordem é
+ * linear; as buscas com ZIPF mostram o ganho do afunilamento quando poucas chaves concentram as consultas.
+ *
+ *  A árvore não é segura para várias threads, então os benchmarks devem rodar com uma thread (o padrão).
+ */
+@State(Scope.Benchmark)
+public class Cenario {
+    static final int CONSULTAS = 1 << 16;
+    static final int LIMITE_DEGENERADA = 100_000;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int tamanho;
+
+    @Param({"ALEATORIA", "CRESCENTE", "DECRESCENTE", "ZIPF"})
+    public Distribuicao distribuicao;
+
+    @Param({"NENHUM", "AVL", "AFUNILAMENTO"})
+    public Balanceamento balanceamento;
+
+    ArvoreBinariadeBusca abb;
+    /**
+     * Chaves presentes na árvore, na ordem de inserção; as posições consultadas são índices deste vetor.
+     */
+    int[] chaves;
+    int[] posicoes;
+    private int proxima;
+
+    @Setup(Level.Trial)
+    public void montar() {
+        if (this.balanceamento == Balanceamento.NENHUM && this.distribuicao != Distribuicao.ALEATORIA
+                && this.distribuicao != Distribuicao.ZIPF && this.tamanho > LIMITE_DEGENERADA) {
+            throw new IllegalStateException("Árvore degenerada com " + this.tamanho + " chaves: montagem quadrática");
+        }
+        Random aleatorio = new Random(42);
+        this.chaves = this.distribuicao.ordemInsercao(this.tamanho, aleatorio);
+        this.posicoes = this.distribuicao.posicoesConsultadas(this.tamanho, CONSULTAS, aleatorio);
+        this.abb = new ArvoreBinariadeBusca(this.chaves, this.balanceamento);
+        this.proxima = 0;
+    }
+
+    /**
+     * Próxima posição da sequência de consultas.
+     */
+    int proximaPosicao() {
+        int p = this.posicoes[this.proxima];
+        this.proxima = (this.proxima + 1) & (CONSULTAS - 1);
+        return p;
+    }
+    /**
+     * Próxima chave presente da sequência de consultas.
+     */
+    int proximaChave() {
+        return this.chaves[proximaPosicao()];
+    }
+}
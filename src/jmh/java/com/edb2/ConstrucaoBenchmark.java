@@ -0,0 +1,58 @@
+package com.edb2;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mede a construção em lote, sequencial e paralela, e um percurso paralelo pelos valores da árvore montada.
+ * O ganho das versões paralelas depende da quantidade de núcleos do {@link java.util.concurrent.ForkJoinPool}.
+ *
+ *  Cada chamada de construção recebe uma cópia nova do vetor embaralhado, porque a construção o reordena;
+ * a cópia entra na medição, igual para as duas versões.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+@State(Scope.Benchmark)
+public class ConstrucaoBenchmark {
+    @Param({"1000000", "10000000"})
+    public int tamanho;
+
+    private int[] valores;
+    private ArvoreBinariadeBusca abb;
+
+    @Setup(Level.Trial)
+    public void sortear() {
+        Random aleatorio = new Random(42);
+        this.valores = Distribuicao.ALEATORIA.ordemInsercao(this.tamanho, aleatorio);
+        this.abb = ArvoreBinariadeBusca.construirEmLote(this.valores.clone(), Balanceamento.AVL);
+    }
+
+    @Benchmark
+    public ArvoreBinariadeBusca construirEmLote() {
+        return ArvoreBinariadeBusca.construirEmLote(this.valores.clone(), Balanceamento.AVL);
+    }
+    @Benchmark
+    public ArvoreBinariadeBusca construirEmLoteParalelo() {
+        return ArvoreBinariadeBusca.construirEmLoteParalelo(this.valores.clone(), Balanceamento.AVL);
+    }
+    @Benchmark
+    public long somaDosQuadradosParalela() {
+        return this.abb.valores().parallel().asLongStream().map(v -> v * v).sum();
+    }
+}
@@ -0,0 +1,76 @@
+package com.edb2;
+
+import java.util.Random;
+
+/**
+ * Distribuições das chaves usadas nos benchmarks. A distribuição define a ordem em que as chaves são inseridas
+ * na montagem da árvore e a sequência de posições consultadas durante a medição.
+ *
+ *  ALEATORIA   = inserção em ordem aleatória e consultas uniformes.
+ *  CRESCENTE   = inserção e consultas em ordem crescente (sem balanceamento, a árvore vira uma lista).
+ *  DECRESCENTE = inserção e consultas em ordem decrescente.
+ *  ZIPF        = inserção em ordem aleatória e consultas concentradas em poucas chaves quentes (Zipf com
+ *                expoente 0,99), espalhadas pela árvore.
+ */
+public enum Distribuicao {
+    ALEATORIA,
+    CRESCENTE,
+    DECRESCENTE,
+    ZIPF;
+
+    private static final double EXPOENTE_ZIPF = 0.99;
+
+    /**
+     * Gera as chaves 0, 2, 4, ..., 2(n - 1) na ordem de inserção desta distribuição.
+     * As chaves ímpares ficam livres para serem inseridas durante a medição.
+     */
+    int[] ordemInsercao(int n, Random aleatorio) {
+        int[] chaves = new int[n];
+        for (int i = 0; i < n; i++) {
+            chaves[i] = this == DECRESCENTE ? 2 * (n - 1 - i) : 2 * i;
+        }
+        if (this == ALEATORIA || this == ZIPF) {
+            for (int i = n - 1; i > 0; i--) {
+                int j = aleatorio.nextInt(i + 1);
+                int t = chaves[i];
+                chaves[i] = chaves[j];
+                chaves[j] = t;
+            }
+        }
+        return chaves;
+    }
+    /**
+     * Gera a sequência de posições (índices do vetor de ordem de inserção) que a medição vai consultar.
+     */
+    int[] posicoesConsultadas(int n, int quantidade, Random aleatorio) {
+        int[] posicoes = new int[quantidade];
+        if (this == ZIPF) {
+            double zetaN = zeta(n);
+            double alfa = 1 / (1 - EXPOENTE_ZIPF);
+            double eta = (1 - Math.pow(2.0 / n, 1 - EXPOENTE_ZIPF)) / (1 - zeta(2) / zetaN);
+            for (int i = 0; i < quantidade; i++) {
+                double u = aleatorio.nextDouble();
+                double uz = u * zetaN;
+                if (uz < 1) {
+                    posicoes[i] = 0;
+                } else if (uz < 1 + Math.pow(0.5, EXPOENTE_ZIPF)) {
+                    posicoes[i] = Math.min(1, n - 1);
+                } else {
+                    posicoes[i] = (int) Math.min(n - 1, (long) (n * Math.pow(eta * u - eta + 1, alfa)));
+                }
+            }
+        } else {
+            for (int i = 0; i < quantidade; i++) {
+                posicoes[i] = this == ALEATORIA ? aleatorio.nextInt(n) : i % n;
+            }
+        }
+        return posicoes;
+    }
+    private static double zeta(int n) {
+        double soma = 0;
+        for (int i = 1; i <= n; i++) {
+            soma += 1 / Math.pow(i, EXPOENTE_ZIPF);
+        }
+        return soma;
+    }
+}
@@ -0,0 +1,81 @@
+package com.edb2;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compara a vazão de escritas de várias threads na {@link ArvoreBinariadeBuscaConcorrente}, onde todas disputam
+ * a mesma trava exclusiva, e na {@link ArvoreBinariadeBuscaFragmentada}, onde cada faixa de valores tem a sua
+ * thread de escrita. As duas começam com os mesmos valores pares; cada operação insere e remove um valor ímpar
+ * sorteado, para o tamanho não mudar. O ganho depende da quantidade de núcleos.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Threads(8)
+public class FragmentadaBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Arvores {
+        @Param({"1000000"})
+        public int tamanho;
+        @Param({"4"})
+        public int fragmentos;
+
+        ArvoreBinariadeBuscaConcorrente concorrente;
+        ArvoreBinariadeBuscaFragmentada fragmentada;
+
+        @Setup(Level.Trial)
+        public void montar() {
+            int[] pares = new int[this.tamanho];
+            for (int i = 0; i < pares.length; i++) {
+                pares[i] = 2 * i;
+            }
+            this.concorrente = new ArvoreBinariadeBuscaConcorrente(
+                    ArvoreBinariadeBusca.construirEmLote(pares.clone(), Balanceamento.AVL));
+            this.fragmentada = new ArvoreBinariadeBuscaFragmentada(this.fragmentos, pares, Balanceamento.AVL);
+            this.fragmentada.inserirTodos(pares);
+        }
+        @TearDown(Level.Trial)
+        public void fechar() {
+            this.fragmentada.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Sorteio {
+        private final SplittableRandom aleatorio = new SplittableRandom(Thread.currentThread().getId());
+
+        int proximoImpar(Arvores a) {
+            return 2 * this.aleatorio.nextInt(a.tamanho) + 1;
+        }
+    }
+
+    @Benchmark
+    public boolean concorrente(Arvores a, Sorteio s) {
+        int valor = s.proximoImpar(a);
+        return a.concorrente.inserir(valor) & a.concorrente.remover(valor);
+    }
+    @Benchmark
+    public boolean fragmentada(Arvores a, Sorteio s) {
+        int valor = s.proximoImpar(a);
+        return a.fragmentada.inserir(valor) & a.fragmentada.remover(valor);
+    }
+}
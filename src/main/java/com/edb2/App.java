@@ -1,114 +1,35 @@
 package com.edb2;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Scanner;
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
 
 public class App {
     public static void main(String[] args) {
 
         // === LENDO VALORES
-        List<Integer> lista = lerValores("src/main/java/com/edb2/arquivo1.txt");
-        Integer valores[] = new Integer[lista.size()];
-        for (int i = 0; i < valores.length; i++) {
-            valores[i] = lista.get(i);
-        }
-
-        ArvoreBinariadeBusca abb = new ArvoreBinariadeBusca(valores);
+        ArvoreBinariadeBusca abb = new ArvoreBinariadeBusca(Balanceamento.NENHUM);
+        lerValores("src/main/java/com/edb2/arquivo1.txt", abb);
 
         // === LENDO OPERAÇÕES
-        try (Scanner scanner = new Scanner(new File("src/main/java/com/edb2/arquivo2.txt"))) {
-            while(scanner.hasNext()) {
-                String linha = scanner.nextLine();
-                String[] operacoes = linha.split(" ");
-
-                // Cheia, Completa, Mediana, PreOrdem
-                if(operacoes.length == 1) {
-                    if(operacoes[0].equalsIgnoreCase("CHEIA")) {
-                        if(abb.ehCheia()) {
-                            System.out.println("A árvore é cheia");
-                        }
-                        else {
-                            System.out.println("A árvore não é cheia");
-                        }
-                    }
-                    else if(operacoes[0].equalsIgnoreCase("COMPLETA")) {
-                        if(abb.ehCompleta()) {
-                            System.out.println("A árvore é completa");
-                        }
-                        else {
-                            System.out.println("A árvore não é completa");
-                        }
-                    }
-                    else if(operacoes[0].equalsIgnoreCase("PREORDEM")) {
-                        System.out.println(abb.preOrdem());
-                    }
-                    else if(operacoes[0].equalsIgnoreCase("MEDIANA")) {
-                        System.out.println(abb.mediana());
-                    }
-                }
-                // Enesimo, Insira, Imprima, Remova, Posicao, Media, Buscar
-                else if(operacoes.length == 2){
-                    Integer valor = Integer.parseInt(operacoes[1]);
-                    if(operacoes[0].equalsIgnoreCase("ENESIMO")) {
-                        System.out.println(abb.enesimoElemento(valor));
-                    }
-                    else if(operacoes[0].equalsIgnoreCase("INSIRA")) {
-                        if(abb.inserir(valor)) {
-                            System.out.println(valor + " adicionado");
-                        }
-                        else {
-                            System.out.println(valor + " já está na árvore, não pode ser inserido");
-                        }
-                    }
-                    else if(operacoes[0].equalsIgnoreCase("IMPRIMA")) {
-                        abb.imprimir(valor);
-                        System.out.println();
-                    }
-                    else if(operacoes[0].equalsIgnoreCase("REMOVA")) {
-                        if(abb.remover(valor)) {
-                            System.out.println(valor + " removido");
-                        }
-                        else {
-                            System.out.println(valor + " não está na árvore, não pode ser removido");
-                        }
-                    }
-                    else if(operacoes[0].equalsIgnoreCase("POSICAO")) {
-                        System.out.println(abb.posicao(valor));
-                    }
-                    else if(operacoes[0].equalsIgnoreCase("MEDIA")) {
-                       System.out.println(abb.media(valor));
-                    }
-                    else if(operacoes[0].equalsIgnoreCase("BUSCAR")) {
-                        if(abb.buscar(valor) != null) {
-                            System.out.println("Chave encontrada");
-                        }
-                        else {
-                            System.out.println("Chave não encontrada");
-                        }
-                    }
-                }
-                else {
-                    throw new IllegalArgumentException("Número de parâmetros excedido!");
-                }
-            }
-        } catch (FileNotFoundException e) {
+        PrintStream saida = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16));
+        try {
+            new ProcessadorComandos(abb, saida).processar(Paths.get("src/main/java/com/edb2/arquivo2.txt"));
+        } catch (IOException e) {
             e.printStackTrace();
+        } finally {
+            saida.flush();
         }
     }
 
-    private static List<Integer> lerValores(String arquivo) {
-        List<Integer> valores = new ArrayList<>();
-        try (Scanner scanner = new Scanner(new File(arquivo))) {
-            scanner.useDelimiter(" ");
-            while(scanner.hasNext()) {
-                valores.add(Integer.parseInt(scanner.next()));
-            }
-        } catch (FileNotFoundException e) {
+    private static void lerValores(String arquivo, ArvoreBinariadeBusca abb) {
+        try {
+            LeitorValores.ler(Paths.get(arquivo), abb::inserir);
+        } catch (IOException e) {
             e.printStackTrace();
         }
-        return valores;
     }
 }
@@ -0,0 +1,327 @@
+package com.edb2;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ *  Formato binário para salvar uma {@link ArvoreBinariadeBusca} e carregá-la de volta sem refazer as inserções.
+ *
+ *  O arquivo tem, nesta ordem (inteiros em big-endian):
+ *  <pre>
+ *  cabeçalho  "ABB1" | versão (1 byte) | opções (1 byte) | balanceamento (1 byte) | reservado (1 byte)
+ *             | tamanho (int) | altura (int)
+ *  valores    em ordem crescente: o primeiro em zigzag e os demais como a diferença para o anterior menos 1,
+ *             todos em varint (7 bits por byte, o bit mais alto indica que há mais bytes)
+ *  formato    opcional: 2 bits por nó em pré-ordem (bit 0: tem filho da esquerda, bit 1: tem filho da direita),
+ *             4 nós por byte
+ *  CRC32      de todos os bytes anteriores (int)
+ *  </pre>
+ *  Valores próximos ocupam 1 byte cada. Sem o formato, a carga monta uma árvore perfeitamente balanceada em tempo
+ * linear com {@link ArvoreBinariadeBusca#construirOrdenada(int[], int, Balanceamento)}; com ele, a árvore volta
+ * exatamente com a mesma forma (e a mesma pré-ordem) que tinha ao ser salva.
+ *
+ *  A carga mapeia o arquivo em memória e lê os valores direto do mapeamento; por isso o arquivo precisa ter menos de
+ * 2 GB (cerca de 400 milhões de valores no pior caso). A gravação é feita em um arquivo temporário que só substitui o
+ * destino depois de completo e sincronizado com o disco, então uma falha no meio não estraga o arquivo anterior.
+ */
+final class ArquivoArvore {
+    private static final int MAGICO = 0x41424231;
+    private static final int VERSAO = 1;
+    private static final int COM_FORMATO = 1;
+    private static final int TAMANHO_CABECALHO = 16;
+    private static final int TAMANHO_BUFFER = 1 << 16;
+
+    private ArquivoArvore() {
+    }
+
+    static void salvar(ArvoreBinariadeBusca abb, Path arquivo, boolean preservarFormato) throws IOException {
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        try {
+            try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                CRC32 crc = new CRC32();
+                OutputStream buffer = new BufferedOutputStream(Channels.newOutputStream(canal), TAMANHO_BUFFER);
+                DataOutputStream saida = new DataOutputStream(new CheckedOutputStream(buffer, crc));
+                escreverCabecalho(saida, abb, preservarFormato);
+                escreverValores(saida, abb);
+                if (preservarFormato) {
+                    escreverFormato(saida, abb.getRaiz());
+                }
+                saida.flush();
+                new DataOutputStream(buffer).writeInt((int) crc.getValue());
+                buffer.flush();
+                canal.force(true);
+            }
+            try {
+                Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporario);
+            throw e;
+        }
+    }
+    private static void escreverCabecalho(DataOutputStream saida, ArvoreBinariadeBusca abb, boolean preservarFormato)
+            throws IOException {
+        saida.writeInt(MAGICO);
+        saida.writeByte(VERSAO);
+        saida.writeByte(preservarFormato ? COM_FORMATO : 0);
+        saida.writeByte(abb.getBalanceamento().ordinal());
+        saida.writeByte(0);
+        saida.writeInt(abb.getTamanho());
+        saida.writeInt(abb.getAltura());
+    }
+    /**
+     * Escreve os valores em ordem crescente, seguindo as costuras.
+     */
+    private static void escreverValores(DataOutputStream saida, ArvoreBinariadeBusca abb) throws IOException {
+        No no = abb.min();
+        if (no == null) {
+            return;
+        }
+        int primeiro = no.getValor();
+        escreverVarint(saida, ((primeiro << 1) ^ (primeiro >> 31)) & 0xFFFFFFFFL);
+        long anterior = primeiro;
+        for (no = ArvoreBinariadeBusca.sucessor(no); no != null; no = ArvoreBinariadeBusca.sucessor(no)) {
+            escreverVarint(saida, no.getValor() - anterior - 1);
+            anterior = no.getValor();
+        }
+    }
+    private static void escreverVarint(DataOutputStream saida, long valor) throws IOException {
+        while (valor >= 0x80) {
+            saida.write((int) (valor & 0x7F) | 0x80);
+            valor >>>= 7;
+        }
+        saida.write((int) valor);
+    }
+    /**
+     * Escreve, em pré-ordem, quais filhos cada nó tem.
+     */
+    private static void escreverFormato(DataOutputStream saida, No raiz) throws IOException {
+        if (raiz == null) {
+            return;
+        }
+        int[] estado = new int[2];
+        IOException[] erro = new IOException[1];
+        Percurso.visitar(raiz, new Percurso.Visitante() {
+            @Override
+            public void entrar(No no, int profundidade) {
+                int codigo = (no.isCosturaEsquerda() ? 0 : 1) | (no.isCosturaDireita() ? 0 : 2);
+                int i = estado[0]++;
+                estado[1] |= codigo << ((i & 3) * 2);
+                if ((i & 3) == 3 && erro[0] == null) {
+                    try {
+                        saida.write(estado[1]);
+                    } catch (IOException e) {
+                        erro[0] = e;
+                    }
+                    estado[1] = 0;
+                }
+            }
+        });
+        if (erro[0] != null) {
+            throw erro[0];
+        }
+        if ((estado[0] & 3) != 0) {
+            saida.write(estado[1]);
+        }
+    }
+
+    static ArvoreBinariadeBusca carregar(Path arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            long tamanhoArquivo = canal.size();
+            if (tamanhoArquivo > Integer.MAX_VALUE) {
+                throw new IOException("Arquivo grande demais para ser mapeado de uma vez: " + arquivo);
+            }
+            if (tamanhoArquivo < TAMANHO_CABECALHO + 4) {
+                throw corrompido(arquivo, "arquivo truncado");
+            }
+            //Como ByteBuffer e pelo Buffer: os métodos de mesmo nome de MappedByteBuffer (Java 17) e de ByteBuffer
+            //que retornam o próprio tipo (Java 9) não existem no Java 8.
+            ByteBuffer dados = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamanhoArquivo);
+            int fimDados = (int) tamanhoArquivo - 4;
+            ByteBuffer conteudo = dados.duplicate();
+            ((Buffer) conteudo).limit(fimDados);
+            CRC32 crc = new CRC32();
+            crc.update(conteudo);
+            if ((int) crc.getValue() != dados.getInt(fimDados)) {
+                throw corrompido(arquivo, "o CRC32 não confere");
+            }
+            ((Buffer) dados).limit(fimDados);
+            try {
+                return ler(dados, arquivo);
+            } catch (BufferUnderflowException e) {
+                throw corrompido(arquivo, "arquivo truncado");
+            }
+        }
+    }
+    private static ArvoreBinariadeBusca ler(ByteBuffer dados, Path arquivo) throws IOException {
+        if (dados.getInt() != MAGICO) {
+            throw corrompido(arquivo, "não é um arquivo de árvore");
+        }
+        int versao = dados.get();
+        if (versao != VERSAO) {
+            throw corrompido(arquivo, "versão " + versao + " desconhecida");
+        }
+        int opcoes = dados.get();
+        int ordinal = dados.get();
+        Balanceamento[] balanceamentos = Balanceamento.values();
+        if (ordinal < 0 || ordinal >= balanceamentos.length) {
+            throw corrompido(arquivo, "balanceamento " + ordinal + " desconhecido");
+        }
+        dados.get();
+        int tamanho = dados.getInt();
+        int altura = dados.getInt();
+        //Cada valor ocupa pelo menos um byte: isso limita o vetor alocado ao tamanho do arquivo.
+        if (tamanho < 0 || tamanho > dados.remaining()) {
+            throw corrompido(arquivo, "tamanho " + tamanho + " inválido");
+        }
+        int[] valores = new int[tamanho];
+        long anterior = 0;
+        for (int i = 0; i < tamanho; i++) {
+            long v = lerVarint(dados, arquivo);
+            if (i == 0) {
+                int z = (int) v;
+                v = (z >>> 1) ^ -(z & 1);
+            } else {
+                v += anterior + 1;
+            }
+            if (v > Integer.MAX_VALUE) {
+                throw corrompido(arquivo, "valor fora do intervalo de int");
+            }
+            valores[i] = (int) v;
+            anterior = v;
+        }
+        ArvoreBinariadeBusca abb;
+        if ((opcoes & COM_FORMATO) != 0) {
+            abb = ArvoreBinariadeBusca.construir(lerFormato(dados, valores, arquivo), tamanho,
+                    balanceamentos[ordinal]);
+            if (abb.getAltura() != altura) {
+                throw corrompido(arquivo, "a altura não confere com o formato");
+            }
+        } else {
+            abb = ArvoreBinariadeBusca.construirOrdenada(valores, tamanho, balanceamentos[ordinal]);
+        }
+        if (dados.hasRemaining()) {
+            throw corrompido(arquivo, "bytes sobrando depois dos dados");
+        }
+        return abb;
+    }
+    private static long lerVarint(ByteBuffer dados, Path arquivo) throws IOException {
+        long valor = 0;
+        for (int deslocamento = 0; deslocamento < 35; deslocamento += 7) {
+            int b = dados.get();
+            valor |= (long) (b & 0x7F) << deslocamento;
+            if (b >= 0) {
+                if (valor > 0xFFFFFFFFL) {
+                    break;
+                }
+                return valor;
+            }
+        }
+        throw corrompido(arquivo, "varint inválido");
+    }
+    /**
+     * Refaz a forma da árvore a partir dos bits em pré-ordem, sem recursão: cada nó é o filho da esquerda do nó
+     * anterior, se ele tiver um, ou senão o filho da direita do último nó que ainda espera por esse filho. Depois
+     * os valores são distribuídos em ordem simétrica, ligando as costuras, e os tamanhos, alturas e somas são
+     * calculados na ordem inversa da pré-ordem, em que os filhos sempre vêm antes do pai.
+     * @return a raiz da árvore, ou null se ela for vazia.
+     */
+    private static No lerFormato(ByteBuffer dados, int[] valores, Path arquivo) throws IOException {
+        int n = valores.length;
+        if (n == 0) {
+            return null;
+        }
+        No[] preOrdem = new No[n];
+        No[] esperandoDireita = new No[n];
+        int topo = 0;
+        int bits = 0;
+        No anterior = null;
+        for (int i = 0; i < n; i++) {
+            if ((i & 3) == 0) {
+                bits = dados.get();
+            }
+            int codigo = bits >>> ((i & 3) * 2);
+            No no = new No(0);
+            no.setCosturaEsquerda((codigo & 1) == 0);
+            no.setCosturaDireita((codigo & 2) == 0);
+            if (anterior != null) {
+                No pai;
+                if (!anterior.isCosturaEsquerda()) {
+                    pai = anterior;
+                    pai.setFilhoEsquerda(no);
+                } else if (topo > 0) {
+                    pai = esperandoDireita[--topo];
+                    pai.setFilhoDireita(no);
+                } else {
+                    throw corrompido(arquivo, "o formato tem mais nós que a árvore");
+                }
+                no.setPai(pai);
+            }
+            if (!no.isCosturaDireita()) {
+                esperandoDireita[topo++] = no;
+            }
+            preOrdem[i] = no;
+            anterior = no;
+        }
+        if (topo > 0 || !anterior.isCosturaEsquerda()) {
+            throw corrompido(arquivo, "o formato tem menos nós que a árvore");
+        }
+        No no = preOrdem[0];
+        while (!no.isCosturaEsquerda()) {
+            no = no.getFilhoEsquerda();
+        }
+        anterior = null;
+        for (int i = 0; i < n; i++) {
+            no.setValor(valores[i]);
+            if (no.isCosturaEsquerda()) {
+                no.setFilhoEsquerda(anterior);
+            }
+            No proximo = proximoNaMontagem(no);
+            if (no.isCosturaDireita()) {
+                no.setFilhoDireita(proximo);
+            }
+            anterior = no;
+            no = proximo;
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            ArvoreBinariadeBusca.recalcular(preOrdem[i]);
+        }
+        return preOrdem[0];
+    }
+    /**
+     * Sucessor em ordem simétrica de um nó cuja costura da direita ainda não foi ligada.
+     */
+    private static No proximoNaMontagem(No no) {
+        if (!no.isCosturaDireita()) {
+            no = no.getFilhoDireita();
+            while (!no.isCosturaEsquerda()) {
+                no = no.getFilhoEsquerda();
+            }
+            return no;
+        }
+        while (no.getPai() != null && !no.getPai().isCosturaDireita() && no.getPai().getFilhoDireita() == no) {
+            no = no.getPai();
+        }
+        return no.getPai();
+    }
+    private static IOException corrompido(Path arquivo, String motivo) {
+        return new IOException("Arquivo de árvore inválido (" + motivo + "): " + arquivo);
+    }
+}
@@ -1,5 +1,24 @@
 package com.edb2;
 
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.IdentityHashMap;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
 /**
  *  Assim como uma arvore generaliza uma lista encadeada, uma arvore binaria de busca generaliza uma
  * lista ordenada. Uma arvore binaria de busca permite inserção de elementos não previamente inseridos,
@@ -51,44 +70,329 @@ package com.edb2;
 */
 public class ArvoreBinariadeBusca {
     private No raiz;
-    private Integer tamanho;
-    private Integer altura;
+    private int tamanho;
+    /**
+     * Abaixo desta quantidade de nós (ou de valores, nos percursos) o trabalho paralelo não é mais dividido.
+     */
+    static final int LIMITE_SEQUENCIAL = 1 << 13;
+
+    private final Balanceamento balanceamento;
+
+    private int duplicatasDescartadas;
+    private int modificacoes;
+    private boolean versionada;
+    private Instantaneo.NoPersistente versao;
+    /**
+     * Durante um lote sem balanceamento, os nós cujo tamanho, altura e soma ainda precisam ser recalculados.
+     */
+    private Set<No> pendentes;
+    /**
+     * Métricas das operações, ou null se estiverem desabilitadas.
+     */
+    private volatile Metricas metricas;
 
     public ArvoreBinariadeBusca(Integer valores[]) {
+        this(valores, Balanceamento.NENHUM);
+    }
+    public ArvoreBinariadeBusca(int[] valores) {
+        this(valores, Balanceamento.NENHUM);
+    }
+    /**
+     * Cria uma árvore vazia com a estratégia de balanceamento escolhida.
+     * @param balanceamento a estratégia de balanceamento da árvore.
+     */
+    public ArvoreBinariadeBusca(Balanceamento balanceamento) {
         this.raiz = null;
         this.tamanho = 0;
-        this.altura = 0;
+        this.balanceamento = balanceamento;
+    }
+    /**
+     * Cria a árvore inserindo os valores na ordem dada, usando a estratégia de balanceamento escolhida.
+     * Com {@link Balanceamento#AVL} a altura fica O(log n) mesmo para entradas ordenadas.
+     * @param valores os valores a serem inseridos.
+     * @param balanceamento a estratégia de balanceamento da árvore.
+     */
+    public ArvoreBinariadeBusca(Integer valores[], Balanceamento balanceamento) {
+        this(balanceamento);
+        for (int i = 0; i < valores.length; i++) {
+            this.inserir(valores[i]);
+        }
+    }
+    /**
+     * Cria a árvore a partir de um vetor de inteiros primitivos, inserindo na ordem dada.
+     * Nenhum valor é encaixotado durante a construção.
+     * @param valores os valores a serem inseridos.
+     * @param balanceamento a estratégia de balanceamento da árvore.
+     */
+    public ArvoreBinariadeBusca(int[] valores, Balanceamento balanceamento) {
+        this(balanceamento);
         for (int i = 0; i < valores.length; i++) {
             this.inserir(valores[i]);
         }
     }
 
+    /**
+     * Constrói de uma vez uma árvore perfeitamente balanceada com os valores dados, em qualquer ordem.
+     * Os valores são ordenados (no próprio vetor recebido) e os repetidos descartados; depois a árvore é
+     * montada de baixo para cima em tempo linear, com as costuras, os pais, os tamanhos e as alturas já
+     * definidos, sem nenhuma chamada a {@link #inserir(int)}.
+     * A quantidade de valores repetidos descartados fica em {@link #getDuplicatasDescartadas()}.
+     * @param valores os valores da árvore; o vetor é reordenado.
+     * @param balanceamento a estratégia usada nas inserções e remoções seguintes.
+     * @return a árvore construída.
+     */
+    public static ArvoreBinariadeBusca construirEmLote(int[] valores, Balanceamento balanceamento) {
+        Arrays.sort(valores);
+        int n = descartarRepetidos(valores);
+        ArvoreBinariadeBusca abb = construirOrdenada(valores, n, balanceamento);
+        abb.duplicatasDescartadas = valores.length - n;
+        return abb;
+    }
+    /**
+     * Versão paralela de {@link #construirEmLote(int[], Balanceamento)}, que monta a mesma árvore usando o
+     * {@link ForkJoinPool#commonPool()}: os valores são ordenados com {@link Arrays#parallelSort(int[])}, os nós
+     * são criados em paralelo e as duas metades de cada sub-árvore são ligadas por tarefas separadas, até
+     * {@link #LIMITE_SEQUENCIAL} nós, abaixo do qual a ligação é sequencial.
+     *  As metades não precisam se coordenar: a costura de um nó sem filho aponta para o vizinho dele no vetor
+     * de nós, que já existe antes da ligação, então as costuras que atravessam a divisa entre duas tarefas
+     * ficam certas sem nenhum passo de junção.
+     * @param valores os valores da árvore; o vetor é reordenado.
+     * @param balanceamento a estratégia usada nas inserções e remoções seguintes.
+     * @return a árvore construída.
+     */
+    public static ArvoreBinariadeBusca construirEmLoteParalelo(int[] valores, Balanceamento balanceamento) {
+        Arrays.parallelSort(valores);
+        int n = descartarRepetidos(valores);
+        ArvoreBinariadeBusca abb = new ArvoreBinariadeBusca(balanceamento);
+        No[] nos = new No[n];
+        Arrays.parallelSetAll(nos, i -> new No(valores[i]));
+        abb.raiz = ForkJoinPool.commonPool().invoke(new Ligacao(nos, 0, n - 1, null));
+        abb.tamanho = n;
+        abb.duplicatasDescartadas = valores.length - n;
+        return abb;
+    }
+    /**
+     * Compacta os valores distintos de um vetor ordenado no começo dele.
+     * @return a quantidade de valores distintos.
+     */
+    static int descartarRepetidos(int[] ordenados) {
+        int n = 0;
+        for (int i = 0; i < ordenados.length; i++) {
+            if (n == 0 || ordenados[i] != ordenados[n - 1]) {
+                ordenados[n++] = ordenados[i];
+            }
+        }
+        return n;
+    }
+    /**
+     * Monta a árvore balanceada a partir dos n primeiros valores do vetor, que devem estar em ordem
+     * estritamente crescente.
+     */
+    static ArvoreBinariadeBusca construirOrdenada(int[] ordenados, int n, Balanceamento balanceamento) {
+        ArvoreBinariadeBusca abb = new ArvoreBinariadeBusca(balanceamento);
+        No[] nos = new No[n];
+        for (int i = 0; i < n; i++) {
+            nos[i] = new No(ordenados[i]);
+        }
+        abb.raiz = ligar(nos, 0, n - 1, null);
+        abb.tamanho = n;
+        return abb;
+    }
+    /**
+     * Cria a árvore com uma raiz já montada, com as costuras, os pais, os tamanhos, as alturas e as somas
+     * definidos, como a que {@link ArquivoArvore} refaz a partir do formato salvo.
+     */
+    static ArvoreBinariadeBusca construir(No raiz, int tamanho, Balanceamento balanceamento) {
+        ArvoreBinariadeBusca abb = new ArvoreBinariadeBusca(balanceamento);
+        abb.raiz = raiz;
+        abb.tamanho = tamanho;
+        return abb;
+    }
+    /**
+     * Liga os nós de nos[inicio..fim] como uma sub-árvore balanceada: o nó do meio é a raiz, e onde não
+     * houver filho a costura aponta para o vizinho no vetor, que é o antecessor ou o sucessor em ordem simétrica.
+     * @return a raiz da sub-árvore, ou null se o intervalo for vazio.
+     */
+    private static No ligar(No[] nos, int inicio, int fim, No pai) {
+        if (inicio > fim) {
+            return null;
+        }
+        int meio = (inicio + fim) >>> 1;
+        No no = nos[meio];
+        no.setPai(pai);
+        No esquerda = ligar(nos, inicio, meio - 1, no);
+        No direita = ligar(nos, meio + 1, fim, no);
+        pendurar(nos, meio, esquerda, direita);
+        return no;
+    }
+    /**
+     * Liga ao nó nos[meio] as sub-árvores já montadas, ou as costuras para os vizinhos no vetor onde não houver
+     * sub-árvore, e recalcula o nó.
+     */
+    private static void pendurar(No[] nos, int meio, No esquerda, No direita) {
+        No no = nos[meio];
+        if (esquerda == null) {
+            no.setCosturaEsquerda(true);
+            no.setFilhoEsquerda(meio > 0 ? nos[meio - 1] : null);
+        } else {
+            no.setFilhoEsquerda(esquerda);
+        }
+        if (direita == null) {
+            no.setCosturaDireita(true);
+            no.setFilhoDireita(meio + 1 < nos.length ? nos[meio + 1] : null);
+        } else {
+            no.setFilhoDireita(direita);
+        }
+        recalcular(no);
+    }
+    /**
+     * Tarefa de {@link #construirEmLoteParalelo(int[], Balanceamento)} que liga nos[inicio..fim]: a metade
+     * esquerda vai para outra thread do pool e a direita é ligada nesta.
+     */
+    private static final class Ligacao extends RecursiveTask<No> {
+        private static final long serialVersionUID = 1L;
+
+        private final No[] nos;
+        private final int inicio;
+        private final int fim;
+        private final No pai;
+
+        Ligacao(No[] nos, int inicio, int fim, No pai) {
+            this.nos = nos;
+            this.inicio = inicio;
+            this.fim = fim;
+            this.pai = pai;
+        }
+
+        @Override
+        protected No compute() {
+            if (this.fim - this.inicio < LIMITE_SEQUENCIAL) {
+                return ligar(this.nos, this.inicio, this.fim, this.pai);
+            }
+            int meio = (this.inicio + this.fim) >>> 1;
+            No no = this.nos[meio];
+            no.setPai(this.pai);
+            Ligacao esquerda = new Ligacao(this.nos, this.inicio, meio - 1, no);
+            esquerda.fork();
+            No direita = new Ligacao(this.nos, meio + 1, this.fim, no).compute();
+            pendurar(this.nos, meio, esquerda.join(), direita);
+            return no;
+        }
+    }
+
+    /**
+     * Salva a árvore em um arquivo binário compacto (veja {@link ArquivoArvore}), para que ela possa ser
+     * carregada com {@link #carregar(Path)} sem ler o arquivo de texto nem refazer as inserções.
+     * Equivale a {@code salvar(arquivo, false)}: só os valores são salvos, e a carga monta uma árvore balanceada.
+     * @param arquivo o arquivo de destino, substituído se já existir.
+     * @throws IOException se o arquivo não puder ser gravado.
+     */
+    public void salvar(Path arquivo) throws IOException {
+        salvar(arquivo, false);
+    }
+    /**
+     * Salva a árvore em um arquivo binário compacto.
+     * @param arquivo o arquivo de destino, substituído se já existir.
+     * @param preservarFormato se true, salva também a forma da árvore (2 bits por nó), para que a carga a
+     *        refaça exatamente; se false, a carga monta uma árvore perfeitamente balanceada.
+     * @throws IOException se o arquivo não puder ser gravado.
+     */
+    public void salvar(Path arquivo, boolean preservarFormato) throws IOException {
+        ArquivoArvore.salvar(this, arquivo, preservarFormato);
+    }
+    /**
+     * Carrega uma árvore salva com {@link #salvar(Path, boolean)}, com o mesmo balanceamento que ela tinha.
+     * O arquivo é mapeado em memória e a árvore é montada em tempo linear, sem nenhuma chamada a
+     * {@link #inserir(int)}.
+     * @param arquivo o arquivo salvo.
+     * @return a árvore carregada.
+     * @throws IOException se o arquivo não puder ser lido, estiver corrompido (o CRC32 não confere) ou não for
+     *         um arquivo de árvore.
+     */
+    public static ArvoreBinariadeBusca carregar(Path arquivo) throws IOException {
+        return ArquivoArvore.carregar(arquivo);
+    }
+
+    /**
+     * Retorna quantos valores repetidos foram descartados por {@link #construirEmLote(int[], Balanceamento)}.
+     * @return a quantidade de valores repetidos descartados na construção.
+     */
+    public int getDuplicatasDescartadas() {
+        return this.duplicatasDescartadas;
+    }
     /**
      * Retorna o tamanho da arvore, ou seja, a quantidade de nós.
      * @return tamanho da arvore
      */
-    public Integer getTamanho() {
+    public int getTamanho() {
         return this.tamanho;
     }
     /**
-     * Calcula recursivamente a altura da arvore a partir da raiz
+     * Retorna a altura da arvore, em O(1): cada nó guarda a altura da sua sub-árvore, atualizada no caminho
+     * até a raiz a cada inserção e remoção, então basta ler a da raiz.
      * @return altura da arvore
      */
-    public Integer getAltura() {
-        this.altura = getAltura(this.raiz);
-        return this.altura;
+    public int getAltura() {
+        return this.raiz == null ? 0 : this.raiz.getAltura();
     }
-    private static Integer getAltura(No no) {
-        if (no == null) {
-            return 0;
+    /**
+     * Retorna a raiz da árvore, para as estruturas do pacote que percorrem os nós diretamente.
+     * @return a raiz, ou null se a árvore estiver vazia
+     */
+    No getRaiz() {
+        return this.raiz;
+    }
+    /**
+     * Quantidade de inserções e remoções feitas na árvore, usada pelos iteradores de {@link ConjuntoNavegavel}
+     * para detectar alterações concorrentes.
+     */
+    int getModificacoes() {
+        return this.modificacoes;
+    }
+    /**
+     * Passa a medir as operações da árvore (veja {@link Metricas}). Se as métricas já estiverem habilitadas,
+     * continua com as mesmas.
+     * @return as métricas da árvore.
+     */
+    public synchronized Metricas habilitarMetricas() {
+        if (this.metricas == null) {
+            this.metricas = new Metricas();
         }
-        return 1 + Math.max(getAltura(no.isCosturaEsquerda()? null : no.getFilhoEsquerda()), getAltura(no.isCosturaDireita()? null : no.getFilhoDireita()));
+        return this.metricas;
+    }
+    /**
+     * Para de medir as operações. As métricas já coletadas continuam com quem as obteve.
+     */
+    public synchronized void desabilitarMetricas() {
+        this.metricas = null;
+    }
+    /**
+     * Retorna as métricas da árvore.
+     * @return as métricas, ou null se estiverem desabilitadas.
+     */
+    public Metricas getMetricas() {
+        return this.metricas;
+    }
+    /**
+     * Retorna uma visão da árvore como {@link java.util.NavigableSet}, para ser usada no lugar de um TreeSet.
+     * As alterações feitas pela visão ou pela árvore aparecem nas duas.
+     * @return a visão da árvore como conjunto navegável.
+     */
+    public ConjuntoNavegavel comoConjunto() {
+        return new ConjuntoNavegavel(this);
+    }
+    /**
+     * Retorna a estratégia de balanceamento escolhida na construção da árvore.
+     * @return a estratégia de balanceamento
+     */
+    public Balanceamento getBalanceamento() {
+        return this.balanceamento;
     }
     /**
      * Verifica se a arvore está vazia
      * @return true se a arvore estiver vazia, false caso contrário
      */
-    public Boolean vazia() {
+    public boolean vazia() {
         return this.raiz == null;
     }
 
@@ -98,88 +402,200 @@ public class ArvoreBinariadeBusca {
      * @param valor
      * @return No
      */
-    public No buscar (Integer valor) {
-        return buscar(this.raiz, valor);
+    public No buscar(int valor) {
+        Metricas metricas = this.metricas;
+        if (metricas == null) {
+            return buscarValor(valor, null);
+        }
+        int[] nos = new int[1];
+        long inicio = System.nanoTime();
+        No no = buscarValor(valor, nos);
+        metricas.registrar(Metricas.Operacao.BUSCAR, valor, inicio, nos[0]);
+        return no;
     }
-    private No buscar(No no, Integer valor) {
-        if (no == null) {
-            return null;
+    /**
+     * Busca o valor a partir da raiz. No modo {@link Balanceamento#AFUNILAMENTO}, o nó encontrado, ou o último
+     * nó visitado se o valor não estiver na árvore, sobe até a raiz.
+     * @param nos se não for null, recebe em nos[0] a quantidade de nós visitados na descida.
+     */
+    private No buscarValor(int valor, int[] nos) {
+        if (this.balanceamento != Balanceamento.AFUNILAMENTO) {
+            return buscar(this.raiz, valor, nos);
         }
-        if (no.getValor() == valor) {
-            return no;
+        No no = this.raiz;
+        while (no != null) {
+            if (nos != null) {
+                nos[0]++;
+            }
+            No proximo;
+            if (valor < no.getValor()) {
+                proximo = no.isCosturaEsquerda() ? null : no.getFilhoEsquerda();
+            } else if (valor > no.getValor()) {
+                proximo = no.isCosturaDireita() ? null : no.getFilhoDireita();
+            } else {
+                afunilar(no);
+                return no;
+            }
+            if (proximo == null) {
+                afunilar(no);
+                return null;
+            }
+            no = proximo;
         }
-        if (valor < no.getValor()) {
-            return no.isCosturaEsquerda() ? null : buscar(no.getFilhoEsquerda(), valor); //Lembre-se que se o filho da esquerda for uma costura, ele não tem filho da esquerda
+        return null;
+    }
+    private No buscar(No no, int valor) {
+        return buscar(no, valor, null);
+    }
+    /**
+     * @param nos se não for null, recebe em nos[0] a quantidade de nós visitados na descida.
+     */
+    private No buscar(No no, int valor, int[] nos) {
+        int visitados = 0;
+        while (no != null) {
+            visitados++;
+            if (valor < no.getValor()) {
+                no = no.isCosturaEsquerda() ? null : no.getFilhoEsquerda(); //Lembre-se que se o filho da esquerda for uma costura, ele não tem filho da esquerda
+            } else if (valor > no.getValor()) {
+                no = no.isCosturaDireita() ? null : no.getFilhoDireita();
+            } else {
+                break;
+            }
+        }
+        if (nos != null) {
+            nos[0] = visitados;
         }
-        return no.isCosturaDireita() ? null : buscar(no.getFilhoDireita(), valor);
+        return no;
     }
 
+    /**
+     * Verifica se o valor está na árvore, sem alocar nenhum objeto.
+     * @param valor o valor a ser pesquisado.
+     * @return true se o valor estiver na árvore, false caso contrário.
+     */
+    public boolean contains(int valor) {
+        Metricas metricas = this.metricas;
+        if (metricas == null) {
+            return buscarValor(valor, null) != null;
+        }
+        int[] nos = new int[1];
+        long inicio = System.nanoTime();
+        boolean contem = buscarValor(valor, nos) != null;
+        metricas.registrar(Metricas.Operacao.BUSCAR, valor, inicio, nos[0]);
+        return contem;
+    }
     /**
      * Insere um novo elemento na arvore binaria de busca.
      * Um elemento não pode ser inserido se já existir na arvore.
-     * Esse é um método recursivo.
+     * A descida é iterativa, então árvores degeneradas não estouram a pilha.
      * @param valor O valor a ser inserido.
      * @return true se o elemento foi inserido com sucesso, false caso contrário.
      */
-    public Boolean inserir(Integer valor) {
+    public boolean inserir(int valor) {
+        Metricas metricas = this.metricas;
+        if (metricas == null) {
+            return inserirValor(valor, null);
+        }
+        int[] nos = new int[1];
+        long inicio = System.nanoTime();
+        boolean inserido = inserirValor(valor, nos);
+        metricas.registrar(Metricas.Operacao.INSERIR, valor, inicio, nos[0]);
+        return inserido;
+    }
+    /**
+     * @param nos se não for null, recebe em nos[0] a quantidade de nós visitados na descida, antes de qualquer
+     *            rotação ou afunilamento.
+     */
+    private boolean inserirValor(int valor, int[] nos) {
+        boolean inserido;
         if (this.raiz == null) {
             this.raiz = new No(valor);
             this.raiz.setPai(null);
 
             this.raiz.setCosturaDireita(true);
-            this.raiz.setFilhoDireita(raiz);                    // O sucessor do nó raiz é ele mesmo caso ele não tenha filho da direita
+            this.raiz.setFilhoDireita(null);                    // A raiz sozinha não tem sucessor
             this.raiz.setCosturaEsquerda(true);
-            this.raiz.setFilhoEsquerda(raiz);                   // O antecessor do nó raiz é ele mesmo caso ele não tenha filho da esquerda
+            this.raiz.setFilhoEsquerda(null);                   // A raiz sozinha não tem antecessor
 
             this.tamanho++;
-            return true;
+            inserido = true;
+        } else {
+            No novo = inserir(this.raiz, valor, nos);
+            inserido = novo != null;
+            if (this.balanceamento == Balanceamento.AFUNILAMENTO) {
+                afunilar(inserido ? novo : buscar(this.raiz, valor));
+            }
         }
-        return inserir(this.raiz, valor);
-    }
-    private Boolean inserir(No no, Integer valor) {
-        if (no.getValor() == valor) {
-            return false;
+        if (inserido) {
+            this.modificacoes++;
+            if (this.versionada) {
+                this.versao = Instantaneo.inserir(this.versao, valor);
+            }
         }
-        if (valor < no.getValor()) {
-            if (no.isCosturaEsquerda()) {
-                No novoNo = new No(valor);
-                novoNo.setPai(no);
-                //Atualiza o sucessor e antecessor do novo nó. Um nó recém inserido sempre será um nó folha.
-                //Como aqui ele é filho da esquerda, seu sucessor será o seu pai.
-                novoNo.setCosturaDireita(true);
-                novoNo.setFilhoDireita(novoNo.getPai());
-                //O seu antecessor será o antecessor do seu pai.
-                novoNo.setCosturaEsquerda(true);
-                novoNo.setFilhoEsquerda(novoNo.getPai().getFilhoEsquerda());
+        return inserido;
+    }
+    /**
+     * Desce a partir do nó dado, que precisa ser a raiz de uma sub-árvore onde o valor caberia, e pendura o
+     * valor como folha.
+     * @return o nó inserido, ou null se o valor já existia.
+     */
+    private No inserir(No no, int valor) {
+        return inserir(no, valor, null);
+    }
+    /**
+     * @param nos se não for null, recebe em nos[0] a quantidade de nós visitados na descida.
+     */
+    private No inserir(No no, int valor, int[] nos) {
+        while (true) {
+            if (nos != null) {
+                nos[0]++;
+            }
+            if (valor < no.getValor()) {
+                if (no.isCosturaEsquerda()) {
+                    No novoNo = new No(valor);
+                    novoNo.setPai(no);
+                    //Atualiza o sucessor e antecessor do novo nó. Um nó recém inserido sempre será um nó folha.
+                    //Como aqui ele é filho da esquerda, seu sucessor será o seu pai.
+                    novoNo.setCosturaDireita(true);
+                    novoNo.setFilhoDireita(novoNo.getPai());
+                    //O seu antecessor será o antecessor do seu pai.
+                    novoNo.setCosturaEsquerda(true);
+                    novoNo.setFilhoEsquerda(novoNo.getPai().getFilhoEsquerda());
 
-                //Agora nó da esquerda do pai não é mais uma costura, ele aponta para o novo nó.
-                no.setFilhoEsquerda(novoNo);
-                no.setCosturaEsquerda(false);
+                    //Agora nó da esquerda do pai não é mais uma costura, ele aponta para o novo nó.
+                    no.setFilhoEsquerda(novoNo);
+                    no.setCosturaEsquerda(false);
 
-                this.tamanho++;
-                return true;
-            }
-            return inserir(no.getFilhoEsquerda(), valor);
-        }
-        if (no.isCosturaDireita()) {
-            No novoNo = new No(valor);
-            novoNo.setPai(no);
-            //Atualiza o sucessor e antecessor do novo nó. Um nó recém inserido sempre será um nó folha.
-            //Como aqui ele é filho da direita, seu antecessor será o seu pai.
-            novoNo.setCosturaEsquerda(true);
-            novoNo.setFilhoEsquerda(novoNo.getPai());
-            //O seu sucessor será o sucessor do seu pai.
-            novoNo.setCosturaDireita(true);
-            novoNo.setFilhoDireita(novoNo.getPai().getFilhoDireita());
+                    atualizarCaminho(no);
+                    this.tamanho++;
+                    return novoNo;
+                }
+                no = no.getFilhoEsquerda();
+            } else if (valor > no.getValor()) {
+                if (no.isCosturaDireita()) {
+                    No novoNo = new No(valor);
+                    novoNo.setPai(no);
+                    //Atualiza o sucessor e antecessor do novo nó. Um nó recém inserido sempre será um nó folha.
+                    //Como aqui ele é filho da direita, seu antecessor será o seu pai.
+                    novoNo.setCosturaEsquerda(true);
+                    novoNo.setFilhoEsquerda(novoNo.getPai());
+                    //O seu sucessor será o sucessor do seu pai.
+                    novoNo.setCosturaDireita(true);
+                    novoNo.setFilhoDireita(novoNo.getPai().getFilhoDireita());
 
-            //Agora nó da direita do pai não é mais uma costura, ele aponta para o novo nó.
-            no.setFilhoDireita(novoNo);
-            no.setCosturaDireita(false);
+                    //Agora nó da direita do pai não é mais uma costura, ele aponta para o novo nó.
+                    no.setFilhoDireita(novoNo);
+                    no.setCosturaDireita(false);
 
-            this.tamanho++;
-            return true;
+                    atualizarCaminho(no);
+                    this.tamanho++;
+                    return novoNo;
+                }
+                no = no.getFilhoDireita();
+            } else {
+                return null;
+            }
         }
-        return inserir(no.getFilhoDireita(), valor);
     }
     /**
      * Dado um valor, remove o nó que contem esse valor da arvore binaria de busca.
@@ -187,105 +603,558 @@ public class ArvoreBinariadeBusca {
      * @param valor O valor a ser removido.
      * @return true se o elemento foi removido com sucesso, false caso contrário.
      */
-    public Boolean remover(Integer valor) {
-        No no = buscar(valor);
-        if (no == null) {
-            return false;
+    public boolean remover(int valor) {
+        Metricas metricas = this.metricas;
+        if (metricas == null) {
+            return removerValor(valor, null);
         }
-        if (no.isFolha()) {
-            if (no.getPai() == null) { //Apenas o nó raiz tem pai nulo
-                this.raiz = null;
-            } else if (no.getPai().getFilhoEsquerda() == no) { //É filho da esquerda do pai
-                no.getPai().setCosturaEsquerda(true);
-                //O antecessor do pai passa a ser o antecessor do nó a ser removido
-                no.getPai().setFilhoEsquerda(no.getFilhoEsquerda());
-
-            } else {
-                no.getPai().setCosturaDireita(true);
-                //O sucessor do pai passa a ser o sucessor do nó a ser removido
-                no.getPai().setFilhoDireita(no.getFilhoDireita());
+        int[] nos = new int[1];
+        long inicio = System.nanoTime();
+        boolean removido = removerValor(valor, nos);
+        metricas.registrar(Metricas.Operacao.REMOVER, valor, inicio, nos[0]);
+        return removido;
+    }
+    /**
+     * @param nos se não for null, recebe em nos[0] a quantidade de nós visitados na busca do valor.
+     */
+    private boolean removerValor(int valor, int[] nos) {
+        if (this.balanceamento == Balanceamento.AFUNILAMENTO) {
+            //O nó sobe até a raiz antes de sair; depois, o nó mais fundo alterado pela remoção também sobe, o que
+            //paga a descida até o sucessor de um nó com dois filhos.
+            No no = buscarValor(valor, nos);
+            if (no == null) {
+                return false;
             }
-            this.tamanho--;
-            return true;
-        } else if(no.isCosturaEsquerda()) { //Tem apenas o filho da direita
-            if (no.getFilhoDireita().isCosturaEsquerda()) {
-                //Se o filho tem nó de costura na esquerda este aponta para o antecessor, nesse caso o pai.
-                //Como o pai será removido, então o antecessor do filho passa a ser o antecessor do pai.
-                //E ele tem nó de costura na esquerda.
-                no.getFilhoDireita().setFilhoEsquerda(antecessor(no));
-            }
-            if (no.getPai() == null) {
-                this.raiz = no.getFilhoDireita();
-                this.raiz.setPai(null);
-            } else if (no.getPai().getFilhoEsquerda() == no) { //Se o nó é  filho da esquerda do pai
-                no.getPai().setFilhoEsquerda(no.getFilhoDireita());
-                no.getFilhoDireita().setPai(no.getPai());
-            } else {
-                no.getPai().setFilhoDireita(no.getFilhoDireita());
-                no.getFilhoDireita().setPai(no.getPai());
+            No alterado = remover(no);
+            if (alterado != null) {
+                afunilar(alterado);
             }
-            this.tamanho--;
             return true;
-        } else if(no.isCosturaDireita()) { //Tem apenas o filho da esquerda
-            if (no.getFilhoEsquerda().isCosturaDireita()) {
-                //No caso do filho do no a ser removido ser na esquerda, o sucessor do filho era o pai.
-                //Como o pai será removido, então o sucessor do filho passa a ser o sucessor do pai.
-                //E ele tem nó de costura na direita.
-                no.getFilhoDireita().setFilhoEsquerda(antecessor(no));
-            }
-            if (no.getPai() == null) {
-                this.raiz = no.getFilhoEsquerda();
-                this.raiz.setPai(null);
-            } else if (no.getPai().getFilhoEsquerda() == no) {
-                no.getPai().setFilhoEsquerda(no.getFilhoEsquerda());
-                no.getFilhoEsquerda().setPai(no.getPai());
-            } else {
-                no.getPai().setFilhoDireita(no.getFilhoEsquerda());
-                no.getFilhoEsquerda().setPai(no.getPai());
+        }
+        No no = buscar(this.raiz, valor, nos);
+        if (no == null) {
+            return false;
+        }
+        remover(no);
+        return true;
+    }
+    /**
+     * Remove o nó da árvore.
+     * @return o pai do nó que de fato saiu da árvore (o próprio nó, ou o seu sucessor se ele tinha dois filhos),
+     *         ou null se ele era a raiz.
+     */
+    private No remover(No no) {
+        int valor = no.getValor();
+        if (!no.isCosturaEsquerda() && !no.isCosturaDireita()) { //Tem filhos a esquerda e a direita
+            if (this.metricas != null) {
+                this.metricas.registrarRemocaoComDoisFilhos();
             }
-            this.tamanho--;
-            return true;
-        } else { //Tem filhos a esquerda e a direita
             //O nó a ser removido é substituido pelo seu sucessor.
             //Como, ou o sucessor é folha ou tem apenas um filho, o processo de remoção é o mesmo.
             No sucessor = sucessor(no);
             no.setValor(sucessor.getValor());
-            if (sucessor.isFolha()) {
-                if (sucessor.getPai() == null) { //Apenas o nó raiz tem pai nulo
-                    this.raiz = null;
-                } else if (sucessor.getPai().getFilhoEsquerda() == sucessor) { //É filho da esquerda do pai
-                    sucessor.getPai().setCosturaEsquerda(true);
-                    //O antecessor do pai passa a ser o antecessor do nó a ser removido
-                    sucessor.getPai().setFilhoEsquerda(sucessor.getFilhoEsquerda());
-
-                } else {
-                    sucessor.getPai().setCosturaDireita(true);
-                    //O sucessor do pai passa a ser o sucessor do nó a ser removido
-                    sucessor.getPai().setFilhoDireita(sucessor.getFilhoDireita());
+            no = sucessor;
+        }
+        No pai = no.getPai();
+        desligar(no);
+        this.tamanho--;
+        this.modificacoes++;
+        if (this.versionada) {
+            this.versao = Instantaneo.remover(this.versao, valor);
+        }
+        return pai;
+    }
+    /**
+     * Insere um lote de valores. O lote é ordenado e cada descida começa do ponto onde o valor anterior foi
+     * inserido (busca com dedo): sobe-se pelos pais só até a sub-árvore que pode conter o próximo valor e desce-se
+     * dali, então valores próximos custam poucas comparações em vez de uma descida inteira desde a raiz.
+     * Sem balanceamento, os tamanhos, alturas e somas também só são recalculados no fim, uma vez por nó afetado;
+     * assim, em uma árvore balanceada, um lote de k valores custa perto de O(k log(n/k)). No modo
+     * {@link Balanceamento#AVL} o caminho de cada inserção ainda é rebalanceado na hora, porque as rotações
+     * dependem das alturas corretas.
+     * @param valores os valores a serem inseridos, em qualquer ordem; o vetor não é alterado.
+     * @return os índices de valores que foram de fato inseridos (os que já estavam na árvore, ou repetidos no
+     *         lote depois da primeira ocorrência, ficam desligados).
+     */
+    public BitSet inserirTodos(int[] valores) {
+        long[] ordem = ordenarLote(valores);
+        BitSet inseridos = new BitSet(valores.length);
+        iniciarLote();
+        try {
+            No dedo = null;
+            for (long chave : ordem) {
+                int valor = (int) (chave >> 32);
+                if (this.raiz == null) {
+                    inserirValor(valor, null);
+                    dedo = this.raiz;
+                    inseridos.set((int) chave);
+                    continue;
                 }
-                this.tamanho--;
-                return true;
-            } else {
-                if (sucessor.getFilhoDireita().isCosturaEsquerda()) {
-                    //Se o filho tem nó de costura na esquerda este aponta para o antecessor, nesse caso o pai.
-                    //Como o pai será removido, então o antecessor do filho passa a ser o antecessor do pai.
-                    //E ele tem nó de costura na esquerda.
-                    sucessor.getFilhoDireita().setFilhoEsquerda(antecessor(sucessor));
+                No novo = inserir(dedo == null ? this.raiz : subir(dedo, valor), valor);
+                if (novo != null) {
+                    dedo = novo;
+                    inseridos.set((int) chave);
+                    this.modificacoes++;
+                    if (this.versionada) {
+                        this.versao = Instantaneo.inserir(this.versao, valor);
+                    }
+                }
+            }
+        } finally {
+            terminarLote();
+        }
+        return inseridos;
+    }
+    /**
+     * Remove um lote de valores, com a mesma busca com dedo de {@link #inserirTodos(int[])}: o dedo é o
+     * antecessor do último valor removido, que continua na árvore depois da remoção.
+     * @param valores os valores a serem removidos, em qualquer ordem; o vetor não é alterado.
+     * @return os índices de valores que foram de fato removidos.
+     */
+    public BitSet removerTodos(int[] valores) {
+        long[] ordem = ordenarLote(valores);
+        BitSet removidos = new BitSet(valores.length);
+        iniciarLote();
+        try {
+            No dedo = null;
+            for (long chave : ordem) {
+                int valor = (int) (chave >> 32);
+                No no = buscar(dedo == null ? this.raiz : subir(dedo, valor), valor);
+                if (no != null) {
+                    dedo = antecessor(no);
+                    remover(no);
+                    removidos.set((int) chave);
                 }
-                if (sucessor.getPai() == null) {
-                    this.raiz = sucessor.getFilhoDireita();
-                    this.raiz.setPai(null);
-                } else if (sucessor.getPai().getFilhoEsquerda() == sucessor) { //Se o nó é  filho da esquerda do pai
-                    sucessor.getPai().setFilhoEsquerda(sucessor.getFilhoDireita());
-                    sucessor.getFilhoDireita().setPai(sucessor.getPai());
+            }
+        } finally {
+            terminarLote();
+        }
+        return removidos;
+    }
+    /**
+     * Ordena o lote guardando, junto com cada valor, o seu índice original: o valor nos 32 bits altos e o índice
+     * nos baixos, para ordenar primitivos sem encaixotar.
+     */
+    private static long[] ordenarLote(int[] valores) {
+        long[] ordem = new long[valores.length];
+        for (int i = 0; i < valores.length; i++) {
+            ordem[i] = (long) valores[i] << 32 | i;
+        }
+        Arrays.sort(ordem);
+        return ordem;
+    }
+    /**
+     * Sobe a partir do dedo, que tem valor menor que o valor procurado, até a sub-árvore que contém o valor:
+     * enquanto o nó for filho da direita, ou filho da esquerda de um pai menor que o valor, o valor pode estar
+     * além da sub-árvore dele. Se o valor for o do pai, retorna o pai.
+     */
+    private static No subir(No dedo, int valor) {
+        No no = dedo;
+        for (No pai = no.getPai(); pai != null; no = pai, pai = pai.getPai()) {
+            if (!pai.isCosturaEsquerda() && pai.getFilhoEsquerda() == no && valor <= pai.getValor()) {
+                return valor == pai.getValor() ? pai : no;
+            }
+        }
+        return no;
+    }
+    private void iniciarLote() {
+        if (this.balanceamento == Balanceamento.NENHUM) {
+            this.pendentes = Collections.newSetFromMap(new IdentityHashMap<>());
+        }
+    }
+    /**
+     * Marca o nó e os seus ancestrais como pendentes, parando no primeiro que já estava marcado (os ancestrais
+     * dele também estão).
+     */
+    private void adiarCaminho(No no) {
+        while (no != null && this.pendentes.add(no)) {
+            no = no.getPai();
+        }
+    }
+    /**
+     * Recalcula os nós pendentes com os filhos antes dos pais: percorre em pré-ordem só os nós pendentes (que
+     * formam uma sub-árvore a partir da raiz, já que todo ancestral de um pendente é pendente) e recalcula na
+     * ordem inversa.
+     */
+    private void terminarLote() {
+        Set<No> marcados = this.pendentes;
+        this.pendentes = null;
+        if (marcados == null || this.raiz == null || !marcados.contains(this.raiz)) {
+            return;
+        }
+        No[] preOrdem = new No[marcados.size()];
+        No[] pilha = new No[marcados.size()];
+        int topo = 0;
+        int n = 0;
+        pilha[topo++] = this.raiz;
+        while (topo > 0) {
+            No no = pilha[--topo];
+            preOrdem[n++] = no;
+            if (!no.isCosturaDireita() && marcados.contains(no.getFilhoDireita())) {
+                pilha[topo++] = no.getFilhoDireita();
+            }
+            if (!no.isCosturaEsquerda() && marcados.contains(no.getFilhoEsquerda())) {
+                pilha[topo++] = no.getFilhoEsquerda();
+            }
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            recalcular(preOrdem[i]);
+        }
+    }
+    /**
+     * Retira da árvore um nó que tem no máximo um filho, refazendo as costuras que apontavam para ele
+     * e atualizando as sub-árvores no caminho até a raiz.
+     * @param no o nó a ser retirado.
+     */
+    private void desligar(No no) {
+        No pai = no.getPai();
+        if (no.isFolha()) {
+            if (pai == null) { //Apenas o nó raiz tem pai nulo
+                this.raiz = null;
+            } else if (!pai.isCosturaEsquerda() && pai.getFilhoEsquerda() == no) { //É filho da esquerda do pai
+                pai.setCosturaEsquerda(true);
+                //O antecessor do pai passa a ser o antecessor do nó a ser removido
+                pai.setFilhoEsquerda(no.getFilhoEsquerda());
+            } else {
+                pai.setCosturaDireita(true);
+                //O sucessor do pai passa a ser o sucessor do nó a ser removido
+                pai.setFilhoDireita(no.getFilhoDireita());
+            }
+            atualizarCaminho(pai);
+            return;
+        }
+        No filho;
+        if (no.isCosturaEsquerda()) { //Tem apenas o filho da direita
+            filho = no.getFilhoDireita();
+            //O menor nó da sub-árvore da direita tinha como antecessor o nó removido,
+            //agora o seu antecessor passa a ser o antecessor do nó removido.
+            min(filho).setFilhoEsquerda(no.getFilhoEsquerda());
+        } else { //Tem apenas o filho da esquerda
+            filho = no.getFilhoEsquerda();
+            //O maior nó da sub-árvore da esquerda tinha como sucessor o nó removido,
+            //agora o seu sucessor passa a ser o sucessor do nó removido.
+            max(filho).setFilhoDireita(no.getFilhoDireita());
+        }
+        substituirFilho(no, filho);
+        atualizarCaminho(pai);
+    }
+    /**
+     * Recalcula o tamanho, a altura e a soma das sub-árvores a partir do nó dado até a raiz.
+     * No modo {@link Balanceamento#AVL}, cada nó desbalanceado do caminho é corrigido com rotações.
+     * Deve ser chamado sempre que um filho (que não seja costura) do nó mudar.
+     * @param no o nó mais profundo cuja sub-árvore foi alterada.
+     */
+    private void atualizarCaminho(No no) {
+        if (this.pendentes != null) {
+            adiarCaminho(no);
+            return;
+        }
+        while (no != null) {
+            recalcular(no);
+            if (this.balanceamento == Balanceamento.AVL) {
+                no = balancear(no);
+            }
+            no = no.getPai();
+        }
+    }
+    /**
+     * Sobe o nó até a raiz com rotações em pares (zig-zig e zig-zag), como na árvore splay de Sleator e Tarjan:
+     * quando o nó e o pai são filhos do mesmo lado, o avô rotaciona antes do pai, o que reduz pela metade,
+     * aproximadamente, a profundidade dos nós do caminho. As rotações preservam as costuras, e cada uma só altera
+     * as sub-árvores dos dois nós envolvidos, então os ancestrais continuam com o tamanho, a altura e a soma certos.
+     * @param no o nó que passa a ser a raiz.
+     */
+    private void afunilar(No no) {
+        No pai;
+        while ((pai = no.getPai()) != null) {
+            No avo = pai.getPai();
+            boolean esquerda = ehFilhoEsquerda(no);
+            if (avo != null) {
+                if (esquerda == ehFilhoEsquerda(pai)) {
+                    rotacionarParaCima(avo, esquerda);
                 } else {
-                    sucessor.getPai().setFilhoDireita(sucessor.getFilhoDireita());
-                    sucessor.getFilhoDireita().setPai(sucessor.getPai());
+                    rotacionarParaCima(pai, esquerda);
+                    esquerda = !esquerda;
+                    pai = avo;
+                }
+            }
+            rotacionarParaCima(pai, esquerda);
+        }
+    }
+    /**
+     * Rotaciona x para que o seu filho do lado dado suba.
+     */
+    private void rotacionarParaCima(No x, boolean filhoEsquerda) {
+        if (filhoEsquerda) {
+            rotacionarDireita(x);
+        } else {
+            rotacionarEsquerda(x);
+        }
+    }
+    private static boolean ehFilhoEsquerda(No no) {
+        No pai = no.getPai();
+        return !pai.isCosturaEsquerda() && pai.getFilhoEsquerda() == no;
+    }
+    /**
+     * Recalcula o tamanho, a altura e a soma da sub-árvore do nó a partir dos filhos.
+     */
+    static void recalcular(No no) {
+        no.setTamanho(1 + tamanhoEsquerda(no) + tamanhoDireita(no));
+        no.setAltura(1 + Math.max(alturaEsquerda(no), alturaDireita(no)));
+        no.setSoma(no.getValor() + somaEsquerda(no) + somaDireita(no));
+    }
+    /**
+     * Corrige o fator de balanceamento do nó com uma rotação simples ou dupla.
+     * @param no o nó a ser balanceado, com as sub-árvores dos filhos já balanceadas.
+     * @return o nó que passou a ser a raiz da sub-árvore.
+     */
+    private No balancear(No no) {
+        int fator = alturaEsquerda(no) - alturaDireita(no);
+        if (fator > 1) {
+            No esquerda = no.getFilhoEsquerda();
+            if (alturaEsquerda(esquerda) < alturaDireita(esquerda)) {
+                rotacionarEsquerda(esquerda);
+            }
+            return rotacionarDireita(no);
+        }
+        if (fator < -1) {
+            No direita = no.getFilhoDireita();
+            if (alturaDireita(direita) < alturaEsquerda(direita)) {
+                rotacionarDireita(direita);
+            }
+            return rotacionarEsquerda(no);
+        }
+        return no;
+    }
+    /**
+     * Rotaciona para a esquerda: o filho da direita de x sobe e x passa a ser o seu filho da esquerda.
+     * A ordem simétrica não muda, então apenas as costuras entre x e o filho precisam ser refeitas:
+     * se o filho não tinha sub-árvore esquerda, x passa a ter costura direita apontando para ele.
+     * @param x o nó que desce.
+     * @return o nó que subiu.
+     */
+    private No rotacionarEsquerda(No x) {
+        No y = x.getFilhoDireita();
+        if (y.isCosturaEsquerda()) {
+            x.setCosturaDireita(true);
+            x.setFilhoDireita(y);
+        } else {
+            x.setFilhoDireita(y.getFilhoEsquerda());
+            y.getFilhoEsquerda().setPai(x);
+        }
+        y.setCosturaEsquerda(false);
+        y.setFilhoEsquerda(x);
+        substituirFilho(x, y);
+        x.setPai(y);
+        recalcular(x);
+        recalcular(y);
+        return y;
+    }
+    /**
+     * Rotaciona para a direita: o filho da esquerda de x sobe e x passa a ser o seu filho da direita.
+     * Simétrico a {@link #rotacionarEsquerda(No)}.
+     * @param x o nó que desce.
+     * @return o nó que subiu.
+     */
+    private No rotacionarDireita(No x) {
+        No y = x.getFilhoEsquerda();
+        if (y.isCosturaDireita()) {
+            x.setCosturaEsquerda(true);
+            x.setFilhoEsquerda(y);
+        } else {
+            x.setFilhoEsquerda(y.getFilhoDireita());
+            y.getFilhoDireita().setPai(x);
+        }
+        y.setCosturaDireita(false);
+        y.setFilhoDireita(x);
+        substituirFilho(x, y);
+        x.setPai(y);
+        recalcular(x);
+        recalcular(y);
+        return y;
+    }
+    /**
+     * Coloca o nó novo no lugar do antigo, como filho do pai do antigo (ou como raiz).
+     */
+    private void substituirFilho(No antigo, No novo) {
+        No pai = antigo.getPai();
+        novo.setPai(pai);
+        if (pai == null) {
+            this.raiz = novo;
+        } else if (!pai.isCosturaEsquerda() && pai.getFilhoEsquerda() == antigo) {
+            pai.setFilhoEsquerda(novo);
+        } else {
+            pai.setFilhoDireita(novo);
+        }
+    }
+    private static int tamanhoEsquerda(No no) {
+        return no.isCosturaEsquerda() ? 0 : no.getFilhoEsquerda().getTamanho();
+    }
+    private static int tamanhoDireita(No no) {
+        return no.isCosturaDireita() ? 0 : no.getFilhoDireita().getTamanho();
+    }
+    private static int alturaEsquerda(No no) {
+        return no.isCosturaEsquerda() ? 0 : no.getFilhoEsquerda().getAltura();
+    }
+    private static int alturaDireita(No no) {
+        return no.isCosturaDireita() ? 0 : no.getFilhoDireita().getAltura();
+    }
+    private static long somaEsquerda(No no) {
+        return no.isCosturaEsquerda() ? 0 : no.getFilhoEsquerda().getSoma();
+    }
+    private static long somaDireita(No no) {
+        return no.isCosturaDireita() ? 0 : no.getFilhoDireita().getSoma();
+    }
+    /**
+     * Retorna uma visão somente leitura dos valores atuais da árvore, que não muda com as inserções e
+     * remoções seguintes. O primeiro snapshot monta uma cópia persistente dos valores em O(n); a partir dele,
+     * cada inserção e remoção também atualiza essa cópia em O(log n), e cada snapshot custa O(1).
+     *  A cópia continua sendo atualizada, com a alocação de O(log n) nós novos por escrita, mesmo que nenhum
+     * snapshot esteja mais em uso. Quando os snapshots não forem mais necessários, {@link #descartarVersoes()}
+     * encerra esse custo.
+     * Veja {@link Instantaneo}.
+     * @return o snapshot dos valores atuais.
+     */
+    public Instantaneo snapshot() {
+        if (!this.versionada) {
+            int[] ordenados = paraVetor();
+            this.versao = Instantaneo.construir(ordenados, 0, ordenados.length - 1);
+            this.versionada = true;
+        }
+        return new Instantaneo(this.versao);
+    }
+    /**
+     * Para de manter a cópia persistente usada por {@link #snapshot()}, para que as inserções e remoções
+     * voltem a não alocar nada além do próprio nó. Os snapshots já obtidos continuam válidos; o próximo
+     * snapshot volta a montar a cópia em O(n).
+     */
+    public void descartarVersoes() {
+        this.versionada = false;
+        this.versao = null;
+    }
+    /**
+     * Indica se a cópia persistente usada por {@link #snapshot()} está sendo mantida.
+     */
+    boolean isVersionada() {
+        return this.versionada;
+    }
+    /**
+     * Passa a manter a cópia persistente dada, montada fora desta árvore com os valores atuais, como em
+     * {@link #snapshot()}.
+     */
+    void instalarVersao(Instantaneo.NoPersistente versao) {
+        this.versao = versao;
+        this.versionada = true;
+    }
+    /**
+     * Retorna os valores da árvore em ordem crescente como um {@link IntStream}, que pode ser paralelo: a divisão
+     * é feita pela posição na ordem simétrica, achando o nó do meio de cada fatia em O(log n), e cada fatia segue
+     * as costuras a partir do seu primeiro nó. Fatias com menos de {@link #LIMITE_SEQUENCIAL} valores não são
+     * divididas. Assim {@code valores().parallel()} faz reduções como max, count, toArray ou somas de funções dos
+     * valores no {@link ForkJoinPool}. (A soma, o tamanho e a altura já são mantidos nos nós e não precisam de
+     * percurso.)
+     *  A árvore não pode ser alterada durante o percurso; se for, o stream falha com
+     * {@link ConcurrentModificationException}.
+     * @return os valores em ordem crescente.
+     */
+    public IntStream valores() {
+        return StreamSupport.intStream(new Fatia(1, this.tamanho + 1), false);
+    }
+    /**
+     * Valores das posições [inicio, fim) da ordem simétrica.
+     */
+    private final class Fatia implements Spliterator.OfInt {
+        private int inicio;
+        private final int fim;
+        private No proximo;
+        private final int modificacoesEsperadas = ArvoreBinariadeBusca.this.modificacoes;
+
+        Fatia(int inicio, int fim) {
+            this.inicio = inicio;
+            this.fim = fim;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer acao) {
+            if (this.inicio >= this.fim) {
+                return false;
+            }
+            if (this.proximo == null) {
+                this.proximo = enesimoNo(this.inicio);
+            }
+            verificarModificacoes();
+            acao.accept(this.proximo.getValor());
+            this.proximo = sucessor(this.proximo);
+            this.inicio++;
+            return true;
+        }
+        @Override
+        public void forEachRemaining(IntConsumer acao) {
+            if (this.inicio >= this.fim) {
+                return;
+            }
+            No no = this.proximo == null ? enesimoNo(this.inicio) : this.proximo;
+            for (int i = this.inicio; i < this.fim; i++) {
+                verificarModificacoes();
+                if (no == null) {
+                    throw new ConcurrentModificationException();
                 }
-                this.tamanho--;
-                return true;
+                acao.accept(no.getValor());
+                //A ação pode ter alterado a árvore; as costuras do nó só valem se não houve modificação.
+                verificarModificacoes();
+                no = sucessor(no);
             }
+            this.inicio = this.fim;
         }
+        @Override
+        public Spliterator.OfInt trySplit() {
+            if (this.fim - this.inicio < LIMITE_SEQUENCIAL) {
+                return null;
+            }
+            int meio = (this.inicio + this.fim) >>> 1;
+            Fatia prefixo = new Fatia(this.inicio, meio);
+            prefixo.proximo = this.proximo;
+            this.inicio = meio;
+            this.proximo = null;
+            return prefixo;
+        }
+        @Override
+        public long estimateSize() {
+            return this.fim - this.inicio;
+        }
+        @Override
+        public int characteristics() {
+            return ORDERED | DISTINCT | SORTED | SIZED | SUBSIZED | NONNULL;
+        }
+        @Override
+        public Comparator<? super Integer> getComparator() {
+            return null;
+        }
+        private void verificarModificacoes() {
+            if (ArvoreBinariadeBusca.this.modificacoes != this.modificacoesEsperadas) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+    /**
+     * Copia os valores atuais para uma {@link ArvoreCongelada}, imutável e organizada para consultas: contains,
+     * posicao, enesimoElemento e mediana sem percorrer nós. A cópia custa O(n) e não acompanha as inserções e
+     * remoções seguintes.
+     * @return a árvore congelada com os valores atuais.
+     */
+    public ArvoreCongelada congelar() {
+        return new ArvoreCongelada(paraVetor());
+    }
+    /**
+     * Retorna os valores da árvore em ordem crescente, seguindo as costuras.
+     */
+    int[] paraVetor() {
+        int[] valores = new int[this.tamanho];
+        int i = 0;
+        for (No no = min(); no != null; no = sucessor(no)) {
+            valores[i++] = no.getValor();
+        }
+        return valores;
     }
     /**
      * Pesquisa o sucessor do nó atual, em ordem simétrica da árvore binária de busca com costura.
@@ -343,46 +1212,77 @@ public class ArvoreBinariadeBusca {
      * @param s Formato de impressão da árvore. 1 para diagrama de barras e 2 para aninhamento.
      */
     public void imprimir(int s) {
+        imprimir(s, System.out);
+    }
+    /**
+     * Imprime a árvore como em {@link #imprimir(int)}, mas na saída dada.
+     * @param s Formato de impressão da árvore. 1 para diagrama de barras e 2 para aninhamento.
+     * @param saida onde a árvore será impressa.
+     */
+    public void imprimir(int s, PrintStream saida) {
         if (s == 1) {
-            imprimirDiagramaBarras(this.raiz, 0);
+            imprimirDiagramaBarras(saida);
         } else if (s == 2) {
-            imprimirAninhamento(this.raiz);
+            imprimirAninhamento(saida);
         }
     }
-    private void imprimirDiagramaBarras(No no, int n) {
-        //Percorrer a árvore em pré-ordem e imprimir os nós.
-        if (no != null) {
-            for (int i = 0; i < n; i++) {
-                System.out.print("    ");
+    private void imprimirDiagramaBarras(PrintStream saida) {
+        //Percorrer a árvore em pré-ordem e imprimir os nós, recuados pela profundidade.
+        Percurso.visitar(this.raiz, new Percurso.Visitante() {
+            @Override
+            public void entrar(No no, int profundidade) {
+                for (int i = 0; i < profundidade; i++) {
+                    saida.print("    ");
+                }
+                saida.print(no.getValor());
+                saida.println("------------------");
             }
-            System.out.println(no.getValor() + "------------------");
-            imprimirDiagramaBarras(no.isCosturaEsquerda()? null : no.getFilhoEsquerda(), n + 1);
-            imprimirDiagramaBarras(no.isCosturaDireita()? null : no.getFilhoDireita(), n + 1);
-        }
+        });
     }
-    private void imprimirAninhamento(No no) {
-        if (no != null) {
-            System.out.print("(" + no.getValor());
-            if (!no.isFolha()) System.out.print(" ");
-            imprimirAninhamento(no.isCosturaEsquerda()? null : no.getFilhoEsquerda());
-            imprimirAninhamento(no.isCosturaDireita()? null : no.getFilhoDireita());
-            System.out.print(")");
-        }
+    private void imprimirAninhamento(PrintStream saida) {
+        //Abre o parêntese ao entrar no nó e fecha ao sair, depois das duas sub-árvores.
+        Percurso.visitar(this.raiz, new Percurso.Visitante() {
+            @Override
+            public void entrar(No no, int profundidade) {
+                saida.print('(');
+                saida.print(no.getValor());
+                if (!no.isFolha()) {
+                    saida.print(' ');
+                }
+            }
+
+            @Override
+            public void sair(No no) {
+                saida.print(')');
+            }
+        });
     }
     /**
-     * Retorna uma string contendo os valores da árvore em pré-ordem.
+     * Retorna uma string contendo os valores da árvore em pré-ordem, cada um seguido de um espaço.
      * @return uma string contendo os valores da árvore em pré-ordem.
      */
     public String preOrdem() {
-        return preOrdem(this.raiz);
+        StringBuilder s = new StringBuilder();
+        Percurso.PRE_ORDEM.percorrer(this.raiz, v -> s.append(v).append(' '));
+        return s.toString();
     }
-    private String preOrdem(No no) {
-        if (no == null) {
-            return "";
-        }
-        return  no.getValor() +
-                " " + preOrdem(no.isCosturaEsquerda()? null : no.getFilhoEsquerda()) +
-                preOrdem(no.isCosturaDireita()? null : no.getFilhoDireita());
+    /**
+     * Entrega os valores da árvore ao consumidor na ordem do percurso escolhido, em tempo linear e sem recursão.
+     * @param percurso a ordem em que os nós são visitados.
+     * @param consumidor quem recebe os valores.
+     */
+    public void percorrer(Percurso percurso, IntConsumer consumidor) {
+        percurso.percorrer(this.raiz, consumidor);
+    }
+    /**
+     * Escreve os valores da árvore na saída, na ordem do percurso escolhido e separados por um espaço,
+     * sem montar uma string com a árvore inteira.
+     * @param percurso a ordem em que os nós são visitados.
+     * @param saida onde os valores serão escritos.
+     * @throws IOException se a saída falhar.
+     */
+    public void escrever(Percurso percurso, Appendable saida) throws IOException {
+        percurso.escrever(this.raiz, saida);
     }
     /**
      * Retorna o Nó de menor valor da árvore.
@@ -421,60 +1321,102 @@ public class ArvoreBinariadeBusca {
      * @return uma string contendo os valores da árvore em ordem simétrica.
      */
     public String emOrdem() {
-        return emOrdem(this.raiz);
-    }
-    private String emOrdem(No no) {
-        No min = this.min();
-        No max = this.max();
-        String s = "";
-        while (!min.equals(max)) {
-            s += min.getValor() + " ";
-            min = sucessor(min);
-        }
-        s += max.getValor();
-        return s;
+        StringBuilder s = new StringBuilder();
+        Percurso.EM_ORDEM.percorrer(this.raiz, v -> s.append(s.length() == 0 ? "" : " ").append(v));
+        return s.toString();
     }
     /**
      * Dado um valor x, retorna a posição em que ele se encontra na árvore.
      * A posição refere-se a ordem simétrica da árvore.
      * Se o valor não estiver na árvore, retorna -1.
-     * O algoritmo é baseado no percurso em ordem simétrica, porém, ao invés de
-     * imprimir o valor, incrementa uma variável que representa a posição.
+     * O algoritmo desce a partir da raiz: cada vez que desce para a direita, todos os nós
+     * da sub-árvore da esquerda (mais o próprio nó) vêm antes de x, então somamos o seu tamanho.
      *
      * @param x o valor a ser pesquisado.
      * @return a posição em que o valor x se encontra na árvore.
      */
-    public Integer posicao(Integer x) {
-        No noX = this.buscar(x);
-        if (noX == null) {
-            return -1;
-        }
-        No min = this.min();
-        int pos = 1;
-        while (!min.equals(noX)) {
-            pos++;
-            min = sucessor(min);
+    public int posicao(int x) {
+        Metricas metricas = this.metricas;
+        if (metricas == null) {
+            return calcularPosicao(x, null);
         }
+        int[] nos = new int[1];
+        long inicio = System.nanoTime();
+        int pos = calcularPosicao(x, nos);
+        metricas.registrar(Metricas.Operacao.POSICAO, x, inicio, nos[0]);
         return pos;
     }
+    /**
+     * @param nos se não for null, recebe em nos[0] a quantidade de nós visitados na descida.
+     */
+    private int calcularPosicao(int x, int[] nos) {
+        int pos = 0;
+        No no = this.raiz;
+        while (no != null) {
+            if (nos != null) {
+                nos[0]++;
+            }
+            if (x < no.getValor()) {
+                no = no.isCosturaEsquerda() ? null : no.getFilhoEsquerda();
+            } else if (x > no.getValor()) {
+                pos += tamanhoEsquerda(no) + 1;
+                no = no.isCosturaDireita() ? null : no.getFilhoDireita();
+            } else {
+                return pos + tamanhoEsquerda(no) + 1;
+            }
+        }
+        return -1;
+    }
     /**
      * Dado um valor n, retorna o valor que está na posição n da árvore em ordem simétrica.
      * Se a posição estiver fora dos limites da árvore, retorna null.
+     * Usa o tamanho das sub-árvores para decidir, em cada nó, para que lado descer.
      * @param n a posição a ser pesquisada.
      * @return o valor que está na posição n da árvore em ordem simétrica.
      */
-    public Integer enesimoElemento(Integer n) {
+    public Integer enesimoElemento(int n) {
+        Metricas metricas = this.metricas;
+        if (metricas == null) {
+            return buscarEnesimo(n, null);
+        }
+        int[] nos = new int[1];
+        long inicio = System.nanoTime();
+        Integer valor = buscarEnesimo(n, nos);
+        metricas.registrar(Metricas.Operacao.ENESIMO_ELEMENTO, n, inicio, nos[0]);
+        return valor;
+    }
+    private Integer buscarEnesimo(int n, int[] nos) {
+        No no = enesimoNo(n, nos);
+        return no == null ? null : no.getValor();
+    }
+    /**
+     * Retorna o nó na posição n da ordem simétrica, ou null se a posição estiver fora dos limites.
+     */
+    private No enesimoNo(int n) {
+        return enesimoNo(n, null);
+    }
+    /**
+     * @param nos se não for null, recebe em nos[0] a quantidade de nós visitados na descida.
+     */
+    private No enesimoNo(int n, int[] nos) {
         if (n < 1 || n > this.getTamanho()) {
             return null;
         }
-        No min = this.min();
-        int pos = 1;
-        while (pos < n) {
-            pos++;
-            min = sucessor(min);
-        }
-        if (pos == n) {
-            return min.getValor();
+        int k = n;
+        No no = this.raiz;
+        while (no != null) {
+            if (nos != null) {
+                nos[0]++;
+            }
+            int pos = tamanhoEsquerda(no) + 1;
+            if (k < pos) {
+                no = no.getFilhoEsquerda();
+            } else if (k > pos) {
+                k -= pos;
+                no = no.getFilhoDireita();
+            } else {
+                return no;
+            }
         }
         return null;
     }
@@ -494,51 +1436,307 @@ public class ArvoreBinariadeBusca {
         return this.enesimoElemento(this.getTamanho() / 2 + 1);
     }
     /**
-     * Dado o nó da árvore, percorre a sub-árvore da qual esse nó é raiz e retorna a média dos valores dos nós.
-     * @return a média dos valores dos nós de uma sub-árvore.
+     * Retorna um iterador pelos valores de [inicio, fim] em ordem crescente.
+     * Uma única descida encontra o menor valor maior ou igual a inicio; a partir dele, o iterador segue as
+     * costuras com {@link #sucessor(No)}, sem recursão nem pilha. O iterador não pode ser usado depois de uma
+     * inserção ou remoção na árvore. Com as métricas habilitadas, o percurso é contado ao ser criado e cada valor
+     * entregue conta um passo de sucessor (veja {@link Metricas#getPassosSucessor()}).
+     * @param inicio o menor valor do intervalo.
+     * @param fim o maior valor do intervalo.
+     * @return o iterador pelos valores do intervalo.
+     */
+    public PrimitiveIterator.OfInt intervalo(int inicio, int fim) {
+        No primeiro = teto(inicio);
+        Metricas metricas = this.metricas;
+        if (metricas != null) {
+            metricas.registrarPercurso();
+        }
+        return new PrimitiveIterator.OfInt() {
+            private No proximo = primeiro;
+
+            @Override
+            public boolean hasNext() {
+                return this.proximo != null && this.proximo.getValor() <= fim;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int valor = this.proximo.getValor();
+                this.proximo = sucessor(this.proximo);
+                if (metricas != null) {
+                    metricas.registrarPassoSucessor();
+                }
+                return valor;
+            }
+        };
+    }
+    /**
+     * Retorna o nó com o menor valor maior ou igual ao dado, ou null se não houver.
+     */
+    No teto(int valor) {
+        No teto = null;
+        No no = this.raiz;
+        while (no != null) {
+            if (valor < no.getValor()) {
+                teto = no;
+                no = no.isCosturaEsquerda() ? null : no.getFilhoEsquerda();
+            } else if (valor > no.getValor()) {
+                no = no.isCosturaDireita() ? null : no.getFilhoDireita();
+            } else {
+                return no;
+            }
+        }
+        return teto;
+    }
+    /**
+     * Retorna o nó com o maior valor menor ou igual ao dado, ou null se não houver.
+     */
+    No piso(int valor) {
+        No piso = null;
+        No no = this.raiz;
+        while (no != null) {
+            if (valor < no.getValor()) {
+                no = no.isCosturaEsquerda() ? null : no.getFilhoEsquerda();
+            } else if (valor > no.getValor()) {
+                piso = no;
+                no = no.isCosturaDireita() ? null : no.getFilhoDireita();
+            } else {
+                return no;
+            }
+        }
+        return piso;
+    }
+    /**
+     * Conta os valores da árvore em [inicio, fim] em O(log n), pela diferença entre duas descidas que usam
+     * o tamanho das sub-árvores, sem percorrer o intervalo.
+     * @param inicio o menor valor do intervalo.
+     * @param fim o maior valor do intervalo.
+     * @return a quantidade de valores no intervalo.
+     */
+    public int contarNoIntervalo(int inicio, int fim) {
+        if (inicio > fim) {
+            return 0;
+        }
+        return contarMenores(fim + 1L) - contarMenores(inicio);
+    }
+    /**
+     * Soma os valores da árvore em [inicio, fim] em O(log n), usando a soma guardada em cada nó.
+     * @param inicio o menor valor do intervalo.
+     * @param fim o maior valor do intervalo.
+     * @return a soma dos valores no intervalo (0 se não houver nenhum).
+     */
+    public long somaNoIntervalo(int inicio, int fim) {
+        if (inicio > fim) {
+            return 0;
+        }
+        return somarMenores(fim + 1L) - somarMenores(inicio);
+    }
+    /**
+     * Calcula a média dos valores da árvore em [inicio, fim] em O(log n).
+     * @param inicio o menor valor do intervalo.
+     * @param fim o maior valor do intervalo.
+     * @return a média dos valores no intervalo, ou null se não houver nenhum.
+     */
+    public Double mediaNoIntervalo(int inicio, int fim) {
+        int quantidade = contarNoIntervalo(inicio, fim);
+        if (quantidade == 0) {
+            return null;
+        }
+        return (double) somaNoIntervalo(inicio, fim) / quantidade;
+    }
+    /**
+     * Quantidade de valores da árvore estritamente menores que o limite. O limite é long para que fim + 1
+     * não transborde quando fim for Integer.MAX_VALUE.
+     */
+    private int contarMenores(long limite) {
+        int quantidade = 0;
+        No no = this.raiz;
+        while (no != null) {
+            if (no.getValor() < limite) {
+                quantidade += tamanhoEsquerda(no) + 1;
+                no = no.isCosturaDireita() ? null : no.getFilhoDireita();
+            } else {
+                no = no.isCosturaEsquerda() ? null : no.getFilhoEsquerda();
+            }
+        }
+        return quantidade;
+    }
+    /**
+     * Soma dos valores da árvore estritamente menores que o limite.
      */
-    Double media(Integer valor) {
-        Integer cont = 0;
-        return media(buscar(valor), cont);
+    private long somarMenores(long limite) {
+        long soma = 0;
+        No no = this.raiz;
+        while (no != null) {
+            if (no.getValor() < limite) {
+                soma += somaEsquerda(no) + no.getValor();
+                no = no.isCosturaDireita() ? null : no.getFilhoDireita();
+            } else {
+                no = no.isCosturaEsquerda() ? null : no.getFilhoEsquerda();
+            }
+        }
+        return soma;
     }
-    private Double media(No no, Integer cont) {
-        No min = min(no);
-        No max = max(no);
-        Double soma = 0.0;
-        while (!min.equals(max)) {
-            soma += min.getValor();
-            min = sucessor(min);
-            cont++;
+    /**
+     * Dado o valor de um nó da árvore, retorna a média dos valores da sub-árvore da qual esse nó é raiz.
+     * A soma e a quantidade de nós de cada sub-árvore já são mantidas nos nós, então basta uma busca e uma divisão.
+     * @param valor o valor da raiz da sub-árvore.
+     * @return a média dos valores dos nós da sub-árvore, ou null se o valor não estiver na árvore.
+     */
+    Double media(int valor) {
+        No no = buscar(this.raiz, valor);
+        if (no == null) {
+            return null;
         }
-        soma += max.getValor();
-        cont++;
-        return soma / cont;
+        return (double) no.getSoma() / no.getTamanho();
+    }
+    /**
+     * Retorna a soma dos valores da sub-árvore cuja raiz contém o valor dado, em O(log n).
+     * @param valor o valor da raiz da sub-árvore.
+     * @return a soma dos valores da sub-árvore, ou 0 se o valor não estiver na árvore.
+     */
+    public long somaSubarvore(int valor) {
+        No no = buscar(this.raiz, valor);
+        return no == null ? 0 : no.getSoma();
+    }
+    /**
+     * Retorna a quantidade de nós da sub-árvore cuja raiz contém o valor dado, em O(log n).
+     * @param valor o valor da raiz da sub-árvore.
+     * @return a quantidade de nós da sub-árvore, ou 0 se o valor não estiver na árvore.
+     */
+    public int contagemSubarvore(int valor) {
+        No no = buscar(this.raiz, valor);
+        return no == null ? 0 : no.getTamanho();
     }
     /**
      * Verifica se a arvore é completa ou não.
-     * Como temos que a altura de uma árvore completa é log2(n), onde n é o número de nós, podemos verificar se a árvore é completa
-     * verificando se a altura da árvore é igual a log2(n).
+     * Uma árvore é completa se os nós com alguma sub-árvore vazia estão no último ou no penúltimo nível, ou seja,
+     * se ela tem a menor altura possível para o seu tamanho: floor(log2(n)) + 1, que é a quantidade de bits de n.
+     * Como a altura e o tamanho são mantidos a cada inserção e remoção, a verificação é O(1) e só usa inteiros.
      * @return true se a árvore for completa, false caso contrário.
      */
-    public Boolean ehCompleta () {
-        if (this.raiz == null) {
-            return true;
-        }
-        return this.getAltura() == 1 + Math.ceil(Math.log(this.getTamanho()));
+    public boolean ehCompleta() {
+        return this.getAltura() == 32 - Integer.numberOfLeadingZeros(this.getTamanho());
     }
     /**
      * Verifica se a árvore é cheia ou não.
      * Uma árvore é cheia se todos os nós internos possuem dois filhos e todos os nós folhas estão no mesmo nível.
      * Como sabemos a altura h da árvore, podemos verificar se a árvore é cheia verificando se o número de nós da
-     * arvore é a soma da P.G. finita 2^0 + 2^1 + 2^2 + ... + 2^h.
+     * arvore é a soma da P.G. finita 2^0 + 2^1 + 2^2 + ... + 2^(h-1) = 2^h - 1, calculada com um deslocamento de bits.
+     * Com no máximo 2^31 - 1 nós, uma árvore cheia tem altura até 31; o limite também evita que o deslocamento
+     * (que só usa os 6 bits menos significativos da altura) dê falsos positivos em árvores degeneradas.
      * @return true se a árvore for cheia, false caso contrário.
      */
-    public Boolean ehCheia () {
-        if (this.raiz == null) {
-            return true;
+    public boolean ehCheia() {
+        return this.getAltura() < 32 && this.getTamanho() + 1L == 1L << this.getAltura();
+    }
+
+    /**
+     * Retorna uma nova árvore com os valores que estão nesta árvore ou na outra.
+     * As duas sequências em ordem simétrica são intercaladas seguindo as costuras de sucessor das duas árvores ao
+     * mesmo tempo, e o resultado, já ordenado, é montado de baixo para cima por
+     * {@link #construirOrdenada(int[], int, Balanceamento)}: O(m + n) no total, sem buscas, inserções nem rotações.
+     * Nenhuma das duas árvores é alterada.
+     * @param outra a outra árvore.
+     * @return a união, perfeitamente balanceada e com o balanceamento desta árvore.
+     */
+    public ArvoreBinariadeBusca uniao(ArvoreBinariadeBusca outra) {
+        return combinar(outra, true, true, true);
+    }
+    /**
+     * Retorna uma nova árvore com os valores que estão nesta árvore e também na outra, em O(m + n).
+     * Veja {@link #uniao(ArvoreBinariadeBusca)}.
+     * @param outra a outra árvore.
+     * @return a interseção, perfeitamente balanceada e com o balanceamento desta árvore.
+     */
+    public ArvoreBinariadeBusca intersecao(ArvoreBinariadeBusca outra) {
+        return combinar(outra, false, true, false);
+    }
+    /**
+     * Retorna uma nova árvore com os valores desta árvore que não estão na outra, em O(m + n).
+     * Veja {@link #uniao(ArvoreBinariadeBusca)}.
+     * @param outra a árvore com os valores a serem retirados.
+     * @return a diferença, perfeitamente balanceada e com o balanceamento desta árvore.
+     */
+    public ArvoreBinariadeBusca diferenca(ArvoreBinariadeBusca outra) {
+        return combinar(outra, true, false, false);
+    }
+    /**
+     * Intercala as duas sequências ordenadas, mantendo os valores que só estão nesta árvore, os que estão nas duas
+     * e os que só estão na outra conforme pedido.
+     */
+    private ArvoreBinariadeBusca combinar(ArvoreBinariadeBusca outra, boolean soNesta, boolean nasDuas,
+            boolean soNaOutra) {
+        int[] resultado = new int[soNaOutra ? Math.addExact(this.tamanho, outra.tamanho) : this.tamanho];
+        int n = 0;
+        No a = this.min();
+        No b = outra.min();
+        while (a != null && b != null) {
+            int va = a.getValor();
+            int vb = b.getValor();
+            if (va < vb) {
+                if (soNesta) {
+                    resultado[n++] = va;
+                }
+                a = sucessor(a);
+            } else if (va > vb) {
+                if (soNaOutra) {
+                    resultado[n++] = vb;
+                }
+                b = sucessor(b);
+            } else {
+                if (nasDuas) {
+                    resultado[n++] = va;
+                }
+                a = sucessor(a);
+                b = sucessor(b);
+            }
+        }
+        for (; soNesta && a != null; a = sucessor(a)) {
+            resultado[n++] = a.getValor();
+        }
+        for (; soNaOutra && b != null; b = sucessor(b)) {
+            resultado[n++] = b.getValor();
+        }
+        return construirOrdenada(resultado, n, this.balanceamento);
+    }
+    /**
+     * Divide os valores da árvore em duas novas árvores: a dos menores que a chave e a dos maiores ou iguais a ela.
+     * Os valores são lidos em ordem pelas costuras e cada parte é montada de baixo para cima, em O(n) no total.
+     * Esta árvore não é alterada.
+     * @param chave o valor que separa as duas partes; pode não estar na árvore.
+     * @return um vetor com a árvore dos menores na posição 0 e a dos maiores ou iguais na posição 1.
+     */
+    public ArvoreBinariadeBusca[] dividir(int chave) {
+        int[] valores = paraVetor();
+        int corte = contarMenores(chave);
+        int[] maiores = Arrays.copyOfRange(valores, corte, valores.length);
+        return new ArvoreBinariadeBusca[] {
+            construirOrdenada(valores, corte, this.balanceamento),
+            construirOrdenada(maiores, maiores.length, this.balanceamento)
+        };
+    }
+    /**
+     * Junta duas árvores em que todos os valores da primeira são menores que todos os da segunda, em O(m + n):
+     * as sequências em ordem são simplesmente concatenadas e a árvore é montada de baixo para cima.
+     * Nenhuma das duas árvores é alterada.
+     * @param menores a árvore com os valores menores.
+     * @param maiores a árvore com os valores maiores.
+     * @return a junção, com o balanceamento da primeira árvore.
+     * @throws IllegalArgumentException se algum valor da primeira não for menor que todos os da segunda.
+     */
+    public static ArvoreBinariadeBusca juntar(ArvoreBinariadeBusca menores, ArvoreBinariadeBusca maiores) {
+        if (!menores.vazia() && !maiores.vazia() && menores.max().getValor() >= maiores.min().getValor()) {
+            throw new IllegalArgumentException("Os valores da primeira árvore precisam ser menores que os da segunda");
+        }
+        int[] valores = Arrays.copyOf(menores.paraVetor(), Math.addExact(menores.tamanho, maiores.tamanho));
+        int n = menores.tamanho;
+        for (No no = maiores.min(); no != null; no = sucessor(no)) {
+            valores[n++] = no.getValor();
         }
-        Integer somapg;
-        somapg = (int) ((Math.pow(2, this.getAltura()) - 1) / (2 - 1));
-        return this.getTamanho() == somapg;
+        return construirOrdenada(valores, n, menores.balanceamento);
     }
 }
@@ -0,0 +1,650 @@
+package com.edb2;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ *  Árvore binária de busca com costura armazenada em vetores paralelos de primitivos, no lugar de um
+ * objeto {@link No} por valor. Oferece as mesmas operações de {@link ArvoreBinariadeBusca}.
+ *  Cada nó é um índice: os filhos, o pai e as costuras são índices nos vetores, e os dois booleanos
+ * de costura são bits de um único byte. O índice NULO (-1) faz o papel do ponteiro nulo.
+ *
+ *  Estrutura de um Nó na posição i:
+ *
+ *      valor[i]     = valor do nó
+ *      esquerda[i]  = índice do filho da esquerda, ou do antecessor se o bit COSTURA_ESQUERDA estiver ligado
+ *      direita[i]   = índice do filho da direita, ou do sucessor se o bit COSTURA_DIREITA estiver ligado
+ *      pai[i]       = índice do pai do nó
+ *      tamanho[i]   = quantidade de nós da sub-árvore
+ *      altura[i]    = altura da sub-árvore
+ *      costuras[i]  = bits COSTURA_ESQUERDA e COSTURA_DIREITA
+ *
+ *  As posições liberadas pela remoção formam uma lista encadeada (pelo vetor direita) e são reaproveitadas
+ * pelas próximas inserções. O método {@link #compactar()} renumera os nós na ordem simétrica, de modo que
+ * o percurso pelos sucessores passe a ler os vetores sequencialmente.
+ */
+public class ArvoreBinariadeBuscaCompacta {
+    private static final int NULO = -1;
+    private static final byte COSTURA_ESQUERDA = 1;
+    private static final byte COSTURA_DIREITA = 2;
+    private static final int CAPACIDADE_INICIAL = 16;
+
+    private int[] valor;
+    private int[] esquerda;
+    private int[] direita;
+    private int[] pai;
+    private int[] tamanhoSub;
+    private int[] alturaSub;
+    private byte[] costuras;
+
+    private int raiz;
+    private int tamanho;
+    private int usados;
+    private int livre;
+    private final Balanceamento balanceamento;
+
+    public ArvoreBinariadeBuscaCompacta() {
+        this(Balanceamento.NENHUM);
+    }
+    public ArvoreBinariadeBuscaCompacta(Balanceamento balanceamento) {
+        this.raiz = NULO;
+        this.tamanho = 0;
+        this.usados = 0;
+        this.livre = NULO;
+        this.balanceamento = balanceamento;
+        alocarVetores(CAPACIDADE_INICIAL);
+    }
+    /**
+     * Cria a árvore inserindo os valores na ordem dada.
+     * @param valores os valores a serem inseridos.
+     * @param balanceamento a estratégia de balanceamento da árvore.
+     */
+    public ArvoreBinariadeBuscaCompacta(int[] valores, Balanceamento balanceamento) {
+        this(balanceamento);
+        for (int i = 0; i < valores.length; i++) {
+            this.inserir(valores[i]);
+        }
+    }
+
+    private void alocarVetores(int capacidade) {
+        this.valor = new int[capacidade];
+        this.esquerda = new int[capacidade];
+        this.direita = new int[capacidade];
+        this.pai = new int[capacidade];
+        this.tamanhoSub = new int[capacidade];
+        this.alturaSub = new int[capacidade];
+        this.costuras = new byte[capacidade];
+    }
+    private void crescer() {
+        int capacidade = this.valor.length + (this.valor.length >> 1) + 1;
+        this.valor = Arrays.copyOf(this.valor, capacidade);
+        this.esquerda = Arrays.copyOf(this.esquerda, capacidade);
+        this.direita = Arrays.copyOf(this.direita, capacidade);
+        this.pai = Arrays.copyOf(this.pai, capacidade);
+        this.tamanhoSub = Arrays.copyOf(this.tamanhoSub, capacidade);
+        this.alturaSub = Arrays.copyOf(this.alturaSub, capacidade);
+        this.costuras = Arrays.copyOf(this.costuras, capacidade);
+    }
+    /**
+     * Obtém uma posição para um novo nó folha, reaproveitando primeiro as posições liberadas.
+     */
+    private int alocar(int v) {
+        int i;
+        if (this.livre != NULO) {
+            i = this.livre;
+            this.livre = this.direita[i];
+        } else {
+            if (this.usados == this.valor.length) {
+                crescer();
+            }
+            i = this.usados++;
+        }
+        this.valor[i] = v;
+        this.pai[i] = NULO;
+        this.tamanhoSub[i] = 1;
+        this.alturaSub[i] = 1;
+        this.costuras[i] = COSTURA_ESQUERDA | COSTURA_DIREITA;
+        return i;
+    }
+    private void liberar(int i) {
+        this.direita[i] = this.livre;
+        this.livre = i;
+    }
+
+    private boolean costuraEsquerda(int i) {
+        return (this.costuras[i] & COSTURA_ESQUERDA) != 0;
+    }
+    private boolean costuraDireita(int i) {
+        return (this.costuras[i] & COSTURA_DIREITA) != 0;
+    }
+    private void setCosturaEsquerda(int i, boolean costura) {
+        this.costuras[i] = (byte) (costura ? this.costuras[i] | COSTURA_ESQUERDA : this.costuras[i] & ~COSTURA_ESQUERDA);
+    }
+    private void setCosturaDireita(int i, boolean costura) {
+        this.costuras[i] = (byte) (costura ? this.costuras[i] | COSTURA_DIREITA : this.costuras[i] & ~COSTURA_DIREITA);
+    }
+
+    /**
+     * Retorna o tamanho da arvore, ou seja, a quantidade de nós.
+     * @return tamanho da arvore
+     */
+    public int getTamanho() {
+        return this.tamanho;
+    }
+    /**
+     * Retorna a altura da arvore, mantida na raiz a cada inserção e remoção.
+     * @return altura da arvore
+     */
+    public int getAltura() {
+        return this.raiz == NULO ? 0 : this.alturaSub[this.raiz];
+    }
+    /**
+     * Retorna quantas posições os vetores comportam atualmente, ocupadas ou não.
+     * @return capacidade dos vetores
+     */
+    public int getCapacidade() {
+        return this.valor.length;
+    }
+    /**
+     * Verifica se a arvore está vazia
+     * @return true se a arvore estiver vazia, false caso contrário
+     */
+    public boolean vazia() {
+        return this.raiz == NULO;
+    }
+
+    /**
+     * Verifica se o valor está na árvore.
+     * @param v o valor a ser pesquisado.
+     * @return true se o valor estiver na árvore, false caso contrário.
+     */
+    public boolean contains(int v) {
+        if (this.balanceamento == Balanceamento.AFUNILAMENTO) {
+            return buscarAfunilando(v) != NULO;
+        }
+        return buscar(v) != NULO;
+    }
+    private int buscar(int v) {
+        int i = this.raiz;
+        while (i != NULO) {
+            if (v < this.valor[i]) {
+                i = costuraEsquerda(i) ? NULO : this.esquerda[i];
+            } else if (v > this.valor[i]) {
+                i = costuraDireita(i) ? NULO : this.direita[i];
+            } else {
+                return i;
+            }
+        }
+        return NULO;
+    }
+    /**
+     * Busca como em {@link #buscar(int)} e sobe até a raiz o nó encontrado, ou o último visitado.
+     */
+    private int buscarAfunilando(int v) {
+        int i = this.raiz;
+        while (i != NULO) {
+            int proximo;
+            if (v < this.valor[i]) {
+                proximo = costuraEsquerda(i) ? NULO : this.esquerda[i];
+            } else if (v > this.valor[i]) {
+                proximo = costuraDireita(i) ? NULO : this.direita[i];
+            } else {
+                afunilar(i);
+                return i;
+            }
+            if (proximo == NULO) {
+                afunilar(i);
+                return NULO;
+            }
+            i = proximo;
+        }
+        return NULO;
+    }
+
+    /**
+     * Insere um novo elemento na arvore binaria de busca.
+     * Um elemento não pode ser inserido se já existir na arvore.
+     * @param v O valor a ser inserido.
+     * @return true se o elemento foi inserido com sucesso, false caso contrário.
+     */
+    public boolean inserir(int v) {
+        if (this.raiz == NULO) {
+            int novo = alocar(v);
+            this.esquerda[novo] = NULO;
+            this.direita[novo] = NULO;
+            this.raiz = novo;
+            this.tamanho++;
+            return true;
+        }
+        int i = this.raiz;
+        int novo;
+        while (true) {
+            if (v < this.valor[i]) {
+                if (costuraEsquerda(i)) {
+                    novo = alocar(v);
+                    this.pai[novo] = i;
+                    //Filho da esquerda: o sucessor é o pai e o antecessor é o antecessor do pai.
+                    this.direita[novo] = i;
+                    this.esquerda[novo] = this.esquerda[i];
+                    this.esquerda[i] = novo;
+                    setCosturaEsquerda(i, false);
+                    break;
+                }
+                i = this.esquerda[i];
+            } else if (v > this.valor[i]) {
+                if (costuraDireita(i)) {
+                    novo = alocar(v);
+                    this.pai[novo] = i;
+                    //Filho da direita: o antecessor é o pai e o sucessor é o sucessor do pai.
+                    this.esquerda[novo] = i;
+                    this.direita[novo] = this.direita[i];
+                    this.direita[i] = novo;
+                    setCosturaDireita(i, false);
+                    break;
+                }
+                i = this.direita[i];
+            } else {
+                if (this.balanceamento == Balanceamento.AFUNILAMENTO) {
+                    afunilar(i);
+                }
+                return false;
+            }
+        }
+        atualizarCaminho(i);
+        this.tamanho++;
+        if (this.balanceamento == Balanceamento.AFUNILAMENTO) {
+            afunilar(novo);
+        }
+        return true;
+    }
+    /**
+     * Dado um valor, remove o nó que contem esse valor da arvore binaria de busca.
+     * A posição do nó retirado vai para a lista de posições livres.
+     * @param v O valor a ser removido.
+     * @return true se o elemento foi removido com sucesso, false caso contrário.
+     */
+    public boolean remover(int v) {
+        boolean afunilamento = this.balanceamento == Balanceamento.AFUNILAMENTO;
+        int i = afunilamento ? buscarAfunilando(v) : buscar(v);
+        if (i == NULO) {
+            return false;
+        }
+        if (!costuraEsquerda(i) && !costuraDireita(i)) {
+            //Tem filhos a esquerda e a direita: o valor do sucessor ocupa o lugar e o sucessor é retirado.
+            int sucessor = sucessor(i);
+            this.valor[i] = this.valor[sucessor];
+            i = sucessor;
+        }
+        int p = this.pai[i];
+        desligar(i);
+        liberar(i);
+        this.tamanho--;
+        if (afunilamento && p != NULO) {
+            afunilar(p);
+        }
+        return true;
+    }
+    private void desligar(int i) {
+        int p = this.pai[i];
+        if (costuraEsquerda(i) && costuraDireita(i)) {
+            if (p == NULO) {
+                this.raiz = NULO;
+            } else if (!costuraEsquerda(p) && this.esquerda[p] == i) {
+                setCosturaEsquerda(p, true);
+                this.esquerda[p] = this.esquerda[i];
+            } else {
+                setCosturaDireita(p, true);
+                this.direita[p] = this.direita[i];
+            }
+            atualizarCaminho(p);
+            return;
+        }
+        int filho;
+        if (costuraEsquerda(i)) {
+            filho = this.direita[i];
+            this.esquerda[min(filho)] = this.esquerda[i];
+        } else {
+            filho = this.esquerda[i];
+            this.direita[max(filho)] = this.direita[i];
+        }
+        substituirFilho(i, filho);
+        atualizarCaminho(p);
+    }
+    private void substituirFilho(int antigo, int novo) {
+        int p = this.pai[antigo];
+        this.pai[novo] = p;
+        if (p == NULO) {
+            this.raiz = novo;
+        } else if (!costuraEsquerda(p) && this.esquerda[p] == antigo) {
+            this.esquerda[p] = novo;
+        } else {
+            this.direita[p] = novo;
+        }
+    }
+    private void atualizarCaminho(int i) {
+        while (i != NULO) {
+            recalcular(i);
+            if (this.balanceamento == Balanceamento.AVL) {
+                i = balancear(i);
+            }
+            i = this.pai[i];
+        }
+    }
+    private void recalcular(int i) {
+        this.tamanhoSub[i] = 1 + tamanhoEsquerda(i) + tamanhoDireita(i);
+        this.alturaSub[i] = 1 + Math.max(alturaEsquerda(i), alturaDireita(i));
+    }
+    private int tamanhoEsquerda(int i) {
+        return costuraEsquerda(i) ? 0 : this.tamanhoSub[this.esquerda[i]];
+    }
+    private int tamanhoDireita(int i) {
+        return costuraDireita(i) ? 0 : this.tamanhoSub[this.direita[i]];
+    }
+    private int alturaEsquerda(int i) {
+        return costuraEsquerda(i) ? 0 : this.alturaSub[this.esquerda[i]];
+    }
+    private int alturaDireita(int i) {
+        return costuraDireita(i) ? 0 : this.alturaSub[this.direita[i]];
+    }
+    private int balancear(int i) {
+        int fator = alturaEsquerda(i) - alturaDireita(i);
+        if (fator > 1) {
+            int e = this.esquerda[i];
+            if (alturaEsquerda(e) < alturaDireita(e)) {
+                rotacionarEsquerda(e);
+            }
+            return rotacionarDireita(i);
+        }
+        if (fator < -1) {
+            int d = this.direita[i];
+            if (alturaDireita(d) < alturaEsquerda(d)) {
+                rotacionarDireita(d);
+            }
+            return rotacionarEsquerda(i);
+        }
+        return i;
+    }
+    /**
+     * Mesma rotação de {@link ArvoreBinariadeBusca}: só as costuras entre x e o filho que sobe mudam.
+     */
+    private int rotacionarEsquerda(int x) {
+        int y = this.direita[x];
+        if (costuraEsquerda(y)) {
+            setCosturaDireita(x, true);
+            this.direita[x] = y;
+        } else {
+            this.direita[x] = this.esquerda[y];
+            this.pai[this.esquerda[y]] = x;
+        }
+        setCosturaEsquerda(y, false);
+        this.esquerda[y] = x;
+        substituirFilho(x, y);
+        this.pai[x] = y;
+        recalcular(x);
+        recalcular(y);
+        return y;
+    }
+    private int rotacionarDireita(int x) {
+        int y = this.esquerda[x];
+        if (costuraDireita(y)) {
+            setCosturaEsquerda(x, true);
+            this.esquerda[x] = y;
+        } else {
+            this.esquerda[x] = this.direita[y];
+            this.pai[this.direita[y]] = x;
+        }
+        setCosturaDireita(y, false);
+        this.direita[y] = x;
+        substituirFilho(x, y);
+        this.pai[x] = y;
+        recalcular(x);
+        recalcular(y);
+        return y;
+    }
+
+    /**
+     * Sobe o nó até a raiz com as mesmas rotações em pares de {@link ArvoreBinariadeBusca}.
+     */
+    private void afunilar(int i) {
+        int p;
+        while ((p = this.pai[i]) != NULO) {
+            int avo = this.pai[p];
+            boolean esquerda = ehFilhoEsquerda(i);
+            if (avo != NULO) {
+                if (esquerda == ehFilhoEsquerda(p)) {
+                    rotacionarParaCima(avo, esquerda);
+                } else {
+                    rotacionarParaCima(p, esquerda);
+                    esquerda = !esquerda;
+                    p = avo;
+                }
+            }
+            rotacionarParaCima(p, esquerda);
+        }
+    }
+    private void rotacionarParaCima(int x, boolean filhoEsquerda) {
+        if (filhoEsquerda) {
+            rotacionarDireita(x);
+        } else {
+            rotacionarEsquerda(x);
+        }
+    }
+    private boolean ehFilhoEsquerda(int i) {
+        int p = this.pai[i];
+        return !costuraEsquerda(p) && this.esquerda[p] == i;
+    }
+
+    private int sucessor(int i) {
+        if (costuraDireita(i)) {
+            return this.direita[i];
+        }
+        return min(this.direita[i]);
+    }
+    private int min(int i) {
+        while (!costuraEsquerda(i)) {
+            i = this.esquerda[i];
+        }
+        return i;
+    }
+    private int max(int i) {
+        while (!costuraDireita(i)) {
+            i = this.direita[i];
+        }
+        return i;
+    }
+    /**
+     * Retorna o menor valor da árvore, ou null se ela estiver vazia.
+     * @return o menor valor da árvore.
+     */
+    public Integer min() {
+        return this.raiz == NULO ? null : this.valor[min(this.raiz)];
+    }
+    /**
+     * Retorna o maior valor da árvore, ou null se ela estiver vazia.
+     * @return o maior valor da árvore.
+     */
+    public Integer max() {
+        return this.raiz == NULO ? null : this.valor[max(this.raiz)];
+    }
+    /**
+     * Percorre a árvore em ordem simétrica pelas costuras, entregando cada valor ao consumidor.
+     * @param consumidor quem recebe os valores.
+     */
+    public void emOrdem(IntConsumer consumidor) {
+        if (this.raiz == NULO) {
+            return;
+        }
+        for (int i = min(this.raiz); i != NULO; i = sucessor(i)) {
+            consumidor.accept(this.valor[i]);
+        }
+    }
+    /**
+     * Retorna uma string contendo os valores da árvore em ordem simétrica.
+     * @return uma string contendo os valores da árvore em ordem simétrica.
+     */
+    public String emOrdem() {
+        StringBuilder s = new StringBuilder();
+        emOrdem(v -> s.append(s.length() == 0 ? "" : " ").append(v));
+        return s.toString();
+    }
+    /**
+     * Retorna uma string contendo os valores da árvore em pré-ordem, no mesmo formato de
+     * {@link ArvoreBinariadeBusca#preOrdem()}. Usa uma pilha de índices em vez de recursão.
+     * @return uma string contendo os valores da árvore em pré-ordem.
+     */
+    public String preOrdem() {
+        StringBuilder s = new StringBuilder();
+        if (this.raiz == NULO) {
+            return "";
+        }
+        int[] pilha = new int[getAltura() + 1];
+        int topo = 0;
+        pilha[topo++] = this.raiz;
+        while (topo > 0) {
+            int i = pilha[--topo];
+            s.append(this.valor[i]).append(' ');
+            if (!costuraDireita(i)) {
+                pilha[topo++] = this.direita[i];
+            }
+            if (!costuraEsquerda(i)) {
+                pilha[topo++] = this.esquerda[i];
+            }
+        }
+        return s.toString();
+    }
+    /**
+     * Dado um valor x, retorna a posição em que ele se encontra na árvore em ordem simétrica.
+     * Se o valor não estiver na árvore, retorna -1.
+     * @param x o valor a ser pesquisado.
+     * @return a posição em que o valor x se encontra na árvore.
+     */
+    public int posicao(int x) {
+        int pos = 0;
+        int i = this.raiz;
+        while (i != NULO) {
+            if (x < this.valor[i]) {
+                i = costuraEsquerda(i) ? NULO : this.esquerda[i];
+            } else if (x > this.valor[i]) {
+                pos += tamanhoEsquerda(i) + 1;
+                i = costuraDireita(i) ? NULO : this.direita[i];
+            } else {
+                return pos + tamanhoEsquerda(i) + 1;
+            }
+        }
+        return -1;
+    }
+    /**
+     * Dado um valor n, retorna o valor que está na posição n da árvore em ordem simétrica.
+     * Se a posição estiver fora dos limites da árvore, retorna null.
+     * @param n a posição a ser pesquisada.
+     * @return o valor que está na posição n da árvore em ordem simétrica.
+     */
+    public Integer enesimoElemento(int n) {
+        if (n < 1 || n > this.tamanho) {
+            return null;
+        }
+        int k = n;
+        int i = this.raiz;
+        while (true) {
+            int pos = tamanhoEsquerda(i) + 1;
+            if (k < pos) {
+                i = this.esquerda[i];
+            } else if (k > pos) {
+                k -= pos;
+                i = this.direita[i];
+            } else {
+                return this.valor[i];
+            }
+        }
+    }
+    /**
+     * Retorna o valor da mediana da árvore; se o tamanho for par, o menor entre os dois valores centrais.
+     * @return a mediana da árvore.
+     */
+    public Integer mediana() {
+        if (this.tamanho == 0) {
+            return null;
+        }
+        return this.enesimoElemento((this.tamanho + 1) / 2);
+    }
+    /**
+     * Retorna a média dos valores da sub-árvore cuja raiz contém o valor dado.
+     * @param v o valor da raiz da sub-árvore.
+     * @return a média dos valores da sub-árvore, ou null se o valor não estiver na árvore.
+     */
+    public Double media(int v) {
+        int i = buscar(v);
+        if (i == NULO) {
+            return null;
+        }
+        int fim = max(i);
+        long soma = 0;
+        int cont = 0;
+        for (int j = min(i); j != fim; j = sucessor(j)) {
+            soma += this.valor[j];
+            cont++;
+        }
+        soma += this.valor[fim];
+        cont++;
+        return (double) soma / cont;
+    }
+    /**
+     * Verifica se a árvore é completa, ou seja, se tem a menor altura possível para o seu tamanho:
+     * floor(log2(n)) + 1.
+     * @return true se a árvore for completa, false caso contrário.
+     */
+    public boolean ehCompleta() {
+        return getAltura() == 32 - Integer.numberOfLeadingZeros(this.tamanho);
+    }
+    /**
+     * Verifica se a árvore é cheia, ou seja, se tem exatamente 2^h - 1 nós para a sua altura h.
+     * @return true se a árvore for cheia, false caso contrário.
+     */
+    public boolean ehCheia() {
+        return getAltura() < 32 && ((long) this.tamanho + 1) == 1L << getAltura();
+    }
+    /**
+     * Renumera os nós na ordem simétrica, de modo que o nó de posição k ocupe o índice k - 1 dos vetores.
+     * Depois disso, percorrer os sucessores lê os vetores sequencialmente. As posições livres são
+     * descartadas e os vetores ficam do tamanho da árvore. Custa O(n) e não altera o formato da árvore.
+     */
+    public void compactar() {
+        int n = this.tamanho;
+        int[] novoIndice = new int[this.usados];
+        int k = 0;
+        if (this.raiz != NULO) {
+            for (int i = min(this.raiz); i != NULO; i = sucessor(i)) {
+                novoIndice[i] = k++;
+            }
+        }
+        int[] nValor = new int[Math.max(n, CAPACIDADE_INICIAL)];
+        int[] nEsquerda = new int[nValor.length];
+        int[] nDireita = new int[nValor.length];
+        int[] nPai = new int[nValor.length];
+        int[] nTamanho = new int[nValor.length];
+        int[] nAltura = new int[nValor.length];
+        byte[] nCosturas = new byte[nValor.length];
+        if (this.raiz != NULO) {
+            for (int i = min(this.raiz); i != NULO; i = sucessor(i)) {
+                int j = novoIndice[i];
+                nValor[j] = this.valor[i];
+                nEsquerda[j] = this.esquerda[i] == NULO ? NULO : novoIndice[this.esquerda[i]];
+                nDireita[j] = this.direita[i] == NULO ? NULO : novoIndice[this.direita[i]];
+                nPai[j] = this.pai[i] == NULO ? NULO : novoIndice[this.pai[i]];
+                nTamanho[j] = this.tamanhoSub[i];
+                nAltura[j] = this.alturaSub[i];
+                nCosturas[j] = this.costuras[i];
+            }
+            this.raiz = novoIndice[this.raiz];
+        }
+        this.valor = nValor;
+        this.esquerda = nEsquerda;
+        this.direita = nDireita;
+        this.pai = nPai;
+        this.tamanhoSub = nTamanho;
+        this.alturaSub = nAltura;
+        this.costuras = nCosturas;
+        this.usados = n;
+        this.livre = NULO;
+    }
+}
@@ -0,0 +1,475 @@
+package com.edb2;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntConsumer;
+import java.util.function.IntSupplier;
+
+/**
+ *  Versão da {@link ArvoreBinariadeBusca} que pode ser compartilhada entre threads.
+ *
+ *  As escritas (inserir e remover) usam o modo exclusivo de um {@link StampedLock}. As consultas curtas
+ * (contains, posicao, enesimoElemento, mediana, getTamanho e getAltura) primeiro tentam uma leitura otimista, que não bloqueia
+ * nem é bloqueada por outros leitores: percorrem os nós sem trava e depois validam o carimbo. Se um escritor
+ * passou no meio, o resultado é descartado e a consulta é refeita com a trava de leitura.
+ *  Durante a leitura otimista os nós podem estar em um estado intermediário de uma inserção ou rotação, então
+ * as descidas limitam a quantidade de passos e qualquer exceção é tratada como leitura inválida.
+ *
+ *  O percurso em ordem simétrica é feito em blocos: cada bloco de valores é lido de forma otimista a partir do
+ * sucessor do último valor entregue, e só então é entregue ao consumidor, fora de qualquer trava. Cada bloco é
+ * consistente, e o percurso como um todo reflete as escritas concorrentes que ocorreram entre os blocos.
+ *
+ *  Com {@link Balanceamento#AFUNILAMENTO}, só inserir e remover afunilam, sob a trava exclusiva: as consultas
+ * daqui descem pela árvore sem alterá-la, para continuarem podendo ser feitas em paralelo.
+ */
+public class ArvoreBinariadeBuscaConcorrente {
+    private static final int TAMANHO_BLOCO = 256;
+
+    private final ArvoreBinariadeBusca abb;
+    private final StampedLock trava = new StampedLock();
+    /**
+     * Quantidade de snapshots montando a cópia persistente fora da trava exclusiva. Enquanto houver algum, as
+     * escritas são anotadas em escritasPendentes para serem refeitas na cópia antes de ela ser instalada.
+     */
+    private int construcoes;
+    /** Escritas anotadas, na ordem em que foram feitas; veja {@link #anotar(int, boolean)}. */
+    private long[] escritasPendentes = new long[0];
+    private int quantidadePendentes;
+
+    public ArvoreBinariadeBuscaConcorrente(Balanceamento balanceamento) {
+        this.abb = new ArvoreBinariadeBusca(balanceamento);
+    }
+    /**
+     * Passa a controlar o acesso à árvore dada. A árvore não deve mais ser usada diretamente.
+     * @param abb a árvore a ser compartilhada.
+     */
+    public ArvoreBinariadeBuscaConcorrente(ArvoreBinariadeBusca abb) {
+        this.abb = abb;
+    }
+
+    /**
+     * Retorna a árvore protegida, para verificações sem concorrência.
+     */
+    ArvoreBinariadeBusca arvore() {
+        return this.abb;
+    }
+
+    public boolean inserir(int valor) {
+        long carimbo = this.trava.writeLock();
+        try {
+            anotar(valor, true);
+            return this.abb.inserir(valor);
+        } finally {
+            this.trava.unlockWrite(carimbo);
+        }
+    }
+    public boolean remover(int valor) {
+        long carimbo = this.trava.writeLock();
+        try {
+            anotar(valor, false);
+            return this.abb.remover(valor);
+        } finally {
+            this.trava.unlockWrite(carimbo);
+        }
+    }
+
+    /**
+     * Insere o lote inteiro com uma única aquisição da trava exclusiva.
+     * Veja {@link ArvoreBinariadeBusca#inserirTodos(int[])}.
+     */
+    public BitSet inserirTodos(int[] valores) {
+        long carimbo = this.trava.writeLock();
+        try {
+            for (int valor : valores) {
+                anotar(valor, true);
+            }
+            return this.abb.inserirTodos(valores);
+        } finally {
+            this.trava.unlockWrite(carimbo);
+        }
+    }
+    /**
+     * Remove o lote inteiro com uma única aquisição da trava exclusiva.
+     * Veja {@link ArvoreBinariadeBusca#removerTodos(int[])}.
+     */
+    public BitSet removerTodos(int[] valores) {
+        long carimbo = this.trava.writeLock();
+        try {
+            for (int valor : valores) {
+                anotar(valor, false);
+            }
+            return this.abb.removerTodos(valores);
+        } finally {
+            this.trava.unlockWrite(carimbo);
+        }
+    }
+
+    public boolean contains(int valor) {
+        return ler(() -> buscar(valor) ? 1 : 0) == 1;
+    }
+    public int posicao(int valor) {
+        return ler(() -> posicaoSemTrava(valor));
+    }
+    public int getTamanho() {
+        return ler(this.abb::getTamanho);
+    }
+    public int getAltura() {
+        return ler(this.abb::getAltura);
+    }
+    /**
+     * Retorna o valor na posição n da ordem simétrica, ou null se a posição estiver fora dos limites.
+     */
+    public Integer enesimoElemento(int n) {
+        int[] resultado = new int[1];
+        boolean achou = ler(() -> {
+            No no = enesimoSemTrava(n);
+            if (no != null) {
+                resultado[0] = no.getValor();
+            }
+            return no == null ? 0 : 1;
+        }) == 1;
+        return achou ? resultado[0] : null;
+    }
+    /**
+     * Retorna a mediana (o menor dos dois valores centrais se o tamanho for par), ou null se a árvore estiver vazia.
+     */
+    public Integer mediana() {
+        int[] resultado = new int[1];
+        boolean achou = ler(() -> {
+            No no = enesimoSemTrava((this.abb.getTamanho() + 1) / 2);
+            if (no != null) {
+                resultado[0] = no.getValor();
+            }
+            return no == null ? 0 : 1;
+        }) == 1;
+        return achou ? resultado[0] : null;
+    }
+
+    /**
+     * Congela os valores atuais (veja {@link ArvoreBinariadeBusca#congelar()}) sob a trava de leitura. A árvore
+     * congelada é imutável e pode ser consultada por várias threads sem trava nenhuma.
+     * @return a árvore congelada com os valores atuais.
+     */
+    public ArvoreCongelada congelar() {
+        long carimbo = this.trava.readLock();
+        try {
+            return this.abb.congelar();
+        } finally {
+            this.trava.unlockRead(carimbo);
+        }
+    }
+    /**
+     * Retorna um snapshot dos valores atuais (veja {@link ArvoreBinariadeBusca#snapshot()}), que pode ser
+     * percorrido sem travas enquanto as escritas continuam.
+     *  Com a cópia persistente já mantida, o snapshot custa O(1) sob a trava exclusiva. Senão (no primeiro
+     * snapshot e no primeiro depois de {@link #descartarVersoes()}), os valores são copiados em O(n) sob a trava
+     * de leitura, que bloqueia as escritas mas não as consultas, e a cópia persistente é montada sem trava
+     * nenhuma. As escritas feitas nesse meio tempo são anotadas e refeitas na cópia, em O(log n) cada, sob a
+     * trava exclusiva que a instala.
+     * @return o snapshot dos valores atuais.
+     */
+    public Instantaneo snapshot() {
+        long carimbo = this.trava.writeLock();
+        if (this.abb.isVersionada()) {
+            try {
+                return this.abb.snapshot();
+            } finally {
+                this.trava.unlockWrite(carimbo);
+            }
+        }
+        int inicio = this.quantidadePendentes;
+        this.construcoes++;
+        Instantaneo.NoPersistente copia;
+        try {
+            //A conversão não deixa nenhuma escrita passar entre o início da anotação e a cópia dos valores.
+            carimbo = this.trava.tryConvertToReadLock(carimbo);
+            int[] ordenados;
+            try {
+                ordenados = this.abb.paraVetor();
+            } finally {
+                this.trava.unlockRead(carimbo);
+            }
+            copia = Instantaneo.construir(ordenados, 0, ordenados.length - 1);
+        } catch (RuntimeException | Error e) {
+            carimbo = this.trava.writeLock();
+            encerrarConstrucao();
+            this.trava.unlockWrite(carimbo);
+            throw e;
+        }
+        carimbo = this.trava.writeLock();
+        try {
+            //Outro snapshot pode ter instalado a sua cópia antes; nesse caso, ela já está em dia.
+            if (!this.abb.isVersionada()) {
+                for (int i = inicio; i < this.quantidadePendentes; i++) {
+                    long escrita = this.escritasPendentes[i];
+                    int valor = (int) (escrita >> 1);
+                    if ((escrita & 1) != 0) {
+                        copia = Instantaneo.inserir(copia, valor);
+                    } else {
+                        copia = Instantaneo.remover(copia, valor);
+                    }
+                }
+                this.abb.instalarVersao(copia);
+            }
+            return this.abb.snapshot();
+        } finally {
+            encerrarConstrucao();
+            this.trava.unlockWrite(carimbo);
+        }
+    }
+    /**
+     * Anota a escrita, com a trava exclusiva, se algum snapshot estiver montando a cópia persistente. Inserir um
+     * valor presente ou remover um ausente não muda nada, então as escritas são refeitas sem olhar o resultado.
+     */
+    private void anotar(int valor, boolean insercao) {
+        if (this.construcoes == 0) {
+            return;
+        }
+        if (this.quantidadePendentes == this.escritasPendentes.length) {
+            int capacidade = Math.max(16, 2 * this.quantidadePendentes);
+            this.escritasPendentes = Arrays.copyOf(this.escritasPendentes, capacidade);
+        }
+        this.escritasPendentes[this.quantidadePendentes++] = ((long) valor << 1) | (insercao ? 1 : 0);
+    }
+    /**
+     * Chamado com a trava exclusiva quando um snapshot termina de montar a sua cópia; o último libera as anotações.
+     */
+    private void encerrarConstrucao() {
+        this.construcoes--;
+        if (this.construcoes == 0) {
+            this.escritasPendentes = new long[0];
+            this.quantidadePendentes = 0;
+        }
+    }
+    /**
+     * Para de manter a cópia usada pelos snapshots (veja {@link ArvoreBinariadeBusca#descartarVersoes()}).
+     */
+    public void descartarVersoes() {
+        long carimbo = this.trava.writeLock();
+        try {
+            this.abb.descartarVersoes();
+        } finally {
+            this.trava.unlockWrite(carimbo);
+        }
+    }
+
+    /**
+     * Salva a árvore (veja {@link ArvoreBinariadeBusca#salvar(Path, boolean)}) com a trava de leitura: as
+     * escritas esperam a gravação terminar, e o arquivo tem um estado consistente da árvore.
+     */
+    public void salvar(Path arquivo, boolean preservarFormato) throws IOException {
+        long carimbo = this.trava.readLock();
+        try {
+            this.abb.salvar(arquivo, preservarFormato);
+        } finally {
+            this.trava.unlockRead(carimbo);
+        }
+    }
+
+    /**
+     * As operações que percorrem a árvore toda usam a trava de leitura.
+     */
+    public String emOrdem() {
+        long carimbo = this.trava.readLock();
+        try {
+            return this.abb.emOrdem();
+        } finally {
+            this.trava.unlockRead(carimbo);
+        }
+    }
+    public String preOrdem() {
+        long carimbo = this.trava.readLock();
+        try {
+            return this.abb.preOrdem();
+        } finally {
+            this.trava.unlockRead(carimbo);
+        }
+    }
+
+    /**
+     * Executa a leitura de forma otimista e, se a validação falhar, com a trava de leitura.
+     */
+    private int ler(IntSupplier leitura) {
+        long carimbo = this.trava.tryOptimisticRead();
+        if (carimbo != 0) {
+            try {
+                int resultado = leitura.getAsInt();
+                if (this.trava.validate(carimbo)) {
+                    return resultado;
+                }
+            } catch (RuntimeException e) {
+                //Estado intermediário de uma escrita: refaz com a trava de leitura.
+            }
+        }
+        carimbo = this.trava.readLock();
+        try {
+            return leitura.getAsInt();
+        } finally {
+            this.trava.unlockRead(carimbo);
+        }
+    }
+    /**
+     * Quantidade máxima de passos de uma descida; mais do que isso só acontece lendo um estado inconsistente.
+     */
+    private int limitePassos() {
+        return this.abb.getTamanho() + 2;
+    }
+    private boolean buscar(int valor) {
+        No no = this.abb.getRaiz();
+        for (int passos = limitePassos(); no != null; passos--) {
+            verificarPassos(passos);
+            if (valor < no.getValor()) {
+                no = no.isCosturaEsquerda() ? null : no.getFilhoEsquerda();
+            } else if (valor > no.getValor()) {
+                no = no.isCosturaDireita() ? null : no.getFilhoDireita();
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+    private int posicaoSemTrava(int valor) {
+        int pos = 0;
+        No no = this.abb.getRaiz();
+        for (int passos = limitePassos(); no != null; passos--) {
+            verificarPassos(passos);
+            if (valor < no.getValor()) {
+                no = no.isCosturaEsquerda() ? null : no.getFilhoEsquerda();
+            } else if (valor > no.getValor()) {
+                pos += tamanhoEsquerda(no) + 1;
+                no = no.isCosturaDireita() ? null : no.getFilhoDireita();
+            } else {
+                return pos + tamanhoEsquerda(no) + 1;
+            }
+        }
+        return -1;
+    }
+    private No enesimoSemTrava(int n) {
+        if (n < 1 || n > this.abb.getTamanho()) {
+            return null;
+        }
+        int k = n;
+        No no = this.abb.getRaiz();
+        for (int passos = limitePassos(); no != null; passos--) {
+            verificarPassos(passos);
+            int pos = tamanhoEsquerda(no) + 1;
+            if (k < pos) {
+                no = no.isCosturaEsquerda() ? null : no.getFilhoEsquerda();
+            } else if (k > pos) {
+                k -= pos;
+                no = no.isCosturaDireita() ? null : no.getFilhoDireita();
+            } else {
+                return no;
+            }
+        }
+        return null;
+    }
+    /**
+     * Retorna o nó com o menor valor maior ou igual ao dado, ou null se não houver.
+     */
+    private No tetoSemTrava(int valor) {
+        No teto = null;
+        No no = this.abb.getRaiz();
+        for (int passos = limitePassos(); no != null; passos--) {
+            verificarPassos(passos);
+            if (valor < no.getValor()) {
+                teto = no;
+                no = no.isCosturaEsquerda() ? null : no.getFilhoEsquerda();
+            } else if (valor > no.getValor()) {
+                no = no.isCosturaDireita() ? null : no.getFilhoDireita();
+            } else {
+                return no;
+            }
+        }
+        return teto;
+    }
+    private static int tamanhoEsquerda(No no) {
+        return no.isCosturaEsquerda() ? 0 : no.getFilhoEsquerda().getTamanho();
+    }
+    private static void verificarPassos(int passos) {
+        if (passos < 0) {
+            throw new IllegalStateException("Descida mais longa que a árvore: leitura inconsistente");
+        }
+    }
+
+    /**
+     * Lê até bloco.length valores a partir do menor valor maior ou igual a inicio, seguindo as costuras.
+     * @return quantos valores foram lidos.
+     */
+    private int lerBloco(int inicio, int[] bloco) {
+        int n = 0;
+        No no = tetoSemTrava(inicio);
+        int passos = limitePassos() + bloco.length;
+        while (no != null && n < bloco.length) {
+            bloco[n++] = no.getValor();
+            if (no.isCosturaDireita()) {
+                no = no.getFilhoDireita();
+            } else {
+                no = no.getFilhoDireita();
+                while (!no.isCosturaEsquerda()) {
+                    verificarPassos(--passos);
+                    no = no.getFilhoEsquerda();
+                }
+            }
+            verificarPassos(--passos);
+        }
+        return n;
+    }
+
+    /**
+     * Entrega ao consumidor todos os valores em ordem simétrica, sem bloquear os escritores entre os blocos.
+     * @param consumidor quem recebe os valores.
+     */
+    public void paraCada(IntConsumer consumidor) {
+        PrimitiveIterator.OfInt it = iterador();
+        while (it.hasNext()) {
+            consumidor.accept(it.nextInt());
+        }
+    }
+    /**
+     * Retorna um iterador em ordem simétrica que lê a árvore em blocos, como em {@link #paraCada(IntConsumer)}.
+     * @return o iterador.
+     */
+    public PrimitiveIterator.OfInt iterador() {
+        return new Iterador();
+    }
+
+    private final class Iterador implements PrimitiveIterator.OfInt {
+        private final int[] bloco = new int[TAMANHO_BLOCO];
+        private int tamanhoBloco = 0;
+        private int indice = 0;
+        private long proximoInicio = Integer.MIN_VALUE;
+
+        @Override
+        public boolean hasNext() {
+            if (this.indice < this.tamanhoBloco) {
+                return true;
+            }
+            if (this.proximoInicio > Integer.MAX_VALUE) {
+                return false;
+            }
+            int inicio = (int) this.proximoInicio;
+            this.tamanhoBloco = ler(() -> lerBloco(inicio, this.bloco));
+            this.indice = 0;
+            if (this.tamanhoBloco == 0) {
+                this.proximoInicio = 1L + Integer.MAX_VALUE;
+                return false;
+            }
+            this.proximoInicio = this.bloco[this.tamanhoBloco - 1] + 1L;
+            return true;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return this.bloco[this.indice++];
+        }
+    }
+}
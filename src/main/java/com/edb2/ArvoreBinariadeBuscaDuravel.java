@@ -0,0 +1,436 @@
+package com.edb2;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+/**
+ *  Versão durável da {@link ArvoreBinariadeBuscaConcorrente}: toda inserção ou remoção que altera a árvore é
+ * registrada em um log binário (write-ahead log) antes de {@link #inserir(int)} ou {@link #remover(int)} retornar,
+ * e ao abrir a pasta de novo a árvore é refeita a partir do último snapshot mais o log.
+ *
+ *  A pasta tem dois arquivos: {@value #SNAPSHOT}, no formato de {@link ArquivoArvore}, e {@value #LOG}. Para
+ * começar de uma árvore já montada (por exemplo, a do arquivo1.txt), basta salvá-la como {@value #SNAPSHOT} na
+ * pasta antes de abri-la.
+ *
+ *  O log é uma sequência de lotes: o comprimento do lote (int), os registros e o CRC32 do comprimento e dos
+ * registros. Cada registro é um varint com o valor em zigzag e, no bit mais baixo, se é uma remoção: valores
+ * pequenos ocupam 1 ou 2 bytes. Na recuperação os lotes são aplicados em ordem até o primeiro incompleto ou com
+ * o CRC errado (uma gravação interrompida pela queda), e o log é truncado ali.
+ *
+ *  Commit em grupo: as escritas aplicam a alteração na árvore e acrescentam o registro ao lote em formação;
+ * uma thread de gravação espera a janela configurada para juntar mais registros, grava o lote inteiro com um
+ * único {@link FileChannel#force(boolean)} e então libera todas as escritas do lote. Com muitas threads
+ * escrevendo, o custo de um fsync é dividido entre todas elas. A alteração já fica visível para as leituras
+ * antes de ser durável; só o retorno da escrita espera o fsync.
+ *
+ *  Compactação: quando o log passa do limite configurado, a árvore é salva como novo snapshot e o log volta a
+ * ficar vazio, para que a recuperação não precise reaplicar um log arbitrariamente longo. As escritas ficam
+ * bloqueadas durante a gravação do snapshot. Inserir e remover são idempotentes (o estado final de cada valor
+ * é dado pela última operação sobre ele), então reaplicar sobre um snapshot novo registros que ele já contém,
+ * como acontece se a queda for entre a gravação do snapshot e a limpeza do log, dá o mesmo resultado.
+ */
+public class ArvoreBinariadeBuscaDuravel implements Closeable {
+    public static final String SNAPSHOT = "arvore.bin";
+    public static final String LOG = "arvore.log";
+    private static final int MAGICO_LOG = 0x57414C31;
+    private static final long JANELA_PADRAO_MICROS = 1000;
+    private static final long LIMITE_LOG_PADRAO = 64L * 1024 * 1024;
+    private static final long LIMITE_LOG_MAXIMO = 1L << 30;
+
+    private final Path pasta;
+    private final ArvoreBinariadeBuscaConcorrente arvore;
+    private final FileChannel canal;
+    private final long janelaNanos;
+    private final long limiteLog;
+    private final Thread gravador;
+    /**
+     * Trava da gravação no canal: o gravador a usa para escrever os lotes e a compactação para trocar o log.
+     * Quem precisa das duas travas pega esta antes da do objeto.
+     */
+    private final Object travaCanal = new Object();
+
+    // Estado protegido pela trava do objeto.
+    private byte[] lote = new byte[4096];
+    private byte[] reserva = new byte[4096];
+    private int bytesNoLote = 4;
+    private long loteAtual = 1;
+    private long loteDuravel = 0;
+    private long tamanhoLog;
+    private boolean fechando;
+    private IOException falha;
+
+    private ArvoreBinariadeBuscaDuravel(Path pasta, ArvoreBinariadeBusca abb, FileChannel canal, long tamanhoLog,
+            long janelaNanos, long limiteLog) {
+        this.pasta = pasta;
+        this.arvore = new ArvoreBinariadeBuscaConcorrente(abb);
+        this.canal = canal;
+        this.tamanhoLog = tamanhoLog;
+        this.janelaNanos = janelaNanos;
+        this.limiteLog = limiteLog;
+        this.gravador = new Thread(this::gravarLotes, "gravador-" + pasta.getFileName());
+        this.gravador.setDaemon(true);
+        this.gravador.start();
+    }
+
+    /**
+     * Abre (ou cria) a árvore durável na pasta, com janela de 1 ms e compactação quando o log passar de 64 MB.
+     * @see #abrir(Path, Balanceamento, long, long)
+     */
+    public static ArvoreBinariadeBuscaDuravel abrir(Path pasta, Balanceamento balanceamento) throws IOException {
+        return abrir(pasta, balanceamento, JANELA_PADRAO_MICROS, LIMITE_LOG_PADRAO);
+    }
+    /**
+     * Abre a árvore durável na pasta: carrega o snapshot, se houver, e reaplica o log sobre ele.
+     * @param pasta a pasta dos arquivos da árvore, criada se não existir.
+     * @param balanceamento o balanceamento da árvore se a pasta ainda não tiver snapshot; senão vale o do snapshot.
+     * @param janelaMicros quanto tempo o gravador espera, depois do primeiro registro de um lote, para juntar
+     *        mais registros antes do fsync. Com 0 o lote é gravado assim que o anterior termina.
+     * @param limiteLog tamanho do log, em bytes, a partir do qual a árvore é compactada em um novo snapshot.
+     * @return a árvore recuperada.
+     * @throws IOException se os arquivos não puderem ser lidos ou o snapshot estiver corrompido.
+     */
+    public static ArvoreBinariadeBuscaDuravel abrir(Path pasta, Balanceamento balanceamento, long janelaMicros,
+            long limiteLog) throws IOException {
+        if (janelaMicros < 0) {
+            throw new IllegalArgumentException("Janela negativa: " + janelaMicros);
+        }
+        if (limiteLog <= 0 || limiteLog > LIMITE_LOG_MAXIMO) {
+            throw new IllegalArgumentException("Limite do log fora de (0, 1 GB]: " + limiteLog);
+        }
+        Files.createDirectories(pasta);
+        Path snapshot = pasta.resolve(SNAPSHOT);
+        ArvoreBinariadeBusca abb = Files.exists(snapshot) ? ArvoreBinariadeBusca.carregar(snapshot)
+                : new ArvoreBinariadeBusca(balanceamento);
+        FileChannel canal = FileChannel.open(pasta.resolve(LOG), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long fim = reaplicar(canal, abb);
+            canal.position(fim);
+            return new ArvoreBinariadeBuscaDuravel(pasta, abb, canal, fim,
+                    TimeUnit.MICROSECONDS.toNanos(janelaMicros), limiteLog);
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+    /**
+     * Aplica na árvore os lotes válidos do log e descarta o que vier depois do último deles.
+     * @return a posição do fim do último lote válido.
+     */
+    private static long reaplicar(FileChannel canal, ArvoreBinariadeBusca abb) throws IOException {
+        long tamanho = canal.size();
+        if (tamanho < 4) {
+            iniciarLog(canal);
+            return 4;
+        }
+        if (tamanho > Integer.MAX_VALUE) {
+            throw new IOException("Log grande demais para ser reaplicado");
+        }
+        ByteBuffer dados = ByteBuffer.allocate((int) tamanho);
+        while (dados.hasRemaining() && canal.read(dados, dados.position()) >= 0) {
+            //lê até o fim
+        }
+        //Pelo Buffer: os métodos de ByteBuffer que retornam o próprio tipo só existem a partir do Java 9.
+        ((Buffer) dados).flip();
+        if (dados.getInt() != MAGICO_LOG) {
+            throw new IOException("Não é um log de árvore: " + LOG);
+        }
+        CRC32 crc = new CRC32();
+        int fim = dados.position();
+        while (dados.remaining() >= 8) {
+            int comprimento = dados.getInt(fim);
+            if (comprimento < 4 || comprimento > dados.remaining() - 4) {
+                break;
+            }
+            crc.reset();
+            crc.update(dados.array(), fim, comprimento);
+            if ((int) crc.getValue() != dados.getInt(fim + comprimento)) {
+                break;
+            }
+            int posicao = fim + 4;
+            while (posicao < fim + comprimento) {
+                long registro = 0;
+                int b;
+                int deslocamento = 0;
+                do {
+                    b = dados.get(posicao++);
+                    registro |= (long) (b & 0x7F) << deslocamento;
+                    deslocamento += 7;
+                } while (b < 0);
+                int z = (int) (registro >>> 1);
+                int valor = (z >>> 1) ^ -(z & 1);
+                if ((registro & 1) == 0) {
+                    abb.inserir(valor);
+                } else {
+                    abb.remover(valor);
+                }
+            }
+            fim += comprimento + 4;
+            ((Buffer) dados).position(fim);
+        }
+        if (fim < tamanho) {
+            canal.truncate(fim);
+            canal.force(true);
+        }
+        return fim;
+    }
+    private static void iniciarLog(FileChannel canal) throws IOException {
+        canal.truncate(0);
+        ByteBuffer cabecalho = ByteBuffer.allocate(4).putInt(0, MAGICO_LOG);
+        while (cabecalho.hasRemaining()) {
+            canal.write(cabecalho, cabecalho.position());
+        }
+        canal.force(true);
+    }
+
+    /**
+     * Insere o valor e só retorna depois que a inserção estiver gravada no log.
+     * @return true se o valor foi inserido, false se já existia (e nada foi registrado).
+     * @throws UncheckedIOException se a gravação do log falhou; a árvore deixa de aceitar escritas.
+     */
+    public boolean inserir(int valor) {
+        return alterar(valor, false);
+    }
+    /**
+     * Remove o valor e só retorna depois que a remoção estiver gravada no log.
+     * @return true se o valor foi removido, false se não estava na árvore (e nada foi registrado).
+     * @throws UncheckedIOException se a gravação do log falhou; a árvore deixa de aceitar escritas.
+     */
+    public boolean remover(int valor) {
+        return alterar(valor, true);
+    }
+    private boolean alterar(int valor, boolean remocao) {
+        long meuLote;
+        synchronized (this) {
+            verificarEstado();
+            boolean alterou = remocao ? this.arvore.remover(valor) : this.arvore.inserir(valor);
+            if (!alterou) {
+                return false;
+            }
+            registrar((((valor << 1) ^ (valor >> 31)) & 0xFFFFFFFFL) << 1 | (remocao ? 1 : 0));
+            meuLote = this.loteAtual;
+            notifyAll();
+        }
+        esperarLote(meuLote);
+        return true;
+    }
+    private void registrar(long registro) {
+        if (this.bytesNoLote + 5 > this.lote.length) {
+            this.lote = Arrays.copyOf(this.lote, this.lote.length * 2);
+        }
+        while (registro >= 0x80) {
+            this.lote[this.bytesNoLote++] = (byte) (registro | 0x80);
+            registro >>>= 7;
+        }
+        this.lote[this.bytesNoLote++] = (byte) registro;
+    }
+    private synchronized void esperarLote(long meuLote) {
+        boolean interrompida = false;
+        while (this.loteDuravel < meuLote && this.falha == null) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrompida = true;
+            }
+        }
+        if (interrompida) {
+            Thread.currentThread().interrupt();
+        }
+        if (this.loteDuravel < meuLote) {
+            throw new UncheckedIOException("Falha ao gravar o log", this.falha);
+        }
+    }
+    private void verificarEstado() {
+        if (this.falha != null) {
+            throw new UncheckedIOException("O log falhou; a árvore não aceita mais escritas", this.falha);
+        }
+        if (this.fechando) {
+            throw new IllegalStateException("Árvore fechada");
+        }
+    }
+
+    /**
+     * Laço da thread de gravação: espera um lote ter registros, espera a janela, grava e sincroniza o lote e
+     * libera as escritas que estavam nele. Ao fechar, grava o que estiver pendente antes de terminar.
+     *  Se a thread terminar por qualquer outro motivo (erro de E/S, exceção inesperada ou interrupção), a falha é
+     * registrada antes: as escritas à espera são liberadas com erro e as seguintes são recusadas, em vez de
+     * esperarem para sempre por um gravador que não existe mais.
+     */
+    private void gravarLotes() {
+        try {
+            while (true) {
+                synchronized (this) {
+                    while (this.bytesNoLote == 4 && !this.fechando) {
+                        wait();
+                    }
+                    if (this.bytesNoLote == 4) {
+                        return;
+                    }
+                }
+                if (this.janelaNanos > 0) {
+                    LockSupport.parkNanos(this.janelaNanos);
+                }
+                synchronized (this.travaCanal) {
+                    byte[] dados;
+                    int comprimento;
+                    long numero;
+                    synchronized (this) {
+                        dados = this.lote;
+                        comprimento = this.bytesNoLote;
+                        numero = this.loteAtual;
+                        this.lote = this.reserva;
+                        this.bytesNoLote = 4;
+                        this.loteAtual++;
+                    }
+                    gravar(dados, comprimento);
+                    synchronized (this) {
+                        this.reserva = dados;
+                        this.loteDuravel = numero;
+                        this.tamanhoLog += comprimento + 4;
+                        notifyAll();
+                    }
+                    if (this.tamanhoLog > this.limiteLog) {
+                        compactarComCanal();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            falhar(e);
+        } catch (InterruptedException e) {
+            falhar(new InterruptedIOException("Gravador do log interrompido"));
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException | Error e) {
+            falhar(new IOException("Gravador do log terminou com erro", e));
+            throw e;
+        }
+    }
+    private synchronized void falhar(IOException e) {
+        this.falha = e;
+        notifyAll();
+    }
+    /**
+     * Grava um lote no fim do log: o comprimento já tem espaço reservado nos 4 primeiros bytes, e o CRC32 vai
+     * no fim. Um único write e um único fsync por lote.
+     */
+    private void gravar(byte[] dados, int comprimento) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(dados, 0, comprimento);
+        buffer.putInt(0, comprimento);
+        CRC32 crc = new CRC32();
+        crc.update(dados, 0, comprimento);
+        ByteBuffer fim = ByteBuffer.allocate(4).putInt(0, (int) crc.getValue());
+        ByteBuffer[] partes = {buffer, fim};
+        while (fim.hasRemaining()) {
+            this.canal.write(partes);
+        }
+        this.canal.force(false);
+    }
+
+    /**
+     * Salva a árvore atual como snapshot e esvazia o log. As escritas esperam a compactação terminar.
+     * @throws IOException se o snapshot ou o log não puderem ser gravados.
+     */
+    public void compactar() throws IOException {
+        synchronized (this.travaCanal) {
+            compactarComCanal();
+        }
+    }
+    private void compactarComCanal() throws IOException {
+        synchronized (this) {
+            this.arvore.salvar(this.pasta.resolve(SNAPSHOT), false);
+            sincronizarPasta(this.pasta);
+            iniciarLog(this.canal);
+            this.canal.position(4);
+            this.tamanhoLog = 4;
+        }
+    }
+    /**
+     * Sincroniza a entrada da pasta, para que a troca de {@value #SNAPSHOT} feita pelo Files.move sobreviva a uma
+     * queda antes de o log ser esvaziado. Em sistemas que não abrem pastas como arquivo (como o Windows), não há
+     * o que sincronizar por aqui.
+     */
+    private static void sincronizarPasta(Path pasta) throws IOException {
+        FileChannel canalPasta;
+        try {
+            canalPasta = FileChannel.open(pasta, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return;
+        }
+        try (FileChannel c = canalPasta) {
+            c.force(true);
+        }
+    }
+
+    /**
+     * Grava o que estiver pendente, para a thread de gravação e fecha o log. Depois disso as escritas lançam
+     * {@link IllegalStateException}.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            this.fechando = true;
+            notifyAll();
+        }
+        boolean interrompida = false;
+        while (this.gravador.isAlive()) {
+            try {
+                this.gravador.join();
+            } catch (InterruptedException e) {
+                interrompida = true;
+            }
+        }
+        if (interrompida) {
+            Thread.currentThread().interrupt();
+        }
+        this.canal.close();
+        synchronized (this) {
+            if (this.falha != null) {
+                throw this.falha;
+            }
+        }
+    }
+
+    /**
+     * Tamanho atual do log, em bytes, incluindo o cabeçalho.
+     */
+    public synchronized long getTamanhoLog() {
+        return this.tamanhoLog;
+    }
+
+    // As leituras não passam pelo log.
+    public boolean contains(int valor) {
+        return this.arvore.contains(valor);
+    }
+    public int posicao(int valor) {
+        return this.arvore.posicao(valor);
+    }
+    public Integer enesimoElemento(int n) {
+        return this.arvore.enesimoElemento(n);
+    }
+    public Integer mediana() {
+        return this.arvore.mediana();
+    }
+    public int getTamanho() {
+        return this.arvore.getTamanho();
+    }
+    public int getAltura() {
+        return this.arvore.getAltura();
+    }
+    public String emOrdem() {
+        return this.arvore.emOrdem();
+    }
+    public Instantaneo snapshot() {
+        return this.arvore.snapshot();
+    }
+}
@@ -0,0 +1,653 @@
+package com.edb2;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ *  Árvore dividida por faixas de valores em fragmentos independentes, cada um uma
+ * {@link ArvoreBinariadeBuscaConcorrente} com a sua própria thread de escrita. Escritas em faixas diferentes
+ * não disputam a mesma trava nem as mesmas linhas de cache, e as leituras continuam otimistas dentro de cada
+ * fragmento.
+ *
+ *  Os limites entre os fragmentos são os quantis de uma amostra dos valores esperados. O fragmento i guarda os
+ * valores de [limites[i - 1], limites[i]), com o primeiro começando em {@link Integer#MIN_VALUE} e o último
+ * terminando em {@link Integer#MAX_VALUE}.
+ *
+ *  As escritas não mexem na árvore do fragmento: entram na fila dele e esperam a thread do fragmento aplicá-las.
+ * A thread esvazia a fila de uma vez e aplica cada sequência de inserções (ou de remoções) seguidas com um só
+ * {@link ArvoreBinariadeBuscaConcorrente#inserirTodos(int[])}, isto é, com uma só aquisição da trava exclusiva
+ * e a busca com dedo do lote. Quanto mais threads escrevem no mesmo fragmento, maiores ficam os lotes. A ordem
+ * das escritas de um fragmento é a ordem em que entraram na fila.
+ *
+ *  As consultas globais juntam as respostas dos fragmentos: a posição de um valor é a posição dentro do seu
+ * fragmento mais os tamanhos dos fragmentos anteriores, e {@link #enesimoElemento(int)} e {@link #mediana()}
+ * descontam os tamanhos até chegar ao fragmento da posição pedida. O percurso em ordem emenda os percursos dos
+ * fragmentos, um depois do outro. Cada fragmento responde de forma consistente, mas com escritas concorrentes
+ * os tamanhos de fragmentos diferentes podem ser de instantes um pouco diferentes; sem escritas em andamento,
+ * as respostas são exatas.
+ *
+ *  Rebalanceamento: se os valores inseridos não seguem a amostra, um fragmento cresce mais que os outros. A
+ * cada {@value #VERIFICAR_A_CADA} escritas aplicadas, a thread do fragmento compara o tamanho dele com a média;
+ * passando de {@value #FATOR_DESEQUILIBRIO} vezes a média, a próxima escrita que terminar chama
+ * {@link #rebalancear()}. O rebalanceamento para as escritas e as consultas, espera as filas esvaziarem, escolhe
+ * novos limites pelos quantis dos valores atuais e remonta os fragmentos em lote, em O(n).
+ */
+public class ArvoreBinariadeBuscaFragmentada implements Closeable {
+    private static final int VERIFICAR_A_CADA = 4096;
+    private static final int FATOR_DESEQUILIBRIO = 2;
+    private static final int TAMANHO_MINIMO_DESEQUILIBRIO = 1024;
+
+    private final Balanceamento balanceamento;
+    /**
+     * Trava da partição: o rebalanceamento e o fechamento usam o modo exclusivo; as consultas leem de forma
+     * otimista e as escritas só esperam pelo modo de leitura quando encontram um fragmento aposentado.
+     */
+    private final StampedLock trava = new StampedLock();
+    private final AtomicBoolean rebalanceamentoPendente = new AtomicBoolean();
+    private volatile Particao particao;
+    private volatile boolean fechada;
+    private volatile int rebalanceamentos;
+
+    /**
+     * Cria a árvore vazia, com os limites escolhidos pelos quantis da amostra.
+     * @param fragmentos quantidade de fragmentos (e de threads de escrita).
+     * @param amostra valores com a distribuição esperada; o vetor não é alterado.
+     * @param balanceamento a estratégia de cada fragmento.
+     * @throws IllegalArgumentException se a amostra tiver menos valores distintos que fragmentos.
+     */
+    public ArvoreBinariadeBuscaFragmentada(int fragmentos, int[] amostra, Balanceamento balanceamento) {
+        if (fragmentos < 1) {
+            throw new IllegalArgumentException("A quantidade de fragmentos deve ser positiva: " + fragmentos);
+        }
+        int[] ordenada = amostra.clone();
+        Arrays.sort(ordenada);
+        int distintos = ArvoreBinariadeBusca.descartarRepetidos(ordenada);
+        if (distintos < fragmentos) {
+            throw new IllegalArgumentException(
+                    "A amostra tem " + distintos + " valores distintos para " + fragmentos + " fragmentos");
+        }
+        this.balanceamento = balanceamento;
+        this.particao = dividir(new int[0], quantis(ordenada, distintos, fragmentos));
+    }
+
+    /**
+     * Os fragmentos na ordem dos valores e os limites entre eles. Imutável: o rebalanceamento cria outra.
+     */
+    private static final class Particao {
+        final int[] limites;
+        final Fragmento[] fragmentos;
+
+        Particao(int[] limites, Fragmento[] fragmentos) {
+            this.limites = limites;
+            this.fragmentos = fragmentos;
+        }
+
+        /**
+         * Índice do fragmento do valor: a quantidade de limites menores ou iguais a ele.
+         */
+        int indice(int valor) {
+            int inicio = 0;
+            int fim = this.limites.length;
+            while (inicio < fim) {
+                int meio = (inicio + fim) >>> 1;
+                if (this.limites[meio] <= valor) {
+                    inicio = meio + 1;
+                } else {
+                    fim = meio;
+                }
+            }
+            return inicio;
+        }
+    }
+
+    /**
+     * Escritas de uma chamada para um fragmento: a thread do fragmento completa o resultado com os índices de
+     * valores que alteraram a árvore.
+     */
+    private static final class Pedido {
+        final boolean remocao;
+        final int[] valores;
+        final CompletableFuture<BitSet> resultado = new CompletableFuture<>();
+
+        Pedido(boolean remocao, int[] valores) {
+            this.remocao = remocao;
+            this.valores = valores;
+        }
+    }
+
+    private final class Fragmento {
+        final ArvoreBinariadeBuscaConcorrente arvore;
+        private final Thread escritor;
+        // Estado protegido pela trava do objeto.
+        private ArrayDeque<Pedido> fila = new ArrayDeque<>();
+        private boolean aposentado;
+        // Só usado pela thread do fragmento.
+        private int aplicadasDesdeVerificacao;
+
+        Fragmento(ArvoreBinariadeBusca abb, int indice) {
+            this.arvore = new ArvoreBinariadeBuscaConcorrente(abb);
+            this.escritor = new Thread(this::aplicarPedidos, "fragmento-" + indice);
+            this.escritor.setDaemon(true);
+        }
+
+        /**
+         * Põe o pedido na fila, a menos que o fragmento já tenha sido aposentado por um rebalanceamento ou pelo
+         * fechamento.
+         * @return se o pedido entrou na fila.
+         */
+        synchronized boolean enfileirar(Pedido pedido) {
+            if (this.aposentado) {
+                return false;
+            }
+            this.fila.add(pedido);
+            if (this.fila.size() == 1) {
+                notifyAll();
+            }
+            return true;
+        }
+        /**
+         * Não aceita mais pedidos e espera a thread aplicar os que já estão na fila.
+         */
+        void aposentar() {
+            synchronized (this) {
+                this.aposentado = true;
+                notifyAll();
+            }
+            boolean interrompida = false;
+            while (this.escritor.isAlive()) {
+                try {
+                    this.escritor.join();
+                } catch (InterruptedException e) {
+                    interrompida = true;
+                }
+            }
+            if (interrompida) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void aplicarPedidos() {
+            ArrayDeque<Pedido> lote = new ArrayDeque<>();
+            while (true) {
+                synchronized (this) {
+                    while (this.fila.isEmpty() && !this.aposentado) {
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            //Só sai pela aposentadoria, para não perder pedidos já aceitos.
+                        }
+                    }
+                    if (this.fila.isEmpty()) {
+                        return;
+                    }
+                    ArrayDeque<Pedido> cheia = this.fila;
+                    this.fila = lote;
+                    lote = cheia;
+                }
+                while (!lote.isEmpty()) {
+                    aplicarSequencia(lote);
+                }
+                if (this.aplicadasDesdeVerificacao >= VERIFICAR_A_CADA) {
+                    this.aplicadasDesdeVerificacao = 0;
+                    verificarEquilibrio();
+                }
+            }
+        }
+        /**
+         * Aplica, com um só lote na árvore, os pedidos do começo da fila que são do mesmo tipo do primeiro.
+         */
+        private void aplicarSequencia(ArrayDeque<Pedido> lote) {
+            boolean remocao = lote.peekFirst().remocao;
+            List<Pedido> sequencia = new ArrayList<>();
+            int total = 0;
+            while (!lote.isEmpty() && lote.peekFirst().remocao == remocao) {
+                Pedido pedido = lote.pollFirst();
+                sequencia.add(pedido);
+                total += pedido.valores.length;
+            }
+            try {
+                int[] valores = new int[total];
+                int i = 0;
+                for (Pedido pedido : sequencia) {
+                    System.arraycopy(pedido.valores, 0, valores, i, pedido.valores.length);
+                    i += pedido.valores.length;
+                }
+                BitSet alterados = remocao ? this.arvore.removerTodos(valores) : this.arvore.inserirTodos(valores);
+                i = 0;
+                for (Pedido pedido : sequencia) {
+                    pedido.resultado.complete(alterados.get(i, i + pedido.valores.length));
+                    i += pedido.valores.length;
+                }
+            } catch (RuntimeException | Error e) {
+                for (Pedido pedido : sequencia) {
+                    pedido.resultado.completeExceptionally(e);
+                }
+            }
+            this.aplicadasDesdeVerificacao += total;
+        }
+        private void verificarEquilibrio() {
+            Fragmento[] fragmentos = ArvoreBinariadeBuscaFragmentada.this.particao.fragmentos;
+            long total = 0;
+            for (Fragmento fragmento : fragmentos) {
+                total += fragmento.arvore.getTamanho();
+            }
+            int tamanho = this.arvore.getTamanho();
+            if (tamanho >= TAMANHO_MINIMO_DESEQUILIBRIO
+                    && (long) tamanho * fragmentos.length > FATOR_DESEQUILIBRIO * total) {
+                ArvoreBinariadeBuscaFragmentada.this.rebalanceamentoPendente.set(true);
+            }
+        }
+    }
+
+    /**
+     * Insere o valor e espera a thread do fragmento aplicar a inserção.
+     * @return se o valor foi inserido (false se ele já estava na árvore).
+     * @throws IllegalStateException se a árvore já tiver sido fechada.
+     */
+    public boolean inserir(int valor) {
+        return escrever(false, valor);
+    }
+    /**
+     * Remove o valor e espera a thread do fragmento aplicar a remoção.
+     * @return se o valor foi removido (false se ele não estava na árvore).
+     * @throws IllegalStateException se a árvore já tiver sido fechada.
+     */
+    public boolean remover(int valor) {
+        return escrever(true, valor);
+    }
+    /**
+     * Insere um lote de valores, repartido entre os fragmentos, que o aplicam em paralelo.
+     * @param valores os valores a serem inseridos, em qualquer ordem; o vetor não é alterado.
+     * @return os índices de valores que foram de fato inseridos, como em
+     *         {@link ArvoreBinariadeBusca#inserirTodos(int[])}.
+     */
+    public BitSet inserirTodos(int[] valores) {
+        return escreverTodos(false, valores);
+    }
+    /**
+     * Remove um lote de valores, repartido entre os fragmentos, que o aplicam em paralelo.
+     * @param valores os valores a serem removidos, em qualquer ordem; o vetor não é alterado.
+     * @return os índices de valores que foram de fato removidos.
+     */
+    public BitSet removerTodos(int[] valores) {
+        return escreverTodos(true, valores);
+    }
+
+    private boolean escrever(boolean remocao, int valor) {
+        Pedido pedido = new Pedido(remocao, new int[] {valor});
+        Particao p = this.particao;
+        while (!p.fragmentos[p.indice(valor)].enfileirar(pedido)) {
+            esperarParticao();
+            p = this.particao;
+        }
+        boolean alterou = esperar(pedido).get(0);
+        rebalancearSePendente();
+        return alterou;
+    }
+    private BitSet escreverTodos(boolean remocao, int[] valores) {
+        int[] indices = new int[valores.length];
+        Arrays.setAll(indices, i -> i);
+        BitSet alterados = new BitSet(valores.length);
+        escreverTodos(remocao, valores, indices, alterados);
+        rebalancearSePendente();
+        return alterados;
+    }
+    /**
+     * Reparte os valores pelos fragmentos da partição atual e espera todos os pedidos. Os que encontram um
+     * fragmento aposentado são repartidos de novo depois do rebalanceamento, pelos limites novos.
+     * @param indices a posição de cada valor no lote original, para marcar em alterados.
+     */
+    private void escreverTodos(boolean remocao, int[] valores, int[] indices, BitSet alterados) {
+        Particao p = this.particao;
+        int q = p.fragmentos.length;
+        int[] destino = new int[valores.length];
+        int[] contagem = new int[q + 1];
+        for (int i = 0; i < valores.length; i++) {
+            destino[i] = p.indice(valores[i]);
+            contagem[destino[i] + 1]++;
+        }
+        for (int f = 0; f < q; f++) {
+            contagem[f + 1] += contagem[f];
+        }
+        int[] agrupados = new int[valores.length];
+        int[] indicesAgrupados = new int[valores.length];
+        int[] proximo = Arrays.copyOf(contagem, q);
+        for (int i = 0; i < valores.length; i++) {
+            int j = proximo[destino[i]]++;
+            agrupados[j] = valores[i];
+            indicesAgrupados[j] = indices[i];
+        }
+        Pedido[] pedidos = new Pedido[q];
+        boolean recusado = false;
+        for (int f = 0; f < q; f++) {
+            if (contagem[f] < contagem[f + 1]) {
+                pedidos[f] = new Pedido(remocao, Arrays.copyOfRange(agrupados, contagem[f], contagem[f + 1]));
+                if (!p.fragmentos[f].enfileirar(pedidos[f])) {
+                    pedidos[f] = null;
+                    recusado = true;
+                }
+            }
+        }
+        for (int f = 0; f < q; f++) {
+            if (pedidos[f] != null) {
+                BitSet resultado = esperar(pedidos[f]);
+                for (int i = resultado.nextSetBit(0); i >= 0; i = resultado.nextSetBit(i + 1)) {
+                    alterados.set(indicesAgrupados[contagem[f] + i]);
+                }
+            }
+        }
+        if (recusado) {
+            esperarParticao();
+            int n = 0;
+            for (int f = 0; f < q; f++) {
+                if (pedidos[f] == null) {
+                    int tamanho = contagem[f + 1] - contagem[f];
+                    System.arraycopy(agrupados, contagem[f], agrupados, n, tamanho);
+                    System.arraycopy(indicesAgrupados, contagem[f], indicesAgrupados, n, tamanho);
+                    n += tamanho;
+                }
+            }
+            escreverTodos(remocao, Arrays.copyOf(agrupados, n), Arrays.copyOf(indicesAgrupados, n), alterados);
+        }
+    }
+    private static BitSet esperar(Pedido pedido) {
+        try {
+            return pedido.resultado.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+    /**
+     * Espera o rebalanceamento (ou o fechamento) que aposentou um fragmento terminar.
+     */
+    private void esperarParticao() {
+        long carimbo = this.trava.readLock();
+        this.trava.unlockRead(carimbo);
+        verificarAberta();
+    }
+    private void verificarAberta() {
+        if (this.fechada) {
+            throw new IllegalStateException("A árvore fragmentada já foi fechada");
+        }
+    }
+    private void rebalancearSePendente() {
+        if (this.rebalanceamentoPendente.get() && this.rebalanceamentoPendente.compareAndSet(true, false)) {
+            remontar();
+        }
+    }
+
+    /**
+     * Escolhe novos limites pelos quantis dos valores atuais e remonta os fragmentos, que ficam com tamanhos
+     * iguais (a menos de um). Escritas e consultas esperam até o fim; as escritas já enfileiradas são aplicadas
+     * antes da remontagem.
+     * @throws IllegalStateException se a árvore já tiver sido fechada.
+     */
+    public void rebalancear() {
+        if (!remontar()) {
+            verificarAberta();
+        }
+    }
+    /**
+     * @return false se a árvore já estava fechada e nada foi feito.
+     */
+    private boolean remontar() {
+        long carimbo = this.trava.writeLock();
+        try {
+            if (this.fechada) {
+                return false;
+            }
+            Particao antiga = this.particao;
+            aposentar(antiga);
+            int q = antiga.fragmentos.length;
+            int[][] partes = new int[q][];
+            int total = 0;
+            for (int f = 0; f < q; f++) {
+                partes[f] = antiga.fragmentos[f].arvore.arvore().paraVetor();
+                total += partes[f].length;
+            }
+            //Os fragmentos cobrem faixas disjuntas e em ordem, então as partes emendadas já estão ordenadas.
+            int[] ordenados = new int[total];
+            int i = 0;
+            for (int[] parte : partes) {
+                System.arraycopy(parte, 0, ordenados, i, parte.length);
+                i += parte.length;
+            }
+            int[] limites = total < q ? antiga.limites : quantis(ordenados, total, q);
+            this.particao = dividir(ordenados, limites);
+            this.rebalanceamentos++;
+            return true;
+        } finally {
+            this.trava.unlockWrite(carimbo);
+        }
+    }
+    /**
+     * Os q - 1 valores que dividem os n primeiros de ordenados em q partes de tamanhos iguais (a menos de um).
+     */
+    private static int[] quantis(int[] ordenados, int n, int q) {
+        int[] limites = new int[q - 1];
+        for (int f = 1; f < q; f++) {
+            limites[f - 1] = ordenados[(int) ((long) f * n / q)];
+        }
+        return limites;
+    }
+    /**
+     * Cria os fragmentos dos limites dados já com os valores de cada faixa e inicia as threads deles.
+     * @param ordenados os valores, em ordem estritamente crescente.
+     */
+    private Particao dividir(int[] ordenados, int[] limites) {
+        Fragmento[] fragmentos = new Fragmento[limites.length + 1];
+        int inicio = 0;
+        for (int f = 0; f < fragmentos.length; f++) {
+            int fim = f < limites.length ? inicioDe(ordenados, limites[f]) : ordenados.length;
+            int[] faixa = Arrays.copyOfRange(ordenados, inicio, fim);
+            fragmentos[f] = new Fragmento(ArvoreBinariadeBusca.construirOrdenada(faixa, faixa.length,
+                    this.balanceamento), f);
+            inicio = fim;
+        }
+        for (Fragmento fragmento : fragmentos) {
+            fragmento.escritor.start();
+        }
+        return new Particao(limites, fragmentos);
+    }
+    /**
+     * Índice do primeiro valor maior ou igual ao limite.
+     */
+    private static int inicioDe(int[] ordenados, int limite) {
+        int i = Arrays.binarySearch(ordenados, limite);
+        return i >= 0 ? i : -i - 1;
+    }
+    private static void aposentar(Particao particao) {
+        for (Fragmento fragmento : particao.fragmentos) {
+            fragmento.aposentar();
+        }
+    }
+
+    /**
+     * Faz a consulta sobre a partição atual de forma otimista, refazendo-a com a trava de leitura se um
+     * rebalanceamento começou no meio.
+     */
+    private <T> T ler(Supplier<T> leitura) {
+        long carimbo = this.trava.tryOptimisticRead();
+        if (carimbo != 0) {
+            T resultado = leitura.get();
+            if (this.trava.validate(carimbo)) {
+                return resultado;
+            }
+        }
+        carimbo = this.trava.readLock();
+        try {
+            return leitura.get();
+        } finally {
+            this.trava.unlockRead(carimbo);
+        }
+    }
+
+    public boolean contains(int valor) {
+        return ler(() -> {
+            Particao p = this.particao;
+            return p.fragmentos[p.indice(valor)].arvore.contains(valor);
+        });
+    }
+    /**
+     * Posição do valor na ordem simétrica de todos os fragmentos (a primeira é 1), ou -1 se ele não estiver na
+     * árvore.
+     */
+    public int posicao(int valor) {
+        return ler(() -> {
+            Particao p = this.particao;
+            int f = p.indice(valor);
+            int posicao = p.fragmentos[f].arvore.posicao(valor);
+            if (posicao == -1) {
+                return -1;
+            }
+            for (int anterior = 0; anterior < f; anterior++) {
+                posicao += p.fragmentos[anterior].arvore.getTamanho();
+            }
+            return posicao;
+        });
+    }
+    public int getTamanho() {
+        return ler(() -> {
+            int total = 0;
+            for (Fragmento fragmento : this.particao.fragmentos) {
+                total += fragmento.arvore.getTamanho();
+            }
+            return total;
+        });
+    }
+    /**
+     * Valor na posição n da ordem simétrica de todos os fragmentos (a primeira é 1), ou null se a posição
+     * estiver fora dos limites.
+     */
+    public Integer enesimoElemento(int n) {
+        return ler(() -> enesimoNaParticao(n));
+    }
+    /**
+     * Mediana dos valores (o menor dos dois centrais se o tamanho for par), ou null se a árvore estiver vazia.
+     */
+    public Integer mediana() {
+        return ler(() -> {
+            int total = 0;
+            for (Fragmento fragmento : this.particao.fragmentos) {
+                total += fragmento.arvore.getTamanho();
+            }
+            return enesimoNaParticao((total + 1) / 2);
+        });
+    }
+    private Integer enesimoNaParticao(int n) {
+        if (n < 1) {
+            return null;
+        }
+        int restante = n;
+        for (Fragmento fragmento : this.particao.fragmentos) {
+            int tamanho = fragmento.arvore.getTamanho();
+            if (restante <= tamanho) {
+                return fragmento.arvore.enesimoElemento(restante);
+            }
+            restante -= tamanho;
+        }
+        return null;
+    }
+    public String emOrdem() {
+        StringBuilder s = new StringBuilder();
+        paraCada(v -> s.append(s.length() == 0 ? "" : " ").append(v));
+        return s.toString();
+    }
+    /**
+     * Entrega ao consumidor todos os valores em ordem crescente, fragmento por fragmento, como em
+     * {@link ArvoreBinariadeBuscaConcorrente#paraCada(IntConsumer)}.
+     */
+    public void paraCada(IntConsumer consumidor) {
+        PrimitiveIterator.OfInt it = iterador();
+        while (it.hasNext()) {
+            consumidor.accept(it.nextInt());
+        }
+    }
+    /**
+     * Iterador em ordem crescente que emenda os iteradores dos fragmentos. Ele segue a partição do momento em
+     * que foi criado: se um rebalanceamento acontecer no meio, o restante do percurso é o dos fragmentos antigos,
+     * que não mudam mais depois de aposentados.
+     */
+    public PrimitiveIterator.OfInt iterador() {
+        Fragmento[] fragmentos = this.particao.fragmentos;
+        return new PrimitiveIterator.OfInt() {
+            private int proximo = 1;
+            private PrimitiveIterator.OfInt atual = fragmentos[0].arvore.iterador();
+
+            @Override
+            public boolean hasNext() {
+                while (!this.atual.hasNext()) {
+                    if (this.proximo == fragmentos.length) {
+                        return false;
+                    }
+                    this.atual = fragmentos[this.proximo++].arvore.iterador();
+                }
+                return true;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return this.atual.nextInt();
+            }
+        };
+    }
+
+    /**
+     * Quantidade de rebalanceamentos feitos desde a criação.
+     */
+    public int getRebalanceamentos() {
+        return this.rebalanceamentos;
+    }
+    /**
+     * Tamanho de cada fragmento, na ordem dos valores.
+     */
+    int[] tamanhosDosFragmentos() {
+        return ler(() -> {
+            Fragmento[] fragmentos = this.particao.fragmentos;
+            int[] tamanhos = new int[fragmentos.length];
+            for (int f = 0; f < fragmentos.length; f++) {
+                tamanhos[f] = fragmentos[f].arvore.getTamanho();
+            }
+            return tamanhos;
+        });
+    }
+
+    /**
+     * Aplica as escritas já enfileiradas e encerra as threads dos fragmentos. As consultas continuam
+     * respondendo; novas escritas lançam {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        long carimbo = this.trava.writeLock();
+        try {
+            if (this.fechada) {
+                return;
+            }
+            this.fechada = true;
+            aposentar(this.particao);
+        } finally {
+            this.trava.unlockWrite(carimbo);
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.edb2;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ *  Árvore binária de busca com costura para chaves de qualquer tipo, ordenadas por um {@link Comparator}, com um
+ * valor opcional associado a cada chave (o que a torna um mapa ordenado). A estrutura é a mesma da
+ * {@link ArvoreBinariadeBusca}: costuras para o antecessor e o sucessor, ponteiro de pai, tamanho e altura de cada
+ * sub-árvore, e o balanceamento AVL opcional; as estatísticas de ordem (posicao, enesimoElemento, mediana) são O(h).
+ *
+ *  Para chaves long ou double, use {@link ArvoreCosturadaLong} ou {@link ArvoreCosturadaDouble}, que não
+ * encaixotam as chaves.
+ * @param <K> o tipo das chaves.
+ * @param <V> o tipo dos valores associados.
+ */
+public class ArvoreCosturada<K, V> extends EstruturaCosturada<ArvoreCosturada.Entrada<K, V>> {
+    private final Comparator<? super K> comparador;
+
+    /**
+     * Cria uma árvore vazia que ordena as chaves com o comparador dado.
+     * @param comparador a ordem das chaves.
+     * @param balanceamento a estratégia de balanceamento da árvore.
+     */
+    public ArvoreCosturada(Comparator<? super K> comparador, Balanceamento balanceamento) {
+        super(balanceamento);
+        this.comparador = Objects.requireNonNull(comparador);
+    }
+    /**
+     * Cria uma árvore vazia que ordena as chaves pela sua ordem natural.
+     * @param balanceamento a estratégia de balanceamento da árvore.
+     * @return a árvore vazia.
+     */
+    public static <K extends Comparable<? super K>, V> ArvoreCosturada<K, V> naturais(Balanceamento balanceamento) {
+        return new ArvoreCosturada<>(Comparator.<K>naturalOrder(), balanceamento);
+    }
+
+    public Comparator<? super K> getComparador() {
+        return this.comparador;
+    }
+
+    /**
+     * Busca a entrada com a chave dada.
+     * @param chave a chave a ser pesquisada.
+     * @return a entrada, ou null se a chave não estiver na árvore.
+     */
+    public Entrada<K, V> buscar(K chave) {
+        Entrada<K, V> no = this.raiz;
+        while (no != null) {
+            int c = this.comparador.compare(chave, no.chave);
+            if (c < 0) {
+                no = no.costuraEsquerda ? null : no.esquerda;
+            } else if (c > 0) {
+                no = no.costuraDireita ? null : no.direita;
+            } else {
+                return no;
+            }
+        }
+        return null;
+    }
+    public boolean contains(K chave) {
+        return buscar(chave) != null;
+    }
+    /**
+     * Retorna o valor associado à chave, ou null se a chave não estiver na árvore.
+     */
+    public V obter(K chave) {
+        Entrada<K, V> no = buscar(chave);
+        return no == null ? null : no.valor;
+    }
+    /**
+     * Insere a chave sem valor associado. Uma chave não pode ser inserida se já existir na árvore.
+     * @param chave a chave a ser inserida.
+     * @return true se a chave foi inserida, false se já existia.
+     */
+    public boolean inserir(K chave) {
+        return inserir(chave, null) == null;
+    }
+    /**
+     * Associa o valor à chave, inserindo a chave se ela ainda não existir.
+     * @param chave a chave.
+     * @param valor o valor a ser associado.
+     * @return o valor que estava associado à chave, ou null se a chave não existia.
+     */
+    public V associar(K chave, V valor) {
+        Entrada<K, V> existente = inserir(chave, valor);
+        if (existente == null) {
+            return null;
+        }
+        V anterior = existente.valor;
+        existente.valor = valor;
+        return anterior;
+    }
+    /**
+     * Desce até a chave; se ela não existir, pendura uma nova folha com o valor dado.
+     * @return a entrada que já existia com a chave, ou null se uma nova foi inserida.
+     */
+    private Entrada<K, V> inserir(K chave, V valor) {
+        if (this.raiz == null) {
+            this.comparador.compare(chave, chave); // recusa chaves que o comparador não aceita, como faz o TreeMap
+            inserirRaiz(new Entrada<>(chave, valor));
+            return null;
+        }
+        Entrada<K, V> no = this.raiz;
+        while (true) {
+            int c = this.comparador.compare(chave, no.chave);
+            if (c < 0) {
+                if (no.costuraEsquerda) {
+                    inserirEsquerda(no, new Entrada<>(chave, valor));
+                    return null;
+                }
+                no = no.esquerda;
+            } else if (c > 0) {
+                if (no.costuraDireita) {
+                    inserirDireita(no, new Entrada<>(chave, valor));
+                    return null;
+                }
+                no = no.direita;
+            } else {
+                return no;
+            }
+        }
+    }
+    /**
+     * Remove a chave (e o seu valor) da árvore. Caso a chave não esteja na árvore, não faz nada.
+     * @param chave a chave a ser removida.
+     * @return true se a chave foi removida, false caso contrário.
+     */
+    public boolean remover(K chave) {
+        Entrada<K, V> no = buscar(chave);
+        if (no == null) {
+            return false;
+        }
+        remover(no);
+        return true;
+    }
+    @Override
+    void copiar(Entrada<K, V> destino, Entrada<K, V> origem) {
+        destino.chave = origem.chave;
+        destino.valor = origem.valor;
+    }
+
+    /**
+     * Retorna a entrada com a menor chave maior que a dada (ou igual, se inclusivo), ou null se não houver.
+     */
+    Entrada<K, V> teto(K chave, boolean inclusivo) {
+        Entrada<K, V> teto = null;
+        Entrada<K, V> no = this.raiz;
+        while (no != null) {
+            int c = this.comparador.compare(chave, no.chave);
+            if (c == 0 && inclusivo) {
+                return no;
+            }
+            if (c < 0) {
+                teto = no;
+                no = no.costuraEsquerda ? null : no.esquerda;
+            } else {
+                no = no.costuraDireita ? null : no.direita;
+            }
+        }
+        return teto;
+    }
+    /**
+     * Retorna a entrada com a maior chave menor que a dada (ou igual, se inclusivo), ou null se não houver.
+     */
+    Entrada<K, V> piso(K chave, boolean inclusivo) {
+        Entrada<K, V> piso = null;
+        Entrada<K, V> no = this.raiz;
+        while (no != null) {
+            int c = this.comparador.compare(chave, no.chave);
+            if (c == 0 && inclusivo) {
+                return no;
+            }
+            if (c > 0) {
+                piso = no;
+                no = no.costuraDireita ? null : no.direita;
+            } else {
+                no = no.costuraEsquerda ? null : no.esquerda;
+            }
+        }
+        return piso;
+    }
+    /**
+     * Retorna uma visão da árvore como {@link java.util.NavigableMap}, para ser usada no lugar de um TreeMap.
+     * As alterações feitas pela visão ou pela árvore aparecem nas duas.
+     * @return a visão da árvore como mapa navegável.
+     */
+    public MapaNavegavel<K, V> comoMapa() {
+        return new MapaNavegavel<>(this);
+    }
+
+    /**
+     * Posição da chave na ordem simétrica (a partir de 1), ou -1 se a chave não estiver na árvore.
+     */
+    public int posicao(K chave) {
+        int pos = 0;
+        Entrada<K, V> no = this.raiz;
+        while (no != null) {
+            int c = this.comparador.compare(chave, no.chave);
+            if (c < 0) {
+                no = no.costuraEsquerda ? null : no.esquerda;
+            } else if (c > 0) {
+                pos += tamanhoEsquerda(no) + 1;
+                no = no.costuraDireita ? null : no.direita;
+            } else {
+                return pos + tamanhoEsquerda(no) + 1;
+            }
+        }
+        return -1;
+    }
+    /**
+     * Chave na posição n da ordem simétrica, ou null se a posição estiver fora dos limites.
+     */
+    public K enesimoElemento(int n) {
+        Entrada<K, V> no = enesimo(n);
+        return no == null ? null : no.chave;
+    }
+    /**
+     * Entrada na posição n da ordem simétrica, ou null se a posição estiver fora dos limites.
+     */
+    public Entrada<K, V> enesimaEntrada(int n) {
+        return enesimo(n);
+    }
+    /**
+     * Chave da mediana (a menor das duas centrais se o tamanho for par), ou null se a árvore estiver vazia.
+     */
+    public K mediana() {
+        Entrada<K, V> no = noMediana();
+        return no == null ? null : no.chave;
+    }
+    /**
+     * Menor chave da árvore, ou null se a árvore estiver vazia.
+     */
+    public K min() {
+        Entrada<K, V> no = primeiro();
+        return no == null ? null : no.chave;
+    }
+    /**
+     * Maior chave da árvore, ou null se a árvore estiver vazia.
+     */
+    public K max() {
+        Entrada<K, V> no = ultimo();
+        return no == null ? null : no.chave;
+    }
+    /**
+     * Entrada com a menor chave, ponto de partida para percorrer a árvore com {@link #sucessor(Entrada)}.
+     */
+    public Entrada<K, V> primeiraEntrada() {
+        return primeiro();
+    }
+    /**
+     * Entrada com a maior chave, ponto de partida para percorrer a árvore com {@link #antecessor(Entrada)}.
+     */
+    public Entrada<K, V> ultimaEntrada() {
+        return ultimo();
+    }
+    /**
+     * Sucessor da entrada em ordem simétrica, ou null se ela for a maior.
+     */
+    public static <K, V> Entrada<K, V> sucessor(Entrada<K, V> entrada) {
+        return EstruturaCosturada.sucessor(entrada);
+    }
+    /**
+     * Antecessor da entrada em ordem simétrica, ou null se ela for a menor.
+     */
+    public static <K, V> Entrada<K, V> antecessor(Entrada<K, V> entrada) {
+        return EstruturaCosturada.antecessor(entrada);
+    }
+    /**
+     * Entrega cada chave e o seu valor, em ordem simétrica, seguindo as costuras.
+     */
+    public void paraCada(BiConsumer<? super K, ? super V> consumidor) {
+        for (Entrada<K, V> no = primeiro(); no != null; no = sucessor(no)) {
+            consumidor.accept(no.chave, no.valor);
+        }
+    }
+    /**
+     * Retorna uma string com as chaves em ordem simétrica, separadas por espaço.
+     */
+    public String emOrdem() {
+        StringBuilder s = new StringBuilder();
+        for (Entrada<K, V> no = primeiro(); no != null; no = sucessor(no)) {
+            s.append(s.length() == 0 ? "" : " ").append(no.chave);
+        }
+        return s.toString();
+    }
+
+    /**
+     * Nó da árvore genérica: a chave, o valor associado e a estrutura de {@link NoCosturado}. É também a entrada
+     * do mapa ordenado; o valor pode ser trocado, a chave não.
+     * Uma remoção pode mover para esta entrada a chave e o valor do seu sucessor (como em
+     * {@link ArvoreBinariadeBusca#remover(int)}), então entradas guardadas não devem ser usadas depois de remoções.
+     */
+    public static final class Entrada<K, V> extends NoCosturado<Entrada<K, V>> implements Map.Entry<K, V> {
+        private K chave;
+        private V valor;
+
+        Entrada(K chave, V valor) {
+            this.chave = chave;
+            this.valor = valor;
+        }
+
+        @Override
+        public K getKey() {
+            return this.chave;
+        }
+        @Override
+        public V getValue() {
+            return this.valor;
+        }
+        @Override
+        public V setValue(V valor) {
+            V anterior = this.valor;
+            this.valor = valor;
+            return anterior;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return Objects.equals(this.chave, e.getKey()) && Objects.equals(this.valor, e.getValue());
+        }
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(this.chave) ^ Objects.hashCode(this.valor);
+        }
+        @Override
+        public String toString() {
+            return this.chave + "=" + this.valor;
+        }
+    }
+}
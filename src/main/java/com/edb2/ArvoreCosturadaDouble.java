@@ -0,0 +1,124 @@
+package com.edb2;
+
+import java.util.NoSuchElementException;
+import java.util.function.DoubleConsumer;
+
+/**
+ *  Árvore costurada com chaves double, sem encaixotar. As chaves são guardadas em uma {@link ArvoreCosturadaLong}
+ * depois de convertidas para um long que tem a mesma ordem: o padrão de bits do double, com os bits de magnitude
+ * invertidos quando o número é negativo. Assim toda comparação na descida é uma comparação de long.
+ *
+ *  A ordem é a de {@link Double#compare(double, double)}: -0.0 vem antes de 0.0 (são chaves diferentes) e NaN vem
+ * depois de todos os outros valores, inclusive do infinito positivo.
+ *
+ *  Como em {@link ArvoreCosturadaLong}, as consultas sem resposta lançam {@link NoSuchElementException}.
+ * @param <V> o tipo dos valores associados.
+ */
+public class ArvoreCosturadaDouble<V> {
+    private final ArvoreCosturadaLong<V> arvore;
+
+    public ArvoreCosturadaDouble(Balanceamento balanceamento) {
+        this.arvore = new ArvoreCosturadaLong<>(balanceamento);
+    }
+
+    /**
+     * Converte o double em um long com a mesma ordem de {@link Double#compare(double, double)}.
+     */
+    static long ordenavel(double chave) {
+        long bits = Double.doubleToLongBits(chave);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+    /**
+     * Inversa de {@link #ordenavel(double)}: a transformação só troca bits de magnitude conforme o sinal, que ela
+     * mesma preserva, então aplicá-la de novo desfaz a conversão.
+     */
+    static double real(long ordenavel) {
+        return Double.longBitsToDouble(ordenavel ^ ((ordenavel >> 63) & Long.MAX_VALUE));
+    }
+
+    public int getTamanho() {
+        return this.arvore.getTamanho();
+    }
+    public int getAltura() {
+        return this.arvore.getAltura();
+    }
+    public boolean vazia() {
+        return this.arvore.vazia();
+    }
+    public boolean contains(double chave) {
+        return this.arvore.contains(ordenavel(chave));
+    }
+    /**
+     * Retorna o valor associado à chave, ou null se a chave não estiver na árvore.
+     */
+    public V obter(double chave) {
+        return this.arvore.obter(ordenavel(chave));
+    }
+    /**
+     * Insere a chave sem valor associado.
+     * @return true se a chave foi inserida, false se já existia.
+     */
+    public boolean inserir(double chave) {
+        return this.arvore.inserir(ordenavel(chave));
+    }
+    /**
+     * Associa o valor à chave, inserindo a chave se ela ainda não existir.
+     * @return o valor que estava associado à chave, ou null se a chave não existia.
+     */
+    public V associar(double chave, V valor) {
+        return this.arvore.associar(ordenavel(chave), valor);
+    }
+    /**
+     * Remove a chave (e o seu valor) da árvore.
+     * @return true se a chave foi removida, false se ela não estava na árvore.
+     */
+    public boolean remover(double chave) {
+        return this.arvore.remover(ordenavel(chave));
+    }
+    /**
+     * Posição da chave na ordem simétrica (a partir de 1), ou -1 se a chave não estiver na árvore.
+     */
+    public int posicao(double chave) {
+        return this.arvore.posicao(ordenavel(chave));
+    }
+    /**
+     * Chave na posição n da ordem simétrica.
+     * @throws NoSuchElementException se a posição estiver fora dos limites.
+     */
+    public double enesimoElemento(int n) {
+        return real(this.arvore.enesimoElemento(n));
+    }
+    /**
+     * Chave da mediana (a menor das duas centrais se o tamanho for par).
+     * @throws NoSuchElementException se a árvore estiver vazia.
+     */
+    public double mediana() {
+        return real(this.arvore.mediana());
+    }
+    /**
+     * @throws NoSuchElementException se a árvore estiver vazia.
+     */
+    public double min() {
+        return real(this.arvore.min());
+    }
+    /**
+     * @throws NoSuchElementException se a árvore estiver vazia.
+     */
+    public double max() {
+        return real(this.arvore.max());
+    }
+    /**
+     * Entrega as chaves em ordem crescente, seguindo as costuras.
+     */
+    public void paraCada(DoubleConsumer consumidor) {
+        this.arvore.paraCada(chave -> consumidor.accept(real(chave)));
+    }
+    /**
+     * Retorna uma string com as chaves em ordem crescente, separadas por espaço.
+     */
+    public String emOrdem() {
+        StringBuilder s = new StringBuilder();
+        paraCada(chave -> s.append(s.length() == 0 ? "" : " ").append(chave));
+        return s.toString();
+    }
+}
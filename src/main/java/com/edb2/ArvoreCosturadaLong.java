@@ -0,0 +1,249 @@
+package com.edb2;
+
+import java.util.NoSuchElementException;
+import java.util.function.LongConsumer;
+
+/**
+ *  Versão da {@link ArvoreCosturada} especializada para chaves long (identificadores de 64 bits, instantes em
+ * nanossegundos), guardadas e comparadas como primitivos, sem encaixotar. Cada chave pode ter um valor associado.
+ *
+ *  Como não há um long "nulo", as consultas que na {@link ArvoreBinariadeBusca} retornam null quando não há
+ * resposta (enesimoElemento fora dos limites, mediana, min e max de uma árvore vazia) lançam
+ * {@link NoSuchElementException}; use {@link #getTamanho()} para saber os limites.
+ * @param <V> o tipo dos valores associados.
+ */
+public class ArvoreCosturadaLong<V> extends EstruturaCosturada<ArvoreCosturadaLong.Entrada<V>> {
+
+    public ArvoreCosturadaLong(Balanceamento balanceamento) {
+        super(balanceamento);
+    }
+
+    /**
+     * Busca a entrada com a chave dada.
+     * @param chave a chave a ser pesquisada.
+     * @return a entrada, ou null se a chave não estiver na árvore.
+     */
+    public Entrada<V> buscar(long chave) {
+        Entrada<V> no = this.raiz;
+        while (no != null) {
+            if (chave < no.chave) {
+                no = no.costuraEsquerda ? null : no.esquerda;
+            } else if (chave > no.chave) {
+                no = no.costuraDireita ? null : no.direita;
+            } else {
+                return no;
+            }
+        }
+        return null;
+    }
+    public boolean contains(long chave) {
+        return buscar(chave) != null;
+    }
+    /**
+     * Retorna o valor associado à chave, ou null se a chave não estiver na árvore.
+     */
+    public V obter(long chave) {
+        Entrada<V> no = buscar(chave);
+        return no == null ? null : no.valor;
+    }
+    /**
+     * Insere a chave sem valor associado. Uma chave não pode ser inserida se já existir na árvore.
+     * @param chave a chave a ser inserida.
+     * @return true se a chave foi inserida, false se já existia.
+     */
+    public boolean inserir(long chave) {
+        return inserir(chave, null) == null;
+    }
+    /**
+     * Associa o valor à chave, inserindo a chave se ela ainda não existir.
+     * @param chave a chave.
+     * @param valor o valor a ser associado.
+     * @return o valor que estava associado à chave, ou null se a chave não existia.
+     */
+    public V associar(long chave, V valor) {
+        Entrada<V> existente = inserir(chave, valor);
+        if (existente == null) {
+            return null;
+        }
+        V anterior = existente.valor;
+        existente.valor = valor;
+        return anterior;
+    }
+    /**
+     * Desce até a chave; se ela não existir, pendura uma nova folha com o valor dado.
+     * @return a entrada que já existia com a chave, ou null se uma nova foi inserida.
+     */
+    private Entrada<V> inserir(long chave, V valor) {
+        if (this.raiz == null) {
+            inserirRaiz(new Entrada<>(chave, valor));
+            return null;
+        }
+        Entrada<V> no = this.raiz;
+        while (true) {
+            if (chave < no.chave) {
+                if (no.costuraEsquerda) {
+                    inserirEsquerda(no, new Entrada<>(chave, valor));
+                    return null;
+                }
+                no = no.esquerda;
+            } else if (chave > no.chave) {
+                if (no.costuraDireita) {
+                    inserirDireita(no, new Entrada<>(chave, valor));
+                    return null;
+                }
+                no = no.direita;
+            } else {
+                return no;
+            }
+        }
+    }
+    /**
+     * Remove a chave (e o seu valor) da árvore. Caso a chave não esteja na árvore, não faz nada.
+     * @param chave a chave a ser removida.
+     * @return true se a chave foi removida, false caso contrário.
+     */
+    public boolean remover(long chave) {
+        Entrada<V> no = buscar(chave);
+        if (no == null) {
+            return false;
+        }
+        remover(no);
+        return true;
+    }
+    @Override
+    void copiar(Entrada<V> destino, Entrada<V> origem) {
+        destino.chave = origem.chave;
+        destino.valor = origem.valor;
+    }
+
+    /**
+     * Posição da chave na ordem simétrica (a partir de 1), ou -1 se a chave não estiver na árvore.
+     */
+    public int posicao(long chave) {
+        int pos = 0;
+        Entrada<V> no = this.raiz;
+        while (no != null) {
+            if (chave < no.chave) {
+                no = no.costuraEsquerda ? null : no.esquerda;
+            } else if (chave > no.chave) {
+                pos += tamanhoEsquerda(no) + 1;
+                no = no.costuraDireita ? null : no.direita;
+            } else {
+                return pos + tamanhoEsquerda(no) + 1;
+            }
+        }
+        return -1;
+    }
+    /**
+     * Chave na posição n da ordem simétrica.
+     * @throws NoSuchElementException se a posição estiver fora dos limites.
+     */
+    public long enesimoElemento(int n) {
+        return chave(enesimo(n));
+    }
+    /**
+     * Entrada na posição n da ordem simétrica, ou null se a posição estiver fora dos limites.
+     */
+    public Entrada<V> enesimaEntrada(int n) {
+        return enesimo(n);
+    }
+    /**
+     * Chave da mediana (a menor das duas centrais se o tamanho for par).
+     * @throws NoSuchElementException se a árvore estiver vazia.
+     */
+    public long mediana() {
+        return chave(noMediana());
+    }
+    /**
+     * Menor chave da árvore.
+     * @throws NoSuchElementException se a árvore estiver vazia.
+     */
+    public long min() {
+        return chave(primeiro());
+    }
+    /**
+     * Maior chave da árvore.
+     * @throws NoSuchElementException se a árvore estiver vazia.
+     */
+    public long max() {
+        return chave(ultimo());
+    }
+    private static long chave(Entrada<?> no) {
+        if (no == null) {
+            throw new NoSuchElementException();
+        }
+        return no.chave;
+    }
+    /**
+     * Entrada com a menor chave, ponto de partida para percorrer a árvore com {@link #sucessor(Entrada)}.
+     */
+    public Entrada<V> primeiraEntrada() {
+        return primeiro();
+    }
+    /**
+     * Entrada com a maior chave, ponto de partida para percorrer a árvore com {@link #antecessor(Entrada)}.
+     */
+    public Entrada<V> ultimaEntrada() {
+        return ultimo();
+    }
+    /**
+     * Sucessor da entrada em ordem simétrica, ou null se ela for a maior.
+     */
+    public static <V> Entrada<V> sucessor(Entrada<V> entrada) {
+        return EstruturaCosturada.sucessor(entrada);
+    }
+    /**
+     * Antecessor da entrada em ordem simétrica, ou null se ela for a menor.
+     */
+    public static <V> Entrada<V> antecessor(Entrada<V> entrada) {
+        return EstruturaCosturada.antecessor(entrada);
+    }
+    /**
+     * Entrega as chaves em ordem simétrica, seguindo as costuras.
+     */
+    public void paraCada(LongConsumer consumidor) {
+        for (Entrada<V> no = primeiro(); no != null; no = sucessor(no)) {
+            consumidor.accept(no.chave);
+        }
+    }
+    /**
+     * Retorna uma string com as chaves em ordem simétrica, separadas por espaço.
+     */
+    public String emOrdem() {
+        StringBuilder s = new StringBuilder();
+        for (Entrada<V> no = primeiro(); no != null; no = sucessor(no)) {
+            s.append(s.length() == 0 ? "" : " ").append(no.chave);
+        }
+        return s.toString();
+    }
+
+    /**
+     * Nó da árvore de chaves long: a chave primitiva, o valor associado e a estrutura de {@link NoCosturado}.
+     * Uma remoção pode mover para esta entrada a chave e o valor do seu sucessor, então entradas guardadas não
+     * devem ser usadas depois de remoções.
+     */
+    public static final class Entrada<V> extends NoCosturado<Entrada<V>> {
+        private long chave;
+        private V valor;
+
+        Entrada(long chave, V valor) {
+            this.chave = chave;
+            this.valor = valor;
+        }
+
+        public long getChave() {
+            return this.chave;
+        }
+        public V getValor() {
+            return this.valor;
+        }
+        public void setValor(V valor) {
+            this.valor = valor;
+        }
+
+        @Override
+        public String toString() {
+            return this.chave + "=" + this.valor;
+        }
+    }
+}
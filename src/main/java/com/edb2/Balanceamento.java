@@ -0,0 +1,24 @@
+package com.edb2;
+
+/**
+ * Estratégias de balanceamento da {@link ArvoreBinariadeBusca}, escolhidas na construção.
+ *
+ *  NENHUM = os valores são inseridos na ordem em que chegam, sem rotações. Entradas ordenadas
+ *           degeneram a árvore em uma lista.
+ *  AVL    = após cada inserção ou remoção, os nós do caminho até a raiz com fator de balanceamento
+ *           fora de [-1, 1] são corrigidos com rotações que preservam as costuras e os ponteiros de pai.
+ *           A altura fica limitada a cerca de 1,44 log2(n).
+ *  AFUNILAMENTO = árvore splay: buscar, contains, inserir e remover sobem o nó acessado até a raiz com
+ *           rotações que preservam as costuras. Não há limite para a altura, mas uma sequência de m operações
+ *           custa O((m + n) log n) no total, e valores muito acessados ficam perto da raiz, o que favorece
+ *           consultas concentradas em poucos valores. Como as buscas alteram a árvore, elas contam como escritas
+ *           para quem compartilha a árvore entre threads. As demais consultas (posicao, enesimoElemento,
+ *           percursos) e os lotes de {@link ArvoreBinariadeBusca#inserirTodos(int[])} não afunilam.
+ *           A {@link ArvoreBinariadeBuscaCompacta} afunila do mesmo jeito; as árvores costuradas de outras
+ *           chaves tratam este modo como NENHUM.
+ */
+public enum Balanceamento {
+    NENHUM,
+    AVL,
+    AFUNILAMENTO
+}
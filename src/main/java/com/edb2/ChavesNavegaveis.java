@@ -0,0 +1,136 @@
+package com.edb2;
+
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.SortedSet;
+
+/**
+ * Conjunto das chaves de um {@link NavigableMap}, como o keySet do TreeMap: todas as operações são repassadas
+ * ao mapa, e as visões de intervalo e a decrescente são os conjuntos de chaves das visões correspondentes do mapa.
+ * Chaves podem ser removidas, mas não inseridas, porque não haveria valor para associar a elas.
+ * @param <K> o tipo das chaves.
+ */
+class ChavesNavegaveis<K> extends AbstractSet<K> implements NavigableSet<K> {
+    private final NavigableMap<K, ?> mapa;
+
+    ChavesNavegaveis(NavigableMap<K, ?> mapa) {
+        this.mapa = mapa;
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        Iterator<? extends Map.Entry<K, ?>> entradas = this.mapa.entrySet().iterator();
+        return new Iterator<K>() {
+            @Override
+            public boolean hasNext() {
+                return entradas.hasNext();
+            }
+            @Override
+            public K next() {
+                return entradas.next().getKey();
+            }
+            @Override
+            public void remove() {
+                entradas.remove();
+            }
+        };
+    }
+    @Override
+    public Iterator<K> descendingIterator() {
+        return descendingSet().iterator();
+    }
+    @Override
+    public int size() {
+        return this.mapa.size();
+    }
+    @Override
+    public boolean isEmpty() {
+        return this.mapa.isEmpty();
+    }
+    @Override
+    public boolean contains(Object o) {
+        return this.mapa.containsKey(o);
+    }
+    @Override
+    public boolean remove(Object o) {
+        if (!this.mapa.containsKey(o)) {
+            return false;
+        }
+        this.mapa.remove(o);
+        return true;
+    }
+    @Override
+    public void clear() {
+        this.mapa.clear();
+    }
+    @Override
+    public Comparator<? super K> comparator() {
+        return this.mapa.comparator();
+    }
+    @Override
+    public K lower(K e) {
+        return this.mapa.lowerKey(e);
+    }
+    @Override
+    public K floor(K e) {
+        return this.mapa.floorKey(e);
+    }
+    @Override
+    public K ceiling(K e) {
+        return this.mapa.ceilingKey(e);
+    }
+    @Override
+    public K higher(K e) {
+        return this.mapa.higherKey(e);
+    }
+    @Override
+    public K first() {
+        return this.mapa.firstKey();
+    }
+    @Override
+    public K last() {
+        return this.mapa.lastKey();
+    }
+    @Override
+    public K pollFirst() {
+        Map.Entry<K, ?> e = this.mapa.pollFirstEntry();
+        return e == null ? null : e.getKey();
+    }
+    @Override
+    public K pollLast() {
+        Map.Entry<K, ?> e = this.mapa.pollLastEntry();
+        return e == null ? null : e.getKey();
+    }
+    @Override
+    public NavigableSet<K> descendingSet() {
+        return new ChavesNavegaveis<>(this.mapa.descendingMap());
+    }
+    @Override
+    public NavigableSet<K> subSet(K de, boolean deInclusivo, K ate, boolean ateInclusivo) {
+        return new ChavesNavegaveis<>(this.mapa.subMap(de, deInclusivo, ate, ateInclusivo));
+    }
+    @Override
+    public NavigableSet<K> headSet(K ate, boolean inclusivo) {
+        return new ChavesNavegaveis<>(this.mapa.headMap(ate, inclusivo));
+    }
+    @Override
+    public NavigableSet<K> tailSet(K de, boolean inclusivo) {
+        return new ChavesNavegaveis<>(this.mapa.tailMap(de, inclusivo));
+    }
+    @Override
+    public SortedSet<K> subSet(K de, K ate) {
+        return subSet(de, true, ate, false);
+    }
+    @Override
+    public SortedSet<K> headSet(K ate) {
+        return headSet(ate, false);
+    }
+    @Override
+    public SortedSet<K> tailSet(K de) {
+        return tailSet(de, true);
+    }
+}
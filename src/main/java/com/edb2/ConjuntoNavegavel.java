@@ -0,0 +1,284 @@
+package com.edb2;
+
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+
+/**
+ *  Visão de uma {@link ArvoreBinariadeBusca} como {@link NavigableSet}, para que ela possa substituir um
+ * {@link java.util.TreeSet} em código escrito contra as interfaces do Java. Obtida com
+ * {@link ArvoreBinariadeBusca#comoConjunto()}.
+ *
+ *  As visões de intervalo (headSet, tailSet, subSet) e a visão decrescente são instâncias desta mesma classe
+ * com limites e sentido diferentes, todas sobre a mesma árvore. Como os valores são int, os limites são guardados
+ * como um intervalo fechado [inicio, fim] em long (um limite exclusivo x vira x + 1 ou x - 1), e o sentido
+ * decrescente só troca o papel de teto e piso e de sucessor e antecessor.
+ *
+ *  Os iteradores começam com uma descida até o primeiro nó do intervalo e depois seguem as costuras com
+ * {@link ArvoreBinariadeBusca#sucessor(No)} ou {@link ArvoreBinariadeBusca#antecessor(No)}: O(1) amortizado por
+ * passo, sem pilha. Eles falham rápido com {@link ConcurrentModificationException} se a árvore for alterada por fora.
+ *  size() de uma visão de intervalo usa {@link ArvoreBinariadeBusca#contarNoIntervalo(int, int)}, em O(log n).
+ */
+public class ConjuntoNavegavel extends AbstractSet<Integer> implements NavigableSet<Integer> {
+    private final ArvoreBinariadeBusca abb;
+    private final long inicio;
+    private final long fim;
+    private final boolean decrescente;
+
+    public ConjuntoNavegavel(ArvoreBinariadeBusca abb) {
+        this(abb, Integer.MIN_VALUE, Integer.MAX_VALUE, false);
+    }
+    private ConjuntoNavegavel(ArvoreBinariadeBusca abb, long inicio, long fim, boolean decrescente) {
+        this.abb = abb;
+        this.inicio = inicio;
+        this.fim = fim;
+        this.decrescente = decrescente;
+    }
+
+    private boolean noIntervalo(long valor) {
+        return valor >= this.inicio && valor <= this.fim;
+    }
+    /**
+     * Nó com o menor valor maior ou igual a x dentro do intervalo, na ordem crescente.
+     */
+    private No teto(long x) {
+        long v = Math.max(x, this.inicio);
+        if (v > this.fim) {
+            return null;
+        }
+        No no = this.abb.teto((int) v);
+        return no != null && no.getValor() <= this.fim ? no : null;
+    }
+    /**
+     * Nó com o maior valor menor ou igual a x dentro do intervalo, na ordem crescente.
+     */
+    private No piso(long x) {
+        long v = Math.min(x, this.fim);
+        if (v < this.inicio) {
+            return null;
+        }
+        No no = this.abb.piso((int) v);
+        return no != null && no.getValor() >= this.inicio ? no : null;
+    }
+    private No primeiroNo() {
+        return this.decrescente ? piso(this.fim) : teto(this.inicio);
+    }
+    private No ultimoNo() {
+        return this.decrescente ? teto(this.inicio) : piso(this.fim);
+    }
+    private static Integer valor(No no) {
+        return no == null ? null : no.getValor();
+    }
+
+    @Override
+    public Integer lower(Integer e) {
+        return valor(this.decrescente ? teto(e + 1L) : piso(e - 1L));
+    }
+    @Override
+    public Integer floor(Integer e) {
+        return valor(this.decrescente ? teto(e) : piso(e));
+    }
+    @Override
+    public Integer ceiling(Integer e) {
+        return valor(this.decrescente ? piso(e) : teto(e));
+    }
+    @Override
+    public Integer higher(Integer e) {
+        return valor(this.decrescente ? piso(e - 1L) : teto(e + 1L));
+    }
+    @Override
+    public Integer first() {
+        No no = primeiroNo();
+        if (no == null) {
+            throw new NoSuchElementException();
+        }
+        return no.getValor();
+    }
+    @Override
+    public Integer last() {
+        No no = ultimoNo();
+        if (no == null) {
+            throw new NoSuchElementException();
+        }
+        return no.getValor();
+    }
+    @Override
+    public Integer pollFirst() {
+        return retirar(primeiroNo());
+    }
+    @Override
+    public Integer pollLast() {
+        return retirar(ultimoNo());
+    }
+    private Integer retirar(No no) {
+        if (no == null) {
+            return null;
+        }
+        int valor = no.getValor();
+        this.abb.remover(valor);
+        return valor;
+    }
+
+    @Override
+    public int size() {
+        if (this.inicio > this.fim) {
+            return 0;
+        }
+        return this.abb.contarNoIntervalo((int) this.inicio, (int) this.fim);
+    }
+    @Override
+    public boolean isEmpty() {
+        return primeiroNo() == null;
+    }
+    @Override
+    public boolean contains(Object o) {
+        int valor = (Integer) o;
+        return noIntervalo(valor) && this.abb.contains(valor);
+    }
+    @Override
+    public boolean add(Integer e) {
+        if (!noIntervalo(e)) {
+            throw new IllegalArgumentException("Valor fora do intervalo da visão: " + e);
+        }
+        return this.abb.inserir(e);
+    }
+    @Override
+    public boolean remove(Object o) {
+        int valor = (Integer) o;
+        return noIntervalo(valor) && this.abb.remover(valor);
+    }
+    @Override
+    public Comparator<? super Integer> comparator() {
+        return this.decrescente ? Collections.reverseOrder() : null;
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterador(this.decrescente);
+    }
+    @Override
+    public Iterator<Integer> descendingIterator() {
+        return new Iterador(!this.decrescente);
+    }
+    @Override
+    public NavigableSet<Integer> descendingSet() {
+        return new ConjuntoNavegavel(this.abb, this.inicio, this.fim, !this.decrescente);
+    }
+
+    @Override
+    public NavigableSet<Integer> subSet(Integer de, boolean deInclusivo, Integer ate, boolean ateInclusivo) {
+        if (this.decrescente ? de < ate : de > ate) {
+            throw new IllegalArgumentException("Início depois do fim: " + de + ", " + ate);
+        }
+        return this.decrescente
+                ? limitar(limiteInicio(ate, ateInclusivo), limiteFim(de, deInclusivo))
+                : limitar(limiteInicio(de, deInclusivo), limiteFim(ate, ateInclusivo));
+    }
+    @Override
+    public NavigableSet<Integer> headSet(Integer ate, boolean inclusivo) {
+        return this.decrescente
+                ? limitar(limiteInicio(ate, inclusivo), this.fim)
+                : limitar(this.inicio, limiteFim(ate, inclusivo));
+    }
+    @Override
+    public NavigableSet<Integer> tailSet(Integer de, boolean inclusivo) {
+        return this.decrescente
+                ? limitar(this.inicio, limiteFim(de, inclusivo))
+                : limitar(limiteInicio(de, inclusivo), this.fim);
+    }
+    @Override
+    public SortedSet<Integer> subSet(Integer de, Integer ate) {
+        return subSet(de, true, ate, false);
+    }
+    @Override
+    public SortedSet<Integer> headSet(Integer ate) {
+        return headSet(ate, false);
+    }
+    @Override
+    public SortedSet<Integer> tailSet(Integer de) {
+        return tailSet(de, true);
+    }
+    private long limiteInicio(int valor, boolean inclusivo) {
+        verificarLimite(valor, inclusivo);
+        return inclusivo ? valor : valor + 1L;
+    }
+    private long limiteFim(int valor, boolean inclusivo) {
+        verificarLimite(valor, inclusivo);
+        return inclusivo ? valor : valor - 1L;
+    }
+    /**
+     * Como no TreeSet, um novo limite inclusivo precisa estar no intervalo desta visão, e um exclusivo pode ficar
+     * logo fora dele.
+     */
+    private void verificarLimite(int valor, boolean inclusivo) {
+        long folga = inclusivo ? 0 : 1;
+        if (valor < this.inicio - folga || valor > this.fim + folga) {
+            throw new IllegalArgumentException("Limite fora do intervalo da visão: " + valor);
+        }
+    }
+    private ConjuntoNavegavel limitar(long novoInicio, long novoFim) {
+        return new ConjuntoNavegavel(this.abb, novoInicio, novoFim, this.decrescente);
+    }
+
+    /**
+     * Iterador que segue as costuras no sentido dado, dentro do intervalo da visão.
+     */
+    private final class Iterador implements Iterator<Integer> {
+        private final boolean paraTras;
+        private No proximo;
+        private No ultimo;
+        private int modificacoesEsperadas;
+
+        Iterador(boolean paraTras) {
+            this.paraTras = paraTras;
+            this.proximo = paraTras ? piso(ConjuntoNavegavel.this.fim) : teto(ConjuntoNavegavel.this.inicio);
+            this.modificacoesEsperadas = ConjuntoNavegavel.this.abb.getModificacoes();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.proximo != null;
+        }
+
+        @Override
+        public Integer next() {
+            if (this.proximo == null) {
+                throw new NoSuchElementException();
+            }
+            verificarModificacoes();
+            this.ultimo = this.proximo;
+            No seguinte = this.paraTras ? ArvoreBinariadeBusca.antecessor(this.ultimo)
+                    : ArvoreBinariadeBusca.sucessor(this.ultimo);
+            this.proximo = seguinte != null && noIntervalo(seguinte.getValor()) ? seguinte : null;
+            return this.ultimo.getValor();
+        }
+
+        @Override
+        public void remove() {
+            if (this.ultimo == null) {
+                throw new IllegalStateException();
+            }
+            verificarModificacoes();
+            //Um nó com dois filhos recebe o valor do sucessor e é o sucessor que sai da árvore:
+            //no sentido crescente, o próximo valor passa a estar no próprio nó removido.
+            boolean doisFilhos = !this.ultimo.isCosturaEsquerda() && !this.ultimo.isCosturaDireita();
+            if (doisFilhos && !this.paraTras && this.proximo != null) {
+                this.proximo = this.ultimo;
+            }
+            ConjuntoNavegavel.this.abb.remover(this.ultimo.getValor());
+            this.ultimo = null;
+            this.modificacoesEsperadas = ConjuntoNavegavel.this.abb.getModificacoes();
+        }
+
+        private void verificarModificacoes() {
+            if (ConjuntoNavegavel.this.abb.getModificacoes() != this.modificacoesEsperadas) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.edb2;
+
+/**
+ *  Algoritmos estruturais compartilhados pelas árvores costuradas com chaves de outros tipos: pendurar uma folha,
+ * retirar um nó, manter o tamanho e a altura das sub-árvores no caminho até a raiz, as rotações AVL e as
+ * estatísticas de ordem. São os mesmos da {@link ArvoreBinariadeBusca}; só a comparação de chaves fica nas
+ * subclasses, que descem pela árvore com o tipo da sua chave e chamam os métodos daqui para alterar a estrutura.
+ *
+ *  Como na {@link ArvoreBinariadeBusca}, a costura esquerda do menor nó e a direita do maior são nulas.
+ * @param <N> o tipo concreto do nó.
+ */
+abstract class EstruturaCosturada<N extends NoCosturado<N>> {
+    N raiz;
+    int tamanho;
+    /**
+     * Quantidade de inserções e remoções de chaves, para que os iteradores detectem alterações concorrentes.
+     */
+    int modificacoes;
+    final Balanceamento balanceamento;
+
+    EstruturaCosturada(Balanceamento balanceamento) {
+        this.balanceamento = balanceamento;
+    }
+
+    /**
+     * Retorna a quantidade de chaves da árvore.
+     * @return tamanho da arvore
+     */
+    public int getTamanho() {
+        return this.tamanho;
+    }
+    /**
+     * Retorna a altura da árvore, em O(1), a partir da altura guardada na raiz.
+     * @return altura da arvore
+     */
+    public int getAltura() {
+        return this.raiz == null ? 0 : this.raiz.altura;
+    }
+    /**
+     * Retorna a estratégia de balanceamento escolhida na construção da árvore.
+     * @return a estratégia de balanceamento
+     */
+    public Balanceamento getBalanceamento() {
+        return this.balanceamento;
+    }
+    /**
+     * Verifica se a arvore está vazia
+     * @return true se a arvore estiver vazia, false caso contrário
+     */
+    public boolean vazia() {
+        return this.raiz == null;
+    }
+
+    /**
+     * Copia a chave e o valor associado de um nó para outro. Usado na remoção de um nó com dois filhos, que
+     * passa a guardar o conteúdo do seu sucessor.
+     */
+    abstract void copiar(N destino, N origem);
+
+    /**
+     * Coloca o nó como raiz de uma árvore vazia, sem antecessor nem sucessor.
+     */
+    final void inserirRaiz(N novo) {
+        novo.pai = null;
+        novo.costuraEsquerda = true;
+        novo.esquerda = null;
+        novo.costuraDireita = true;
+        novo.direita = null;
+        this.raiz = novo;
+        this.tamanho = 1;
+        this.modificacoes++;
+    }
+    /**
+     * Pendura o nó novo como filho da esquerda do pai, que tinha costura à esquerda. O novo nó herda o antecessor
+     * do pai, e o seu sucessor é o próprio pai.
+     */
+    final void inserirEsquerda(N pai, N novo) {
+        novo.pai = pai;
+        novo.costuraDireita = true;
+        novo.direita = pai;
+        novo.costuraEsquerda = true;
+        novo.esquerda = pai.esquerda;
+        pai.esquerda = novo;
+        pai.costuraEsquerda = false;
+        this.tamanho++;
+        this.modificacoes++;
+        atualizarCaminho(pai);
+    }
+    /**
+     * Pendura o nó novo como filho da direita do pai, que tinha costura à direita. Simétrico a
+     * {@link #inserirEsquerda(NoCosturado, NoCosturado)}.
+     */
+    final void inserirDireita(N pai, N novo) {
+        novo.pai = pai;
+        novo.costuraEsquerda = true;
+        novo.esquerda = pai;
+        novo.costuraDireita = true;
+        novo.direita = pai.direita;
+        pai.direita = novo;
+        pai.costuraDireita = false;
+        this.tamanho++;
+        this.modificacoes++;
+        atualizarCaminho(pai);
+    }
+    /**
+     * Remove o nó da árvore. Se ele tiver dois filhos, recebe o conteúdo do sucessor e o sucessor é retirado.
+     */
+    final void remover(N no) {
+        if (!no.costuraEsquerda && !no.costuraDireita) {
+            N sucessor = sucessor(no);
+            copiar(no, sucessor);
+            no = sucessor;
+        }
+        desligar(no);
+        this.tamanho--;
+        this.modificacoes++;
+    }
+    /**
+     * Retira da árvore um nó que tem no máximo um filho, refazendo as costuras que apontavam para ele.
+     */
+    private void desligar(N no) {
+        N pai = no.pai;
+        if (no.isFolha()) {
+            if (pai == null) {
+                this.raiz = null;
+            } else if (!pai.costuraEsquerda && pai.esquerda == no) {
+                pai.costuraEsquerda = true;
+                pai.esquerda = no.esquerda;
+            } else {
+                pai.costuraDireita = true;
+                pai.direita = no.direita;
+            }
+            atualizarCaminho(pai);
+            return;
+        }
+        N filho;
+        if (no.costuraEsquerda) {
+            filho = no.direita;
+            min(filho).esquerda = no.esquerda;
+        } else {
+            filho = no.esquerda;
+            max(filho).direita = no.direita;
+        }
+        substituirFilho(no, filho);
+        atualizarCaminho(pai);
+    }
+    /**
+     * Recalcula o tamanho e a altura das sub-árvores a partir do nó dado até a raiz, balanceando no modo AVL.
+     */
+    private void atualizarCaminho(N no) {
+        while (no != null) {
+            recalcular(no);
+            if (this.balanceamento == Balanceamento.AVL) {
+                no = balancear(no);
+            }
+            no = no.pai;
+        }
+    }
+    private static <N extends NoCosturado<N>> void recalcular(N no) {
+        no.tamanho = 1 + tamanhoEsquerda(no) + tamanhoDireita(no);
+        no.altura = 1 + Math.max(alturaEsquerda(no), alturaDireita(no));
+    }
+    private N balancear(N no) {
+        int fator = alturaEsquerda(no) - alturaDireita(no);
+        if (fator > 1) {
+            if (alturaEsquerda(no.esquerda) < alturaDireita(no.esquerda)) {
+                rotacionarEsquerda(no.esquerda);
+            }
+            return rotacionarDireita(no);
+        }
+        if (fator < -1) {
+            if (alturaDireita(no.direita) < alturaEsquerda(no.direita)) {
+                rotacionarDireita(no.direita);
+            }
+            return rotacionarEsquerda(no);
+        }
+        return no;
+    }
+    /**
+     * Rotaciona para a esquerda preservando as costuras, como em {@link ArvoreBinariadeBusca}.
+     */
+    private N rotacionarEsquerda(N x) {
+        N y = x.direita;
+        if (y.costuraEsquerda) {
+            x.costuraDireita = true;
+            x.direita = y;
+        } else {
+            x.direita = y.esquerda;
+            y.esquerda.pai = x;
+        }
+        y.costuraEsquerda = false;
+        y.esquerda = x;
+        substituirFilho(x, y);
+        x.pai = y;
+        recalcular(x);
+        recalcular(y);
+        return y;
+    }
+    private N rotacionarDireita(N x) {
+        N y = x.esquerda;
+        if (y.costuraDireita) {
+            x.costuraEsquerda = true;
+            x.esquerda = y;
+        } else {
+            x.esquerda = y.direita;
+            y.direita.pai = x;
+        }
+        y.costuraDireita = false;
+        y.direita = x;
+        substituirFilho(x, y);
+        x.pai = y;
+        recalcular(x);
+        recalcular(y);
+        return y;
+    }
+    private void substituirFilho(N antigo, N novo) {
+        N pai = antigo.pai;
+        novo.pai = pai;
+        if (pai == null) {
+            this.raiz = novo;
+        } else if (!pai.costuraEsquerda && pai.esquerda == antigo) {
+            pai.esquerda = novo;
+        } else {
+            pai.direita = novo;
+        }
+    }
+    static <N extends NoCosturado<N>> int tamanhoEsquerda(N no) {
+        return no.costuraEsquerda ? 0 : no.esquerda.tamanho;
+    }
+    private static <N extends NoCosturado<N>> int tamanhoDireita(N no) {
+        return no.costuraDireita ? 0 : no.direita.tamanho;
+    }
+    private static <N extends NoCosturado<N>> int alturaEsquerda(N no) {
+        return no.costuraEsquerda ? 0 : no.esquerda.altura;
+    }
+    private static <N extends NoCosturado<N>> int alturaDireita(N no) {
+        return no.costuraDireita ? 0 : no.direita.altura;
+    }
+
+    /**
+     * Retorna o nó na posição n da ordem simétrica, ou null se a posição estiver fora dos limites.
+     */
+    final N enesimo(int n) {
+        if (n < 1 || n > this.tamanho) {
+            return null;
+        }
+        int k = n;
+        N no = this.raiz;
+        while (true) {
+            int pos = tamanhoEsquerda(no) + 1;
+            if (k < pos) {
+                no = no.esquerda;
+            } else if (k > pos) {
+                k -= pos;
+                no = no.direita;
+            } else {
+                return no;
+            }
+        }
+    }
+    /**
+     * Retorna a posição do nó na ordem simétrica, subindo pelos pais: cada vez que se sobe a partir de um filho
+     * da direita, o pai e a sua sub-árvore da esquerda vêm antes.
+     */
+    static <N extends NoCosturado<N>> int posicaoDe(N no) {
+        int pos = tamanhoEsquerda(no) + 1;
+        for (N pai = no.pai; pai != null; no = pai, pai = pai.pai) {
+            if (pai.costuraEsquerda || pai.esquerda != no) {
+                pos += tamanhoEsquerda(pai) + 1;
+            }
+        }
+        return pos;
+    }
+    /**
+     * Retorna o nó da mediana (o menor dos dois centrais se o tamanho for par), ou null se a árvore estiver vazia.
+     */
+    final N noMediana() {
+        return enesimo((this.tamanho + 1) / 2);
+    }
+    final N primeiro() {
+        return min(this.raiz);
+    }
+    final N ultimo() {
+        return max(this.raiz);
+    }
+    static <N extends NoCosturado<N>> N min(N no) {
+        if (no == null) {
+            return null;
+        }
+        while (!no.costuraEsquerda) {
+            no = no.esquerda;
+        }
+        return no;
+    }
+    static <N extends NoCosturado<N>> N max(N no) {
+        if (no == null) {
+            return null;
+        }
+        while (!no.costuraDireita) {
+            no = no.direita;
+        }
+        return no;
+    }
+    /**
+     * Sucessor do nó em ordem simétrica, seguindo a costura quando houver; null para o maior nó.
+     */
+    static <N extends NoCosturado<N>> N sucessor(N no) {
+        return no.costuraDireita ? no.direita : min(no.direita);
+    }
+    /**
+     * Antecessor do nó em ordem simétrica, seguindo a costura quando houver; null para o menor nó.
+     */
+    static <N extends NoCosturado<N>> N antecessor(N no) {
+        return no.costuraEsquerda ? no.esquerda : max(no.esquerda);
+    }
+}
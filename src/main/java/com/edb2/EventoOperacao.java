@@ -0,0 +1,43 @@
+package com.edb2;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Evento do JDK Flight Recorder emitido por cada operação medida pelas {@link Metricas}, quando o evento está
+ * habilitado na gravação. A classe só é carregada quando as métricas estão habilitadas e a JVM tem o pacote
+ * jdk.jfr; as {@link Metricas} só chamam {@link #emitir(Metricas.Operacao, int, int, long)} depois de conferir isso.
+ */
+@Name("com.edb2.Operacao")
+@Label("Operação da árvore")
+@Category("Árvore Binária de Busca")
+@Description("Uma busca, inserção, remoção ou estatística de ordem na ArvoreBinariadeBusca")
+final class EventoOperacao extends Event {
+    @Label("Operação")
+    String operacao;
+
+    @Label("Valor")
+    int valor;
+
+    @Label("Nós visitados")
+    int nosVisitados;
+
+    @Label("Duração")
+    @Timespan(Timespan.NANOSECONDS)
+    long duracao;
+
+    static void emitir(Metricas.Operacao operacao, int valor, int nosVisitados, long duracao) {
+        EventoOperacao evento = new EventoOperacao();
+        if (evento.isEnabled()) {
+            evento.operacao = operacao.name();
+            evento.valor = valor;
+            evento.nosVisitados = nosVisitados;
+            evento.duracao = duracao;
+            evento.commit();
+        }
+    }
+}
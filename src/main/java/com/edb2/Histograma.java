@@ -0,0 +1,97 @@
+package com.edb2;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *  Histograma de valores não negativos (latências em nanossegundos, quantidades de nós), no estilo do
+ * HdrHistogram: as faixas são logarítmicas, cada potência de 2 dividida em 8 faixas iguais, então qualquer
+ * percentil tem erro relativo de no máximo 12,5% com 496 contadores fixos, de 0 a {@link Long#MAX_VALUE}.
+ * Valores menores que 16 têm uma faixa cada, exata.
+ *
+ *  Registrar é livre de travas: um incremento atômico na faixa e dois {@link LongAdder} para a contagem e a
+ * soma, então várias threads podem registrar ao mesmo tempo. A leitura copia os contadores sem parar quem
+ * registra, e por isso pode misturar registros de antes e de depois da cópia.
+ */
+final class Histograma {
+    private static final int BITS_SUBFAIXA = 3;
+    private static final int SUBFAIXAS = 1 << BITS_SUBFAIXA;
+    private static final int EXATOS = 2 * SUBFAIXAS;
+    private static final int FAIXAS = EXATOS + (63 - BITS_SUBFAIXA) * SUBFAIXAS;
+
+    private final AtomicLongArray faixas = new AtomicLongArray(FAIXAS);
+    private final LongAdder contagem = new LongAdder();
+    private final LongAdder soma = new LongAdder();
+    private final LongAccumulator maximo = new LongAccumulator(Math::max, 0);
+
+    void registrar(long valor) {
+        if (valor < 0) {
+            valor = 0;
+        }
+        this.faixas.incrementAndGet(faixa(valor));
+        this.contagem.increment();
+        this.soma.add(valor);
+        this.maximo.accumulate(valor);
+    }
+    void zerar() {
+        for (int i = 0; i < FAIXAS; i++) {
+            this.faixas.set(i, 0);
+        }
+        this.contagem.reset();
+        this.soma.reset();
+        this.maximo.reset();
+    }
+
+    static int faixa(long valor) {
+        if (valor < EXATOS) {
+            return (int) valor;
+        }
+        int expoente = 63 - Long.numberOfLeadingZeros(valor);
+        int sub = (int) (valor >>> (expoente - BITS_SUBFAIXA)) & (SUBFAIXAS - 1);
+        return EXATOS + (expoente - BITS_SUBFAIXA - 1) * SUBFAIXAS + sub;
+    }
+    /**
+     * Maior valor que cai na faixa dada.
+     */
+    static long limiteSuperior(int faixa) {
+        if (faixa < EXATOS) {
+            return faixa;
+        }
+        int expoente = (faixa - EXATOS) / SUBFAIXAS + BITS_SUBFAIXA + 1;
+        int sub = (faixa - EXATOS) % SUBFAIXAS;
+        int deslocamento = expoente - BITS_SUBFAIXA;
+        long inicioDaProxima = (long) (SUBFAIXAS + sub + 1) << deslocamento;
+        return inicioDaProxima <= 0 ? Long.MAX_VALUE : inicioDaProxima - 1;
+    }
+
+    /**
+     * Copia os contadores e calcula o resumo.
+     */
+    Metricas.Resumo resumo() {
+        long[] copia = new long[FAIXAS];
+        long total = 0;
+        for (int i = 0; i < FAIXAS; i++) {
+            copia[i] = this.faixas.get(i);
+            total += copia[i];
+        }
+        long max = this.maximo.get();
+        return new Metricas.Resumo(total, total == 0 ? 0 : (double) this.soma.sum() / this.contagem.sum(),
+                percentil(copia, total, 0.5, max), percentil(copia, total, 0.9, max),
+                percentil(copia, total, 0.99, max), percentil(copia, total, 0.999, max), max);
+    }
+    private static long percentil(long[] faixas, long total, double p, long max) {
+        if (total == 0) {
+            return 0;
+        }
+        long alvo = Math.max(1, (long) Math.ceil(p * total));
+        long acumulado = 0;
+        for (int i = 0; i < faixas.length; i++) {
+            acumulado += faixas[i];
+            if (acumulado >= alvo) {
+                return Math.min(limiteSuperior(i), max);
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,266 @@
+package com.edb2;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ *  Visão somente leitura dos valores de uma {@link ArvoreBinariadeBusca} em um instante, obtida com
+ * {@link ArvoreBinariadeBusca#snapshot()}. As inserções e remoções feitas depois na árvore não aparecem aqui.
+ *
+ *  Os nós da árvore viva não podem ser compartilhados entre versões: com as costuras e os ponteiros de pai,
+ * todo nó é alcançável a partir dos vizinhos, então qualquer alteração obrigaria a copiar a árvore inteira.
+ * Por isso a árvore viva mantém, depois do primeiro snapshot, uma cópia persistente dos seus valores: uma
+ * árvore AVL de nós imutáveis, sem costuras nem pai, atualizada por cópia do caminho (O(log n) nós novos por
+ * inserção ou remoção). Um snapshot é apenas a raiz dessa cópia naquele momento, então custa O(1), e as versões
+ * compartilham todos os nós que não mudaram.
+ *
+ *  O formato desta árvore é o do balanceamento AVL, não o da árvore viva; o que o snapshot preserva são os
+ * valores e a ordem simétrica.
+ */
+public final class Instantaneo {
+    private final NoPersistente raiz;
+
+    Instantaneo(NoPersistente raiz) {
+        this.raiz = raiz;
+    }
+
+    /**
+     * Quantidade de valores do snapshot.
+     */
+    public int getTamanho() {
+        return tamanho(this.raiz);
+    }
+    public boolean vazia() {
+        return this.raiz == null;
+    }
+    public boolean contains(int valor) {
+        NoPersistente no = this.raiz;
+        while (no != null) {
+            if (valor < no.valor) {
+                no = no.esquerda;
+            } else if (valor > no.valor) {
+                no = no.direita;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+    /**
+     * Posição do valor na ordem simétrica, ou -1 se ele não estiver no snapshot.
+     */
+    public int posicao(int valor) {
+        int pos = 0;
+        NoPersistente no = this.raiz;
+        while (no != null) {
+            if (valor < no.valor) {
+                no = no.esquerda;
+            } else if (valor > no.valor) {
+                pos += tamanho(no.esquerda) + 1;
+                no = no.direita;
+            } else {
+                return pos + tamanho(no.esquerda) + 1;
+            }
+        }
+        return -1;
+    }
+    /**
+     * Valor na posição n da ordem simétrica, ou null se a posição estiver fora dos limites.
+     */
+    public Integer enesimoElemento(int n) {
+        if (n < 1 || n > getTamanho()) {
+            return null;
+        }
+        int k = n;
+        NoPersistente no = this.raiz;
+        while (true) {
+            int pos = tamanho(no.esquerda) + 1;
+            if (k < pos) {
+                no = no.esquerda;
+            } else if (k > pos) {
+                k -= pos;
+                no = no.direita;
+            } else {
+                return no.valor;
+            }
+        }
+    }
+    /**
+     * Mediana dos valores (o menor dos dois centrais se o tamanho for par), ou null se o snapshot estiver vazio.
+     */
+    public Integer mediana() {
+        return vazia() ? null : enesimoElemento((getTamanho() + 1) / 2);
+    }
+    /**
+     * Média de todos os valores do snapshot, em O(1) a partir da soma guardada na raiz, ou null se o snapshot
+     * estiver vazio.
+     */
+    public Double media() {
+        return vazia() ? null : (double) this.raiz.soma / this.raiz.tamanho;
+    }
+    /**
+     * Soma de todos os valores do snapshot.
+     */
+    public long soma() {
+        return this.raiz == null ? 0 : this.raiz.soma;
+    }
+    /**
+     * Valores em ordem simétrica separados por espaço, no formato de {@link ArvoreBinariadeBusca#emOrdem()}.
+     */
+    public String emOrdem() {
+        StringBuilder s = new StringBuilder();
+        paraCada(v -> s.append(s.length() == 0 ? "" : " ").append(v));
+        return s.toString();
+    }
+    /**
+     * Entrega todos os valores em ordem simétrica ao consumidor.
+     */
+    public void paraCada(IntConsumer consumidor) {
+        PrimitiveIterator.OfInt it = iterador();
+        while (it.hasNext()) {
+            consumidor.accept(it.nextInt());
+        }
+    }
+    /**
+     * Iterador em ordem simétrica. Como os nós não têm costuras, usa uma pilha do tamanho da altura (O(log n)).
+     */
+    public PrimitiveIterator.OfInt iterador() {
+        return new PrimitiveIterator.OfInt() {
+            private final NoPersistente[] pilha = new NoPersistente[altura(Instantaneo.this.raiz) + 1];
+            private int topo = empilharEsquerda(Instantaneo.this.raiz, 0);
+
+            private int empilharEsquerda(NoPersistente no, int t) {
+                while (no != null) {
+                    this.pilha[t++] = no;
+                    no = no.esquerda;
+                }
+                return t;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return this.topo > 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (this.topo == 0) {
+                    throw new NoSuchElementException();
+                }
+                NoPersistente no = this.pilha[--this.topo];
+                this.topo = empilharEsquerda(no.direita, this.topo);
+                return no.valor;
+            }
+        };
+    }
+
+    /**
+     * Nó imutável da cópia persistente. Guarda tamanho, altura e soma da sub-árvore.
+     */
+    static final class NoPersistente {
+        final int valor;
+        final NoPersistente esquerda;
+        final NoPersistente direita;
+        final int tamanho;
+        final int altura;
+        final long soma;
+
+        NoPersistente(NoPersistente esquerda, int valor, NoPersistente direita) {
+            this.valor = valor;
+            this.esquerda = esquerda;
+            this.direita = direita;
+            this.tamanho = 1 + tamanho(esquerda) + tamanho(direita);
+            this.altura = 1 + Math.max(altura(esquerda), altura(direita));
+            this.soma = valor + soma(esquerda) + soma(direita);
+        }
+    }
+
+    private static int tamanho(NoPersistente no) {
+        return no == null ? 0 : no.tamanho;
+    }
+    private static int altura(NoPersistente no) {
+        return no == null ? 0 : no.altura;
+    }
+    private static long soma(NoPersistente no) {
+        return no == null ? 0 : no.soma;
+    }
+
+    /**
+     * Monta a cópia persistente balanceada com os valores de ordenados[inicio..fim], em ordem crescente.
+     */
+    static NoPersistente construir(int[] ordenados, int inicio, int fim) {
+        if (inicio > fim) {
+            return null;
+        }
+        int meio = (inicio + fim) >>> 1;
+        return new NoPersistente(construir(ordenados, inicio, meio - 1), ordenados[meio],
+                construir(ordenados, meio + 1, fim));
+    }
+    /**
+     * Retorna uma nova versão com o valor inserido, copiando apenas o caminho até ele.
+     */
+    static NoPersistente inserir(NoPersistente no, int valor) {
+        if (no == null) {
+            return new NoPersistente(null, valor, null);
+        }
+        if (valor < no.valor) {
+            return balancear(inserir(no.esquerda, valor), no.valor, no.direita);
+        }
+        if (valor > no.valor) {
+            return balancear(no.esquerda, no.valor, inserir(no.direita, valor));
+        }
+        return no;
+    }
+    /**
+     * Retorna uma nova versão sem o valor, copiando apenas o caminho até ele.
+     */
+    static NoPersistente remover(NoPersistente no, int valor) {
+        if (no == null) {
+            return null;
+        }
+        if (valor < no.valor) {
+            return balancear(remover(no.esquerda, valor), no.valor, no.direita);
+        }
+        if (valor > no.valor) {
+            return balancear(no.esquerda, no.valor, remover(no.direita, valor));
+        }
+        if (no.esquerda == null) {
+            return no.direita;
+        }
+        if (no.direita == null) {
+            return no.esquerda;
+        }
+        NoPersistente sucessor = no.direita;
+        while (sucessor.esquerda != null) {
+            sucessor = sucessor.esquerda;
+        }
+        return balancear(no.esquerda, sucessor.valor, remover(no.direita, sucessor.valor));
+    }
+    /**
+     * Cria o nó (esquerda, valor, direita) corrigindo o fator de balanceamento com rotações, que aqui são
+     * apenas a criação de nós novos com os filhos rearranjados.
+     */
+    private static NoPersistente balancear(NoPersistente esquerda, int valor, NoPersistente direita) {
+        int fator = altura(esquerda) - altura(direita);
+        if (fator > 1) {
+            if (altura(esquerda.esquerda) >= altura(esquerda.direita)) {
+                return new NoPersistente(esquerda.esquerda, esquerda.valor,
+                        new NoPersistente(esquerda.direita, valor, direita));
+            }
+            NoPersistente meio = esquerda.direita;
+            return new NoPersistente(new NoPersistente(esquerda.esquerda, esquerda.valor, meio.esquerda), meio.valor,
+                    new NoPersistente(meio.direita, valor, direita));
+        }
+        if (fator < -1) {
+            if (altura(direita.direita) >= altura(direita.esquerda)) {
+                return new NoPersistente(new NoPersistente(esquerda, valor, direita.esquerda), direita.valor,
+                        direita.direita);
+            }
+            NoPersistente meio = direita.esquerda;
+            return new NoPersistente(new NoPersistente(esquerda, valor, meio.esquerda), meio.valor,
+                    new NoPersistente(meio.direita, direita.valor, direita.direita));
+        }
+        return new NoPersistente(esquerda, valor, direita);
+    }
+}
@@ -0,0 +1,122 @@
+package com.edb2;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Lê arquivos de valores inteiros (como o arquivo1.txt) direto dos bytes, sem Scanner nem coleções intermediárias.
+ * O arquivo é mapeado em memória em blocos e os dígitos são convertidos byte a byte; os espaços em branco do ASCII
+ * (espaço, tabulações, quebras de linha e de página) separam os valores, e um '-' inicial indica valor negativo.
+ * Qualquer outro byte, inclusive os de caracteres fora do ASCII e os de controle, é rejeitado, como no Scanner.
+ * O estado da conversão atravessa a fronteira entre blocos, então arquivos de vários GB são lidos com memória constante.
+ */
+public final class LeitorValores {
+    private static final long TAMANHO_BLOCO = 64L * 1024 * 1024;
+
+    private LeitorValores() {
+    }
+
+    /**
+     * Lê todos os valores do arquivo, entregando cada um ao destino na ordem em que aparecem.
+     * Para montar a árvore na ordem do arquivo, basta passar {@code abb::inserir}.
+     * @param arquivo o arquivo de valores.
+     * @param destino quem recebe os valores.
+     * @throws IOException se o arquivo não puder ser lido.
+     * @throws NumberFormatException se o arquivo tiver algo que não seja um inteiro de 32 bits.
+     */
+    public static void ler(Path arquivo, IntConsumer destino) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            long tamanho = canal.size();
+            long valor = 0;
+            boolean negativo = false;
+            boolean emValor = false;
+            boolean temDigito = false;
+            for (long inicio = 0; inicio < tamanho; inicio += TAMANHO_BLOCO) {
+                MappedByteBuffer bloco = canal.map(FileChannel.MapMode.READ_ONLY, inicio,
+                        Math.min(TAMANHO_BLOCO, tamanho - inicio));
+                int limite = bloco.limit();
+                for (int i = 0; i < limite; i++) {
+                    int b = bloco.get(i) & 0xFF;
+                    if (b >= '0' && b <= '9') {
+                        valor = valor * 10 + (b - '0');
+                        if (valor > 1L + Integer.MAX_VALUE) {
+                            throw new NumberFormatException("Valor fora do intervalo de int na posição " + (inicio + i));
+                        }
+                        emValor = true;
+                        temDigito = true;
+                    } else if (espacoEmBranco(b)) {
+                        if (emValor) {
+                            destino.accept(converter(valor, negativo, temDigito, inicio + i));
+                            valor = 0;
+                            negativo = false;
+                            emValor = false;
+                            temDigito = false;
+                        }
+                    } else if (b == '-' && !emValor) {
+                        negativo = true;
+                        emValor = true;
+                    } else {
+                        throw new NumberFormatException("Byte inválido " + descrever(b) + " na posição " + (inicio + i));
+                    }
+                }
+            }
+            if (emValor) {
+                destino.accept(converter(valor, negativo, temDigito, tamanho));
+            }
+        }
+    }
+    /**
+     * Se o byte é espaço, '\t', '\n', a tabulação vertical, '\f' ou '\r'.
+     */
+    private static boolean espacoEmBranco(int b) {
+        return b == ' ' || (b >= '\t' && b <= '\r');
+    }
+    private static String descrever(int b) {
+        return b > ' ' && b < 0x7F ? "'" + (char) b + "'" : String.format("0x%02X", b);
+    }
+    private static int converter(long valor, boolean negativo, boolean temDigito, long posicao) {
+        long v = negativo ? -valor : valor;
+        if (!temDigito || v > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Valor inválido antes da posição " + posicao);
+        }
+        return (int) v;
+    }
+
+    /**
+     * Lê todos os valores do arquivo para um vetor de primitivos, pronto para
+     * {@link ArvoreBinariadeBusca#construirEmLote(int[], Balanceamento)}.
+     * @param arquivo o arquivo de valores.
+     * @return os valores na ordem do arquivo.
+     * @throws IOException se o arquivo não puder ser lido.
+     */
+    public static int[] lerVetor(Path arquivo) throws IOException {
+        VetorCrescente vetor = new VetorCrescente();
+        ler(arquivo, vetor);
+        return vetor.paraVetor();
+    }
+
+    /**
+     * Acumula inteiros em um vetor que cresce 50% quando fica cheio.
+     */
+    private static final class VetorCrescente implements IntConsumer {
+        private int[] valores = new int[1024];
+        private int tamanho = 0;
+
+        @Override
+        public void accept(int valor) {
+            if (this.tamanho == this.valores.length) {
+                this.valores = Arrays.copyOf(this.valores, this.valores.length + (this.valores.length >> 1));
+            }
+            this.valores[this.tamanho++] = valor;
+        }
+
+        int[] paraVetor() {
+            return this.tamanho == this.valores.length ? this.valores : Arrays.copyOf(this.valores, this.tamanho);
+        }
+    }
+}
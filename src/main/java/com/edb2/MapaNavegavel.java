@@ -0,0 +1,401 @@
+package com.edb2;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+
+/**
+ *  Visão de uma {@link ArvoreCosturada} como {@link NavigableMap}, para que ela possa substituir um
+ * {@link java.util.TreeMap}. Obtida com {@link ArvoreCosturada#comoMapa()}.
+ *
+ *  Como em {@link ConjuntoNavegavel}, as visões de intervalo e a visão decrescente são instâncias desta classe com
+ * limites e sentido diferentes sobre a mesma árvore. Os limites são guardados na ordem crescente da árvore (cada um
+ * com a chave e se é inclusivo); a visão decrescente troca teto por piso e sucessor por antecessor.
+ *
+ *  Os iteradores seguem as costuras, em O(1) amortizado por passo e sem pilha, e falham rápido com
+ * {@link ConcurrentModificationException}. As entradas devolvidas pelos métodos de navegação (firstEntry,
+ * ceilingEntry etc.) são cópias imutáveis, como no TreeMap; as do entrySet são as próprias entradas da árvore.
+ * @param <K> o tipo das chaves.
+ * @param <V> o tipo dos valores.
+ */
+public class MapaNavegavel<K, V> extends AbstractMap<K, V> implements NavigableMap<K, V> {
+    private final ArvoreCosturada<K, V> arvore;
+    private final boolean temInicio;
+    private final K inicio;
+    private final boolean inicioInclusivo;
+    private final boolean temFim;
+    private final K fim;
+    private final boolean fimInclusivo;
+    private final boolean decrescente;
+
+    public MapaNavegavel(ArvoreCosturada<K, V> arvore) {
+        this(arvore, false, null, true, false, null, true, false);
+    }
+    private MapaNavegavel(ArvoreCosturada<K, V> arvore, boolean temInicio, K inicio, boolean inicioInclusivo,
+            boolean temFim, K fim, boolean fimInclusivo, boolean decrescente) {
+        this.arvore = arvore;
+        this.temInicio = temInicio;
+        this.inicio = inicio;
+        this.inicioInclusivo = inicioInclusivo;
+        this.temFim = temFim;
+        this.fim = fim;
+        this.fimInclusivo = fimInclusivo;
+        this.decrescente = decrescente;
+    }
+
+    private int comparar(K a, K b) {
+        return this.arvore.getComparador().compare(a, b);
+    }
+    private boolean abaixoDoInicio(K chave) {
+        if (!this.temInicio) {
+            return false;
+        }
+        int c = comparar(chave, this.inicio);
+        return c < 0 || c == 0 && !this.inicioInclusivo;
+    }
+    private boolean acimaDoFim(K chave) {
+        if (!this.temFim) {
+            return false;
+        }
+        int c = comparar(chave, this.fim);
+        return c > 0 || c == 0 && !this.fimInclusivo;
+    }
+    private boolean noIntervalo(K chave) {
+        return !abaixoDoInicio(chave) && !acimaDoFim(chave);
+    }
+
+    // Navegação na ordem crescente da árvore, restrita ao intervalo.
+    private ArvoreCosturada.Entrada<K, V> primeiraCrescente() {
+        ArvoreCosturada.Entrada<K, V> e = this.temInicio ? this.arvore.teto(this.inicio, this.inicioInclusivo)
+                : this.arvore.primeiraEntrada();
+        return e == null || acimaDoFim(e.getKey()) ? null : e;
+    }
+    private ArvoreCosturada.Entrada<K, V> ultimaCrescente() {
+        ArvoreCosturada.Entrada<K, V> e = this.temFim ? this.arvore.piso(this.fim, this.fimInclusivo)
+                : this.arvore.ultimaEntrada();
+        return e == null || abaixoDoInicio(e.getKey()) ? null : e;
+    }
+    private ArvoreCosturada.Entrada<K, V> teto(K chave, boolean inclusivo) {
+        if (abaixoDoInicio(chave)) {
+            return primeiraCrescente();
+        }
+        ArvoreCosturada.Entrada<K, V> e = this.arvore.teto(chave, inclusivo);
+        return e == null || acimaDoFim(e.getKey()) ? null : e;
+    }
+    private ArvoreCosturada.Entrada<K, V> piso(K chave, boolean inclusivo) {
+        if (acimaDoFim(chave)) {
+            return ultimaCrescente();
+        }
+        ArvoreCosturada.Entrada<K, V> e = this.arvore.piso(chave, inclusivo);
+        return e == null || abaixoDoInicio(e.getKey()) ? null : e;
+    }
+    private ArvoreCosturada.Entrada<K, V> primeira() {
+        return this.decrescente ? ultimaCrescente() : primeiraCrescente();
+    }
+    private ArvoreCosturada.Entrada<K, V> ultima() {
+        return this.decrescente ? primeiraCrescente() : ultimaCrescente();
+    }
+    private static <K, V> Map.Entry<K, V> copia(ArvoreCosturada.Entrada<K, V> e) {
+        return e == null ? null : new AbstractMap.SimpleImmutableEntry<>(e);
+    }
+    private static <K> K chave(ArvoreCosturada.Entrada<K, ?> e) {
+        return e == null ? null : e.getKey();
+    }
+    private static <K> K chaveExistente(ArvoreCosturada.Entrada<K, ?> e) {
+        if (e == null) {
+            throw new NoSuchElementException();
+        }
+        return e.getKey();
+    }
+
+    @Override
+    public Map.Entry<K, V> lowerEntry(K chave) {
+        return copia(this.decrescente ? teto(chave, false) : piso(chave, false));
+    }
+    @Override
+    public K lowerKey(K chave) {
+        return chave(this.decrescente ? teto(chave, false) : piso(chave, false));
+    }
+    @Override
+    public Map.Entry<K, V> floorEntry(K chave) {
+        return copia(this.decrescente ? teto(chave, true) : piso(chave, true));
+    }
+    @Override
+    public K floorKey(K chave) {
+        return chave(this.decrescente ? teto(chave, true) : piso(chave, true));
+    }
+    @Override
+    public Map.Entry<K, V> ceilingEntry(K chave) {
+        return copia(this.decrescente ? piso(chave, true) : teto(chave, true));
+    }
+    @Override
+    public K ceilingKey(K chave) {
+        return chave(this.decrescente ? piso(chave, true) : teto(chave, true));
+    }
+    @Override
+    public Map.Entry<K, V> higherEntry(K chave) {
+        return copia(this.decrescente ? piso(chave, false) : teto(chave, false));
+    }
+    @Override
+    public K higherKey(K chave) {
+        return chave(this.decrescente ? piso(chave, false) : teto(chave, false));
+    }
+    @Override
+    public Map.Entry<K, V> firstEntry() {
+        return copia(primeira());
+    }
+    @Override
+    public Map.Entry<K, V> lastEntry() {
+        return copia(ultima());
+    }
+    @Override
+    public K firstKey() {
+        return chaveExistente(primeira());
+    }
+    @Override
+    public K lastKey() {
+        return chaveExistente(ultima());
+    }
+    @Override
+    public Map.Entry<K, V> pollFirstEntry() {
+        return retirar(primeira());
+    }
+    @Override
+    public Map.Entry<K, V> pollLastEntry() {
+        return retirar(ultima());
+    }
+    private Map.Entry<K, V> retirar(ArvoreCosturada.Entrada<K, V> e) {
+        if (e == null) {
+            return null;
+        }
+        Map.Entry<K, V> copia = copia(e);
+        this.arvore.remover(e);
+        return copia;
+    }
+
+    @Override
+    public int size() {
+        if (!this.temInicio && !this.temFim) {
+            return this.arvore.getTamanho();
+        }
+        ArvoreCosturada.Entrada<K, V> primeira = primeiraCrescente();
+        ArvoreCosturada.Entrada<K, V> ultima = ultimaCrescente();
+        if (primeira == null || ultima == null || comparar(primeira.getKey(), ultima.getKey()) > 0) {
+            return 0;
+        }
+        return EstruturaCosturada.posicaoDe(ultima) - EstruturaCosturada.posicaoDe(primeira) + 1;
+    }
+    @Override
+    public boolean isEmpty() {
+        return primeira() == null;
+    }
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean containsKey(Object chave) {
+        K k = (K) chave;
+        return noIntervalo(k) && this.arvore.contains(k);
+    }
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object chave) {
+        K k = (K) chave;
+        return noIntervalo(k) ? this.arvore.obter(k) : null;
+    }
+    @Override
+    public V put(K chave, V valor) {
+        if (!noIntervalo(chave)) {
+            throw new IllegalArgumentException("Chave fora do intervalo da visão: " + chave);
+        }
+        return this.arvore.associar(chave, valor);
+    }
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object chave) {
+        K k = (K) chave;
+        if (!noIntervalo(k)) {
+            return null;
+        }
+        ArvoreCosturada.Entrada<K, V> e = this.arvore.buscar(k);
+        if (e == null) {
+            return null;
+        }
+        V valor = e.getValue();
+        this.arvore.remover(e);
+        return valor;
+    }
+    @Override
+    public Comparator<? super K> comparator() {
+        Comparator<? super K> comparador = this.arvore.getComparador();
+        return this.decrescente ? Collections.reverseOrder(comparador) : comparador;
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<Map.Entry<K, V>>() {
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                return new Iterador(MapaNavegavel.this.decrescente);
+            }
+            @Override
+            public int size() {
+                return MapaNavegavel.this.size();
+            }
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof Map.Entry)) {
+                    return false;
+                }
+                Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+                return containsKey(e.getKey()) && Objects.equals(get(e.getKey()), e.getValue());
+            }
+        };
+    }
+    @Override
+    public NavigableSet<K> navigableKeySet() {
+        return new ChavesNavegaveis<>(this);
+    }
+    @Override
+    public Set<K> keySet() {
+        return navigableKeySet();
+    }
+    @Override
+    public NavigableSet<K> descendingKeySet() {
+        return descendingMap().navigableKeySet();
+    }
+    @Override
+    public NavigableMap<K, V> descendingMap() {
+        return new MapaNavegavel<>(this.arvore, this.temInicio, this.inicio, this.inicioInclusivo,
+                this.temFim, this.fim, this.fimInclusivo, !this.decrescente);
+    }
+
+    @Override
+    public NavigableMap<K, V> subMap(K de, boolean deInclusivo, K ate, boolean ateInclusivo) {
+        if (comparator().compare(de, ate) > 0) {
+            throw new IllegalArgumentException("Início depois do fim: " + de + ", " + ate);
+        }
+        return this.decrescente
+                ? limitar(true, ate, ateInclusivo, true, de, deInclusivo)
+                : limitar(true, de, deInclusivo, true, ate, ateInclusivo);
+    }
+    @Override
+    public NavigableMap<K, V> headMap(K ate, boolean inclusivo) {
+        return this.decrescente
+                ? limitar(true, ate, inclusivo, false, null, false)
+                : limitar(false, null, false, true, ate, inclusivo);
+    }
+    @Override
+    public NavigableMap<K, V> tailMap(K de, boolean inclusivo) {
+        return this.decrescente
+                ? limitar(false, null, false, true, de, inclusivo)
+                : limitar(true, de, inclusivo, false, null, false);
+    }
+    @Override
+    public SortedMap<K, V> subMap(K de, K ate) {
+        return subMap(de, true, ate, false);
+    }
+    @Override
+    public SortedMap<K, V> headMap(K ate) {
+        return headMap(ate, false);
+    }
+    @Override
+    public SortedMap<K, V> tailMap(K de) {
+        return tailMap(de, true);
+    }
+    /**
+     * Cria a visão com os novos limites (na ordem crescente); os limites não informados são os desta visão.
+     * Como no TreeMap, um novo limite inclusivo precisa estar no intervalo desta visão, e um exclusivo pode
+     * coincidir com os extremos dela.
+     */
+    private MapaNavegavel<K, V> limitar(boolean novoTemInicio, K novoInicio, boolean novoInicioInclusivo,
+            boolean novoTemFim, K novoFim, boolean novoFimInclusivo) {
+        if (novoTemInicio) {
+            verificarLimite(novoInicio, novoInicioInclusivo);
+        } else {
+            novoInicio = this.inicio;
+            novoInicioInclusivo = this.inicioInclusivo;
+        }
+        if (novoTemFim) {
+            verificarLimite(novoFim, novoFimInclusivo);
+        } else {
+            novoFim = this.fim;
+            novoFimInclusivo = this.fimInclusivo;
+        }
+        return new MapaNavegavel<>(this.arvore, novoTemInicio || this.temInicio, novoInicio, novoInicioInclusivo,
+                novoTemFim || this.temFim, novoFim, novoFimInclusivo, this.decrescente);
+    }
+    private void verificarLimite(K chave, boolean inclusivo) {
+        boolean dentro = inclusivo ? noIntervalo(chave)
+                : !(this.temInicio && comparar(chave, this.inicio) < 0) && !(this.temFim && comparar(chave, this.fim) > 0);
+        if (!dentro) {
+            throw new IllegalArgumentException("Limite fora do intervalo da visão: " + chave);
+        }
+    }
+
+    /**
+     * Iterador pelas entradas da árvore que segue as costuras no sentido dado, dentro do intervalo da visão.
+     */
+    private final class Iterador implements Iterator<Map.Entry<K, V>> {
+        private final boolean paraTras;
+        private ArvoreCosturada.Entrada<K, V> proxima;
+        private ArvoreCosturada.Entrada<K, V> ultima;
+        private int modificacoesEsperadas;
+
+        Iterador(boolean paraTras) {
+            this.paraTras = paraTras;
+            this.proxima = paraTras ? ultimaCrescente() : primeiraCrescente();
+            this.modificacoesEsperadas = MapaNavegavel.this.arvore.modificacoes;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.proxima != null;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (this.proxima == null) {
+                throw new NoSuchElementException();
+            }
+            verificarModificacoes();
+            this.ultima = this.proxima;
+            ArvoreCosturada.Entrada<K, V> seguinte = this.paraTras ? ArvoreCosturada.antecessor(this.ultima)
+                    : ArvoreCosturada.sucessor(this.ultima);
+            if (seguinte != null && (this.paraTras ? abaixoDoInicio(seguinte.getKey()) : acimaDoFim(seguinte.getKey()))) {
+                seguinte = null;
+            }
+            this.proxima = seguinte;
+            return this.ultima;
+        }
+
+        @Override
+        public void remove() {
+            if (this.ultima == null) {
+                throw new IllegalStateException();
+            }
+            verificarModificacoes();
+            //Uma entrada com dois filhos recebe o conteúdo da sucessora, que é quem sai da árvore.
+            if (!this.ultima.costuraEsquerda && !this.ultima.costuraDireita && !this.paraTras && this.proxima != null) {
+                this.proxima = this.ultima;
+            }
+            MapaNavegavel.this.arvore.remover(this.ultima);
+            this.ultima = null;
+            this.modificacoesEsperadas = MapaNavegavel.this.arvore.modificacoes;
+        }
+
+        private void verificarModificacoes() {
+            if (MapaNavegavel.this.arvore.modificacoes != this.modificacoesEsperadas) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
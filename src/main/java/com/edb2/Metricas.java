@@ -0,0 +1,232 @@
+package com.edb2;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ *  Métricas de uma {@link ArvoreBinariadeBusca}, habilitadas com {@link ArvoreBinariadeBusca#habilitarMetricas()}.
+ * Com as métricas desabilitadas (o padrão) a árvore só faz uma comparação com null por operação.
+ *
+ *  Para cada {@link Operacao} são medidos a latência, em nanossegundos, e a quantidade de nós no caminho da raiz
+ * até o valor (ou até onde ele ficaria), em {@link Histograma}s livres de travas. Os nós visitados são contados
+ * na própria descida da operação, antes de qualquer rotação ou afunilamento: uma inserção conta os nós comparados
+ * até o pai do novo nó, e uma remoção os da busca do valor. Também são contados os percursos de
+ * {@link ArvoreBinariadeBusca#intervalo(int, int)}, quando são criados, e os passos de sucessor de todos eles, a
+ * cada valor entregue, de modo que percursos vazios ou abandonados antes do fim também entram na média; e as
+ * remoções de nós com dois filhos, que são as que trocam o valor com o sucessor.
+ *
+ *  Os números podem ser lidos com {@link #latencia(Operacao)}, {@link #nosVisitados(Operacao)} e os demais
+ * métodos, pelo JMX ({@link #registrarJmx(String)}) ou pelo JDK Flight Recorder, com o evento
+ * {@code com.edb2.Operacao} ({@link EventoOperacao}). O evento só é emitido se a JVM tiver o pacote jdk.jfr, que
+ * não existe no Java 8 antes do 8u262; sem ele, as demais métricas funcionam normalmente.
+ */
+public final class Metricas implements MetricasMXBean {
+    /**
+     * Operações medidas. {@link ArvoreBinariadeBusca#contains(int)} conta como busca, e
+     * {@link ArvoreBinariadeBusca#mediana()} como enésimo elemento.
+     */
+    public enum Operacao {
+        BUSCAR, INSERIR, REMOVER, POSICAO, ENESIMO_ELEMENTO
+    }
+
+    /**
+     * Resumo de um histograma no momento da leitura.
+     */
+    public static final class Resumo {
+        private final long contagem;
+        private final double media;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+        private final long p999;
+        private final long maximo;
+
+        Resumo(long contagem, double media, long p50, long p90, long p99, long p999, long maximo) {
+            this.contagem = contagem;
+            this.media = media;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.p999 = p999;
+            this.maximo = maximo;
+        }
+
+        public long getContagem() {
+            return this.contagem;
+        }
+        public double getMedia() {
+            return this.media;
+        }
+        public long getP50() {
+            return this.p50;
+        }
+        public long getP90() {
+            return this.p90;
+        }
+        public long getP99() {
+            return this.p99;
+        }
+        public long getP999() {
+            return this.p999;
+        }
+        public long getMaximo() {
+            return this.maximo;
+        }
+
+        @Override
+        public String toString() {
+            return "n=" + this.contagem + " média=" + this.media + " p50=" + this.p50 + " p90=" + this.p90
+                    + " p99=" + this.p99 + " p99.9=" + this.p999 + " máx=" + this.maximo;
+        }
+    }
+
+    /**
+     * Se o JDK Flight Recorder existe nesta JVM. Sem ele, {@link EventoOperacao}, que estende jdk.jfr.Event,
+     * nunca é carregada.
+     */
+    private static final boolean JFR_DISPONIVEL = jfrDisponivel();
+
+    private final Map<Operacao, Histograma> latencias = new EnumMap<>(Operacao.class);
+    private final Map<Operacao, Histograma> visitados = new EnumMap<>(Operacao.class);
+    private final LongAdder percursos = new LongAdder();
+    private final LongAdder passosSucessor = new LongAdder();
+    private final LongAdder remocoesComDoisFilhos = new LongAdder();
+
+    Metricas() {
+        for (Operacao operacao : Operacao.values()) {
+            this.latencias.put(operacao, new Histograma());
+            this.visitados.put(operacao, new Histograma());
+        }
+    }
+
+    private static boolean jfrDisponivel() {
+        try {
+            Class.forName("jdk.jfr.Event", false, Metricas.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Registra uma operação que começou no instante dado (de {@link System#nanoTime()}) e terminou agora.
+     */
+    void registrar(Operacao operacao, int valor, long inicio, int nosVisitados) {
+        long duracao = System.nanoTime() - inicio;
+        this.latencias.get(operacao).registrar(duracao);
+        this.visitados.get(operacao).registrar(nosVisitados);
+        if (JFR_DISPONIVEL) {
+            EventoOperacao.emitir(operacao, valor, nosVisitados, duracao);
+        }
+    }
+    void registrarPercurso() {
+        this.percursos.increment();
+    }
+    void registrarPassoSucessor() {
+        this.passosSucessor.increment();
+    }
+    void registrarRemocaoComDoisFilhos() {
+        this.remocoesComDoisFilhos.increment();
+    }
+
+    public long getContagem(Operacao operacao) {
+        return this.latencias.get(operacao).resumo().getContagem();
+    }
+    /**
+     * Latências da operação, em nanossegundos.
+     */
+    public Resumo latencia(Operacao operacao) {
+        return this.latencias.get(operacao).resumo();
+    }
+    /**
+     * Nós no caminho da raiz percorrido pela operação.
+     */
+    public Resumo nosVisitados(Operacao operacao) {
+        return this.visitados.get(operacao).resumo();
+    }
+    /**
+     * Percursos de intervalo criados, terminados ou não.
+     */
+    @Override
+    public long getPercursos() {
+        return this.percursos.sum();
+    }
+    /**
+     * Passos de sucessor (valores entregues) somados de todos os percursos de intervalo.
+     */
+    public long getPassosSucessor() {
+        return this.passosSucessor.sum();
+    }
+    @Override
+    public long getRemocoesComDoisFilhos() {
+        return this.remocoesComDoisFilhos.sum();
+    }
+    @Override
+    public void zerar() {
+        for (Operacao operacao : Operacao.values()) {
+            this.latencias.get(operacao).zerar();
+            this.visitados.get(operacao).zerar();
+        }
+        this.percursos.reset();
+        this.passosSucessor.reset();
+        this.remocoesComDoisFilhos.reset();
+    }
+
+    /**
+     * Registra estas métricas no servidor JMX da plataforma, como com.edb2:type=Metricas,name=nome.
+     * @param nome o nome que identifica a árvore.
+     * @return o nome JMX registrado, para remover o registro depois.
+     * @throws JMException se o nome for inválido ou já estiver registrado.
+     */
+    public ObjectName registrarJmx(String nome) throws JMException {
+        ObjectName objeto = new ObjectName("com.edb2:type=Metricas,name=" + ObjectName.quote(nome));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objeto);
+        return objeto;
+    }
+
+    @Override
+    public Map<String, Long> getContagens() {
+        return porOperacao(this.latencias, Resumo::getContagem);
+    }
+    @Override
+    public Map<String, Long> getLatenciasP50Nanos() {
+        return porOperacao(this.latencias, Resumo::getP50);
+    }
+    @Override
+    public Map<String, Long> getLatenciasP99Nanos() {
+        return porOperacao(this.latencias, Resumo::getP99);
+    }
+    @Override
+    public Map<String, Long> getLatenciasMaximasNanos() {
+        return porOperacao(this.latencias, Resumo::getMaximo);
+    }
+    @Override
+    public Map<String, Double> getNosVisitadosMedios() {
+        Map<String, Double> mapa = new LinkedHashMap<>();
+        for (Operacao operacao : Operacao.values()) {
+            mapa.put(operacao.name(), this.visitados.get(operacao).resumo().getMedia());
+        }
+        return mapa;
+    }
+    @Override
+    public double getPassosSucessorMedios() {
+        //Os percursos antes dos passos: um percurso criado no meio da leitura só pode baixar a média.
+        long percursos = this.percursos.sum();
+        long passos = this.passosSucessor.sum();
+        return percursos == 0 ? 0 : (double) passos / percursos;
+    }
+    private static Map<String, Long> porOperacao(Map<Operacao, Histograma> histogramas, ToLongFunction<Resumo> campo) {
+        Map<String, Long> mapa = new LinkedHashMap<>();
+        for (Operacao operacao : Operacao.values()) {
+            mapa.put(operacao.name(), campo.applyAsLong(histogramas.get(operacao).resumo()));
+        }
+        return mapa;
+    }
+}
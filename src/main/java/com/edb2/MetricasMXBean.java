@@ -0,0 +1,19 @@
+package com.edb2;
+
+import java.util.Map;
+
+/**
+ * Interface JMX das {@link Metricas} de uma árvore. Os mapas são indexados pelo nome da {@link Metricas.Operacao}.
+ * Registrada com {@link Metricas#registrarJmx(String)}.
+ */
+public interface MetricasMXBean {
+    Map<String, Long> getContagens();
+    Map<String, Long> getLatenciasP50Nanos();
+    Map<String, Long> getLatenciasP99Nanos();
+    Map<String, Long> getLatenciasMaximasNanos();
+    Map<String, Double> getNosVisitadosMedios();
+    long getPercursos();
+    double getPassosSucessorMedios();
+    long getRemocoesComDoisFilhos();
+    void zerar();
+}
@@ -20,23 +20,30 @@ package com.edb2;
  *      cD   = booleano que indica se o filho da direita é uma costura ou não (se for de costura, o endereço do filho da direita é o endereço do sucessor)
  *      PAI  = endereço do pai do nó
  *      VALOR= valor do nó (inteiro)
+ *
+ *  Todos os campos de valor e de costura são primitivos, para que cada nó ocupe um único objeto no heap
+ *  e as comparações nas descidas não precisem desencaixotar Integer nem Boolean.
  * @author Lucas Nogueira (@fawnbr) e Ianco Oliveira (@ianco-so)
  * @since 04/11/2022
  */
 
 public class No implements Comparable<No> {
-    private Integer valor;
+    private int valor;
 
-    private Boolean costuraEsquerda;
+    private boolean costuraEsquerda;
     private No filhoEsquerda;
 
-    private Boolean costuraDireita;
+    private boolean costuraDireita;
     private No filhoDireita;
 
     private No pai;
 
+    private int tamanho;
+    private int altura;
+    private long soma;
+
     // CONSTRUTOR
-    public No(Integer valor) {
+    public No(int valor) {
         this.valor = valor;
 
         this.costuraEsquerda = false;
@@ -46,6 +53,10 @@ public class No implements Comparable<No> {
         this.filhoDireita = null;
 
         this.pai = null;
+
+        this.tamanho = 1;
+        this.altura = 1;
+        this.soma = valor;
     }
 
     /**
@@ -54,22 +65,22 @@ public class No implements Comparable<No> {
      *
      * @return true se o nó é uma folha, false caso contrário.
      */
-    public Boolean isFolha() {
+    public boolean isFolha() {
         return this.isCosturaEsquerda() && this.isCosturaDireita();
     }
 
     // GETTERS E SETTERS
-    public Integer getValor() {
+    public int getValor() {
         return this.valor;
     }
-    public void setValor(Integer valor) {
+    public void setValor(int valor) {
         this.valor = valor;
     }
 
-    public Boolean isCosturaEsquerda() {
+    public boolean isCosturaEsquerda() {
         return this.costuraEsquerda;
     }
-    public void setCosturaEsquerda(Boolean costuraEsquerda) {
+    public void setCosturaEsquerda(boolean costuraEsquerda) {
         this.costuraEsquerda = costuraEsquerda;
     }
 
@@ -80,10 +91,10 @@ public class No implements Comparable<No> {
         this.filhoEsquerda = filhoEsquerda;
     }
 
-    public Boolean isCosturaDireita() {
+    public boolean isCosturaDireita() {
         return this.costuraDireita;
     }
-    public void setCosturaDireita(Boolean costuraDireita) {
+    public void setCosturaDireita(boolean costuraDireita) {
         this.costuraDireita = costuraDireita;
     }
 
@@ -101,6 +112,42 @@ public class No implements Comparable<No> {
         this.pai = pai;
     }
 
+    /**
+     * Quantidade de nós da sub-árvore enraizada neste nó (incluindo o próprio nó).
+     * É mantida pela árvore a cada inserção e remoção, ao longo do caminho até a raiz.
+     * @return tamanho da sub-árvore
+     */
+    public int getTamanho() {
+        return this.tamanho;
+    }
+    public void setTamanho(int tamanho) {
+        this.tamanho = tamanho;
+    }
+
+    /**
+     * Altura da sub-árvore enraizada neste nó (uma folha tem altura 1).
+     * Também é mantida pela árvore ao longo do caminho e usada no balanceamento AVL.
+     * @return altura da sub-árvore
+     */
+    public int getAltura() {
+        return this.altura;
+    }
+    public void setAltura(int altura) {
+        this.altura = altura;
+    }
+
+    /**
+     * Soma dos valores da sub-árvore enraizada neste nó (incluindo o próprio valor), em long para não transbordar.
+     * É mantida junto com o tamanho e a altura, e permite somar um intervalo de valores em O(log n).
+     * @return soma da sub-árvore
+     */
+    public long getSoma() {
+        return this.soma;
+    }
+    public void setSoma(long soma) {
+        this.soma = soma;
+    }
+
     @Override
     public String toString() {
         return  "{" +
@@ -110,6 +157,9 @@ public class No implements Comparable<No> {
                 ", costuraDireita='" + isCosturaDireita() + "'" +
                 ", filhoDireita='" + getFilhoDireita() + "'" +
                 ", pai='" + getPai() + "'" +
+                ", tamanho='" + getTamanho() + "'" +
+                ", altura='" + getAltura() + "'" +
+                ", soma='" + getSoma() + "'" +
                 "}";
     }
 
@@ -119,11 +169,16 @@ public class No implements Comparable<No> {
             return false;
         }
         No no = (No) o;
-        return this.getValor().equals(no.getValor());
+        return this.getValor() == no.getValor();
+    }
+
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(this.getValor());
     }
 
     @Override
     public int compareTo(No o) {
-        return this.getValor().compareTo(o.getValor());
+        return Integer.compare(this.getValor(), o.getValor());
     }
 }
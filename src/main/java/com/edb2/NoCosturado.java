@@ -0,0 +1,24 @@
+package com.edb2;
+
+/**
+ * Parte estrutural de um nó das árvores costuradas com chaves de outros tipos ({@link ArvoreCosturada},
+ * {@link ArvoreCosturadaLong}): os filhos ou costuras, o pai, e o tamanho e a altura da sub-árvore, com o mesmo
+ * significado dos campos de {@link No}. A chave e o valor associado ficam nas subclasses, com o tipo de cada árvore,
+ * para que as chaves primitivas não precisem ser encaixotadas.
+ *
+ *  Os campos são acessados diretamente por {@link EstruturaCosturada}, que é quem mantém as costuras e os tamanhos.
+ * @param <N> o tipo concreto do nó.
+ */
+abstract class NoCosturado<N extends NoCosturado<N>> {
+    N esquerda;
+    N direita;
+    N pai;
+    boolean costuraEsquerda;
+    boolean costuraDireita;
+    int tamanho = 1;
+    int altura = 1;
+
+    boolean isFolha() {
+        return this.costuraEsquerda && this.costuraDireita;
+    }
+}
@@ -0,0 +1,183 @@
+package com.edb2;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.function.IntConsumer;
+
+/**
+ * Percursos da {@link ArvoreBinariadeBusca}, todos iterativos: nenhum deles usa recursão, então árvores
+ * degeneradas (uma lista de milhões de nós, vinda de uma entrada ordenada) não estouram a pilha.
+ *
+ *  PRE_ORDEM = o nó, depois a sub-árvore da esquerda e a da direita.
+ *  EM_ORDEM  = ordem simétrica; segue as costuras a partir do menor nó, com {@link ArvoreBinariadeBusca#sucessor(No)}.
+ *  POS_ORDEM = as sub-árvores da esquerda e da direita, depois o nó.
+ *  EM_NIVEL  = nível por nível, da esquerda para a direita, com uma fila de nós.
+ *
+ *  Os percursos em pré-ordem e pós-ordem (e as impressões da árvore) descem pelos filhos e sobem pelos
+ * ponteiros de pai, sem pilha: cada nó é visitado no máximo três vezes, então o percurso é O(n) com memória O(1).
+ */
+public enum Percurso {
+    PRE_ORDEM,
+    EM_ORDEM,
+    POS_ORDEM,
+    EM_NIVEL;
+
+    /**
+     * Recebe os eventos de {@link #visitar(No, Visitante)}. Os métodos não implementados ignoram o evento.
+     */
+    interface Visitante {
+        /**
+         * Chegada ao nó, vindo do pai: o momento da pré-ordem. A raiz está na profundidade 0.
+         */
+        default void entrar(No no, int profundidade) {
+        }
+        /**
+         * A sub-árvore da esquerda já foi percorrida: o momento da ordem simétrica.
+         */
+        default void simetrica(No no) {
+        }
+        /**
+         * As duas sub-árvores já foram percorridas: o momento da pós-ordem.
+         */
+        default void sair(No no) {
+        }
+    }
+
+    /**
+     * Entrega os valores da árvore enraizada em raiz, na ordem deste percurso, ao consumidor.
+     * @param raiz a raiz da árvore (ou null, para uma árvore vazia).
+     * @param consumidor quem recebe os valores.
+     */
+    void percorrer(No raiz, IntConsumer consumidor) {
+        if (raiz == null) {
+            return;
+        }
+        switch (this) {
+            case PRE_ORDEM:
+                visitar(raiz, new Visitante() {
+                    @Override
+                    public void entrar(No no, int profundidade) {
+                        consumidor.accept(no.getValor());
+                    }
+                });
+                break;
+            case EM_ORDEM:
+                No no = raiz;
+                while (!no.isCosturaEsquerda()) {
+                    no = no.getFilhoEsquerda();
+                }
+                for (; no != null; no = ArvoreBinariadeBusca.sucessor(no)) {
+                    consumidor.accept(no.getValor());
+                }
+                break;
+            case POS_ORDEM:
+                visitar(raiz, new Visitante() {
+                    @Override
+                    public void sair(No no) {
+                        consumidor.accept(no.getValor());
+                    }
+                });
+                break;
+            default:
+                ArrayDeque<No> fila = new ArrayDeque<>();
+                fila.add(raiz);
+                while (!fila.isEmpty()) {
+                    No atual = fila.poll();
+                    consumidor.accept(atual.getValor());
+                    if (!atual.isCosturaEsquerda()) {
+                        fila.add(atual.getFilhoEsquerda());
+                    }
+                    if (!atual.isCosturaDireita()) {
+                        fila.add(atual.getFilhoDireita());
+                    }
+                }
+        }
+    }
+    /**
+     * Escreve os valores da árvore enraizada em raiz, na ordem deste percurso e separados por um espaço,
+     * direto na saída, sem montar strings intermediárias. Para saídas que não sejam um StringBuilder,
+     * cada caractere é escrito com {@link Appendable#append(char)}, então convém que a saída tenha buffer.
+     * @param raiz a raiz da árvore (ou null, para uma árvore vazia).
+     * @param saida onde os valores serão escritos.
+     * @throws IOException se a saída falhar.
+     */
+    void escrever(No raiz, Appendable saida) throws IOException {
+        char[] digitos = new char[11];
+        boolean[] primeiro = {true};
+        try {
+            percorrer(raiz, v -> {
+                try {
+                    if (!primeiro[0]) {
+                        saida.append(' ');
+                    }
+                    primeiro[0] = false;
+                    escreverInteiro(saida, v, digitos);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+    private static void escreverInteiro(Appendable saida, int v, char[] digitos) throws IOException {
+        if (saida instanceof StringBuilder) {
+            ((StringBuilder) saida).append(v);
+            return;
+        }
+        long resto = Math.abs((long) v);
+        int i = digitos.length;
+        do {
+            digitos[--i] = (char) ('0' + resto % 10);
+            resto /= 10;
+        } while (resto != 0);
+        if (v < 0) {
+            digitos[--i] = '-';
+        }
+        for (; i < digitos.length; i++) {
+            saida.append(digitos[i]);
+        }
+    }
+
+    /**
+     * Percorre a árvore enraizada em raiz descendo pelos filhos e subindo pelos ponteiros de pai, avisando o
+     * visitante ao entrar em cada nó, ao terminar a sub-árvore da esquerda e ao terminar as duas sub-árvores.
+     * O nó de onde se veio diz em que fase do nó atual estamos: do pai (entrada), do filho da esquerda
+     * (ordem simétrica) ou do filho da direita (saída).
+     * @param raiz a raiz da árvore ou de uma sub-árvore; o percurso não sai dela.
+     * @param visitante quem recebe os eventos.
+     */
+    static void visitar(No raiz, Visitante visitante) {
+        No no = raiz;
+        No anterior = raiz == null ? null : raiz.getPai();
+        No fim = anterior;
+        int profundidade = 0;
+        while (no != fim) {
+            No proximo;
+            if (anterior == no.getPai()) {
+                visitante.entrar(no, profundidade);
+                if (!no.isCosturaEsquerda()) {
+                    proximo = no.getFilhoEsquerda();
+                } else {
+                    visitante.simetrica(no);
+                    proximo = no.isCosturaDireita() ? null : no.getFilhoDireita();
+                }
+            } else if (!no.isCosturaEsquerda() && anterior == no.getFilhoEsquerda()) {
+                visitante.simetrica(no);
+                proximo = no.isCosturaDireita() ? null : no.getFilhoDireita();
+            } else {
+                proximo = null;
+            }
+            if (proximo == null) {
+                visitante.sair(no);
+                proximo = no.getPai();
+                profundidade--;
+            } else {
+                profundidade++;
+            }
+            anterior = no;
+            no = proximo;
+        }
+    }
+}
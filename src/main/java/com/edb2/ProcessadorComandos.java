@@ -0,0 +1,397 @@
+package com.edb2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Executa um arquivo de operações (como o arquivo2.txt) sobre uma árvore, escrevendo os resultados em uma saída.
+ *
+ *  O arquivo é lido em blocos direto para um vetor de bytes e cada linha é separada em palavras sem criar Strings.
+ * O nome da operação é reconhecido por uma tabela de códigos montada uma única vez, indexada pela primeira letra,
+ * e o argumento numérico é convertido direto dos bytes. Os resultados vão para a saída dada, que deve ser
+ * bufferizada (por exemplo, um PrintStream sem autoflush sobre um BufferedOutputStream).
+ *
+ *  A saída é idêntica, byte a byte, à do laço original de {@link App}: mesmas mensagens, mesma separação por
+ * espaços simples (como em {@code linha.split(" ")}), nada para operações desconhecidas e
+ * IllegalArgumentException para linhas com mais de dois parâmetros.
+ *
+ *  Opcionalmente, operações consecutivas que só leem a árvore (tudo exceto INSIRA e REMOVA) são agrupadas em
+ * lotes. Um lote é executado em paralelo quando tem pelo menos {@code tamanhoMinimoLote} operações, e os
+ * resultados são escritos na ordem original. Com {@link Balanceamento#AFUNILAMENTO} a busca altera a árvore,
+ * então as leituras nunca são agrupadas.
+ */
+public final class ProcessadorComandos {
+    private static final int CHEIA = 0;
+    private static final int COMPLETA = 1;
+    private static final int PREORDEM = 2;
+    private static final int MEDIANA = 3;
+    private static final int ENESIMO = 4;
+    private static final int INSIRA = 5;
+    private static final int IMPRIMA = 6;
+    private static final int REMOVA = 7;
+    private static final int POSICAO = 8;
+    private static final int MEDIA = 9;
+    private static final int BUSCAR = 10;
+    private static final int DESCONHECIDA = -1;
+
+    /** Nomes das operações, na ordem dos códigos acima. */
+    private static final byte[][] NOMES = {
+        bytes("CHEIA"), bytes("COMPLETA"), bytes("PREORDEM"), bytes("MEDIANA"), bytes("ENESIMO"), bytes("INSIRA"),
+        bytes("IMPRIMA"), bytes("REMOVA"), bytes("POSICAO"), bytes("MEDIA"), bytes("BUSCAR"),
+    };
+    /** Quantidade de palavras (operação e argumentos) de cada operação. */
+    private static final int[] ARIDADE = {1, 1, 1, 1, 2, 2, 2, 2, 2, 2, 2};
+    /** Códigos das operações agrupados pela primeira letra do nome. */
+    private static final int[][] POR_LETRA = new int[26][];
+
+    static {
+        for (int letra = 0; letra < 26; letra++) {
+            int[] codigos = new int[0];
+            for (int codigo = 0; codigo < NOMES.length; codigo++) {
+                if (NOMES[codigo][0] - 'A' == letra) {
+                    codigos = Arrays.copyOf(codigos, codigos.length + 1);
+                    codigos[codigos.length - 1] = codigo;
+                }
+            }
+            POR_LETRA[letra] = codigos;
+        }
+    }
+
+    private static final int TAMANHO_BLOCO = 1 << 16;
+    private static final int TAMANHO_MINIMO_LOTE = 64;
+
+    private final ArvoreBinariadeBusca abb;
+    private final PrintStream saida;
+    private final boolean agruparLeituras;
+    private final int tamanhoMinimoLote;
+
+    private int[] loteCodigos = new int[TAMANHO_MINIMO_LOTE];
+    private int[] loteValores = new int[TAMANHO_MINIMO_LOTE];
+    private int tamanhoLote = 0;
+    private RuntimeException erroPendente = null;
+
+    public ProcessadorComandos(ArvoreBinariadeBusca abb, PrintStream saida) {
+        this(abb, saida, false, TAMANHO_MINIMO_LOTE);
+    }
+    /**
+     * @param abb a árvore sobre a qual as operações são executadas.
+     * @param saida onde os resultados são escritos.
+     * @param agruparLeituras se operações consecutivas de leitura devem ser executadas em lotes.
+     * @param tamanhoMinimoLote a partir de quantas operações um lote é executado em paralelo.
+     */
+    public ProcessadorComandos(ArvoreBinariadeBusca abb, PrintStream saida, boolean agruparLeituras,
+            int tamanhoMinimoLote) {
+        this.abb = abb;
+        this.saida = saida;
+        this.agruparLeituras = agruparLeituras && abb.getBalanceamento() != Balanceamento.AFUNILAMENTO;
+        this.tamanhoMinimoLote = tamanhoMinimoLote;
+    }
+
+    /**
+     * Executa todas as operações do arquivo, na ordem. A saída não é descarregada (flush) ao final.
+     * @param arquivo o arquivo de operações.
+     * @throws IOException se o arquivo não puder ser lido.
+     */
+    public void processar(Path arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            byte[] dados = new byte[TAMANHO_BLOCO];
+            ByteBuffer buffer = ByteBuffer.wrap(dados);
+            int inicio = 0;
+            int fim = 0;
+            boolean terminou = false;
+            while (!terminou) {
+                //Move a linha incompleta para o começo e lê mais um bloco depois dela.
+                if (inicio > 0) {
+                    System.arraycopy(dados, inicio, dados, 0, fim - inicio);
+                    fim -= inicio;
+                    inicio = 0;
+                }
+                if (fim == dados.length) {
+                    dados = Arrays.copyOf(dados, dados.length * 2);
+                    buffer = ByteBuffer.wrap(dados);
+                }
+                //Pelo Buffer: os métodos de ByteBuffer que retornam o próprio tipo só existem a partir do Java 9.
+                ((Buffer) buffer).limit(dados.length).position(fim);
+                int lidos = canal.read(buffer);
+                terminou = lidos < 0;
+                if (!terminou) {
+                    fim += lidos;
+                }
+                int i = inicio;
+                while (i < fim) {
+                    byte b = dados[i];
+                    if (b == '\n' || b == '\r') {
+                        if (b == '\r' && i + 1 == fim && !terminou) {
+                            break; //Pode ser um \r\n dividido entre dois blocos.
+                        }
+                        linha(dados, inicio, i);
+                        if (b == '\r' && i + 1 < fim && dados[i + 1] == '\n') {
+                            i++;
+                        }
+                        inicio = i + 1;
+                    }
+                    i++;
+                }
+                if (terminou && inicio < fim) {
+                    linha(dados, inicio, fim);
+                    inicio = fim;
+                }
+            }
+        }
+        executarLote();
+    }
+
+    /**
+     * Processa uma linha, dada pelo intervalo [inicio, fim) do vetor.
+     */
+    private void linha(byte[] dados, int inicio, int fim) {
+        boolean temConteudo = false;
+        for (int i = inicio; i < fim && !temConteudo; i++) {
+            temConteudo = !espacoEmBranco(dados[i]);
+        }
+        int palavras = contarPalavras(dados, inicio, fim);
+        if (!temConteudo) {
+            //O laço original para quando só resta espaço em branco, então uma linha em branco que
+            //geraria erro só gera o erro se aparecer alguma operação depois dela.
+            if (this.erroPendente == null && palavras != 1) {
+                this.erroPendente = palavras == 2
+                        ? erroConversao(dados, inicio, fim)
+                        : new IllegalArgumentException("Número de parâmetros excedido!");
+            }
+            return;
+        }
+        if (this.erroPendente != null) {
+            executarLote();
+            throw this.erroPendente;
+        }
+        int fimOperacao = inicio;
+        while (fimOperacao < fim && dados[fimOperacao] != ' ') {
+            fimOperacao++;
+        }
+        int valor = 0;
+        if (palavras == 2) {
+            valor = converter(dados, fimOperacao + 1, fim);
+        } else if (palavras != 1) {
+            executarLote();
+            throw new IllegalArgumentException("Número de parâmetros excedido!");
+        }
+        int codigo = reconhecer(dados, inicio, fimOperacao);
+        if (codigo == DESCONHECIDA || ARIDADE[codigo] != palavras) {
+            return;
+        }
+        if (codigo == INSIRA || codigo == REMOVA || !this.agruparLeituras) {
+            executarLote();
+            executar(codigo, valor, this.saida);
+            return;
+        }
+        if (this.tamanhoLote == this.loteCodigos.length) {
+            this.loteCodigos = Arrays.copyOf(this.loteCodigos, this.tamanhoLote * 2);
+            this.loteValores = Arrays.copyOf(this.loteValores, this.tamanhoLote * 2);
+        }
+        this.loteCodigos[this.tamanhoLote] = codigo;
+        this.loteValores[this.tamanhoLote] = valor;
+        this.tamanhoLote++;
+    }
+
+    /**
+     * Conta as palavras como {@code linha.split(" ")}: separadas por um único espaço,
+     * descartando as palavras vazias do final.
+     */
+    private static int contarPalavras(byte[] dados, int inicio, int fim) {
+        if (inicio == fim) {
+            return 1;
+        }
+        int palavras = 0;
+        int naoVazias = 0;
+        int comecoPalavra = inicio;
+        for (int i = inicio; i <= fim; i++) {
+            if (i == fim || dados[i] == ' ') {
+                palavras++;
+                if (i > comecoPalavra) {
+                    naoVazias = palavras;
+                }
+                comecoPalavra = i + 1;
+            }
+        }
+        return naoVazias;
+    }
+
+    /**
+     * Converte o intervalo [inicio, fim) como Integer.parseInt, sem criar uma String, exceto para montar a mensagem de erro.
+     * O intervalo termina no fim da linha ou antes de um espaço final.
+     */
+    private static int converter(byte[] dados, int inicio, int fim) {
+        int limite = inicio;
+        while (limite < fim && dados[limite] != ' ') {
+            limite++;
+        }
+        int i = inicio;
+        boolean negativo = false;
+        if (i < limite && (dados[i] == '-' || dados[i] == '+')) {
+            negativo = dados[i] == '-';
+            i++;
+        }
+        if (i == limite) {
+            throw erroConversao(dados, inicio, limite);
+        }
+        long valor = 0;
+        for (; i < limite; i++) {
+            int digito = dados[i] - '0';
+            if (digito < 0 || digito > 9) {
+                throw erroConversao(dados, inicio, limite);
+            }
+            valor = valor * 10 + digito;
+            if (valor > 1L + Integer.MAX_VALUE) {
+                throw erroConversao(dados, inicio, limite);
+            }
+        }
+        valor = negativo ? -valor : valor;
+        if (valor > Integer.MAX_VALUE) {
+            throw erroConversao(dados, inicio, limite);
+        }
+        return (int) valor;
+    }
+    private static NumberFormatException erroConversao(byte[] dados, int inicio, int fim) {
+        return new NumberFormatException("For input string: \"" + new String(dados, inicio, fim - inicio) + "\"");
+    }
+
+    /**
+     * Procura o código da operação no intervalo [inicio, fim), ignorando maiúsculas e minúsculas.
+     */
+    private static int reconhecer(byte[] dados, int inicio, int fim) {
+        int letra = (dados[inicio] | 0x20) - 'a';
+        if (letra < 0 || letra >= 26) {
+            return DESCONHECIDA;
+        }
+        for (int codigo : POR_LETRA[letra]) {
+            byte[] nome = NOMES[codigo];
+            if (nome.length != fim - inicio) {
+                continue;
+            }
+            int i = 0;
+            while (i < nome.length && (dados[inicio + i] | 0x20) == (nome[i] | 0x20)) {
+                i++;
+            }
+            if (i == nome.length) {
+                return codigo;
+            }
+        }
+        return DESCONHECIDA;
+    }
+
+    private static boolean espacoEmBranco(byte b) {
+        return b == ' ' || (b >= '\t' && b <= '\r') || (b >= 0x1C && b <= 0x1F);
+    }
+
+    /**
+     * Executa as operações de leitura acumuladas, em paralelo se o lote for grande o suficiente.
+     * Se alguma operação falhar, os resultados anteriores a ela são escritos e a exceção é relançada.
+     */
+    private void executarLote() {
+        int n = this.tamanhoLote;
+        if (n == 0) {
+            return;
+        }
+        this.tamanhoLote = 0;
+        if (n < this.tamanhoMinimoLote) {
+            for (int i = 0; i < n; i++) {
+                executar(this.loteCodigos[i], this.loteValores[i], this.saida);
+            }
+            return;
+        }
+        //Cada resultado é montado em UTF-8 e escrito como String, para sair na codificação da saída.
+        String[] resultados = new String[n];
+        RuntimeException[] erros = new RuntimeException[n];
+        int[] codigos = this.loteCodigos;
+        int[] valores = this.loteValores;
+        IntStream.range(0, n).parallel().forEach(i -> {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+            PrintStream resultado = emUtf8(bytes);
+            try {
+                executar(codigos[i], valores[i], resultado);
+            } catch (RuntimeException e) {
+                erros[i] = e;
+            }
+            resultado.flush();
+            resultados[i] = new String(bytes.toByteArray(), UTF_8);
+        });
+        for (int i = 0; i < n; i++) {
+            this.saida.print(resultados[i]);
+            if (erros[i] != null) {
+                throw erros[i];
+            }
+        }
+    }
+
+    private static PrintStream emUtf8(ByteArrayOutputStream bytes) {
+        try {
+            return new PrintStream(bytes, false, UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e); //UTF-8 sempre está disponível
+        }
+    }
+
+    private void executar(int codigo, int valor, PrintStream out) {
+        switch (codigo) {
+            case CHEIA:
+                out.println(this.abb.ehCheia() ? "A árvore é cheia" : "A árvore não é cheia");
+                break;
+            case COMPLETA:
+                out.println(this.abb.ehCompleta() ? "A árvore é completa" : "A árvore não é completa");
+                break;
+            case PREORDEM:
+                out.println(this.abb.preOrdem());
+                break;
+            case MEDIANA:
+                out.println(this.abb.mediana());
+                break;
+            case ENESIMO:
+                out.println(this.abb.enesimoElemento(valor));
+                break;
+            case INSIRA:
+                boolean inserido = this.abb.inserir(valor);
+                out.print(valor);
+                out.println(inserido ? " adicionado" : " já está na árvore, não pode ser inserido");
+                break;
+            case IMPRIMA:
+                this.abb.imprimir(valor, out);
+                out.println();
+                break;
+            case REMOVA:
+                boolean removido = this.abb.remover(valor);
+                out.print(valor);
+                out.println(removido ? " removido" : " não está na árvore, não pode ser removido");
+                break;
+            case POSICAO:
+                out.println(this.abb.posicao(valor));
+                break;
+            case MEDIA:
+                out.println(this.abb.media(valor));
+                break;
+            case BUSCAR:
+                out.println(this.abb.buscar(valor) != null ? "Chave encontrada" : "Chave não encontrada");
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static byte[] bytes(String nome) {
+        byte[] b = new byte[nome.length()];
+        for (int i = 0; i < b.length; i++) {
+            b[i] = (byte) nome.charAt(i);
+        }
+        return b;
+    }
+}
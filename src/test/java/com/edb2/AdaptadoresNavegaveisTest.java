@@ -0,0 +1,181 @@
+package com.edb2;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Testes de {@link ConjuntoNavegavel} e {@link MapaNavegavel}, comparados com TreeSet e TreeMap, inclusive nas
+ * visões de intervalo e decrescentes.
+ */
+class AdaptadoresNavegaveisTest {
+
+    @Test
+    void conjuntoSeComportaComoTreeSet() {
+        Random aleatorio = new Random(16);
+        for (Balanceamento balanceamento : Balanceamento.values()) {
+            ArvoreBinariadeBusca abb = new ArvoreBinariadeBusca(balanceamento);
+            NavigableSet<Integer> conjunto = abb.comoConjunto();
+            TreeSet<Integer> esperado = new TreeSet<>();
+            for (int i = 0; i < 3000; i++) {
+                int valor = aleatorio.nextInt(1000);
+                if (aleatorio.nextInt(3) == 0) {
+                    assertEquals(esperado.remove(valor), conjunto.remove(valor));
+                } else {
+                    assertEquals(esperado.add(valor), conjunto.add(valor));
+                }
+            }
+            compararConjuntos(esperado, conjunto, aleatorio);
+            compararConjuntos(esperado.descendingSet(), conjunto.descendingSet(), aleatorio);
+            for (int i = 0; i < 50; i++) {
+                int a = aleatorio.nextInt(1000);
+                int b = a + aleatorio.nextInt(400);
+                boolean ai = aleatorio.nextBoolean();
+                boolean bi = aleatorio.nextBoolean();
+                compararConjuntos(esperado.subSet(a, ai, b, bi), conjunto.subSet(a, ai, b, bi), aleatorio);
+                compararConjuntos(esperado.headSet(b, bi).descendingSet().tailSet(a, ai),
+                        conjunto.headSet(b, bi).descendingSet().tailSet(a, ai), aleatorio);
+                compararConjuntos(esperado.descendingSet().subSet(b, bi, a, ai),
+                        conjunto.descendingSet().subSet(b, bi, a, ai), aleatorio);
+            }
+            assertEquals(esperado.pollFirst(), conjunto.pollFirst());
+            assertEquals(esperado.descendingSet().pollFirst(), conjunto.descendingSet().pollFirst());
+            assertThrows(IllegalArgumentException.class, () -> conjunto.headSet(100).add(100));
+            assertThrows(IllegalArgumentException.class, () -> conjunto.headSet(100).tailSet(200));
+            assertEquals(esperado, conjunto);
+        }
+    }
+
+    @Test
+    void iteradorRemoveSemPularValoresEFalhaRapido() {
+        for (Balanceamento balanceamento : Balanceamento.values()) {
+            ArvoreBinariadeBusca abb = new ArvoreBinariadeBusca(balanceamento);
+            TreeSet<Integer> esperado = new TreeSet<>();
+            Random aleatorio = new Random(3);
+            for (int i = 0; i < 500; i++) {
+                int valor = aleatorio.nextInt(2000);
+                abb.inserir(valor);
+                esperado.add(valor);
+            }
+            for (boolean crescente : new boolean[] {true, false}) {
+                NavigableSet<Integer> conjunto = crescente ? abb.comoConjunto() : abb.comoConjunto().descendingSet();
+                NavigableSet<Integer> referencia = crescente ? esperado : esperado.descendingSet();
+                List<Integer> vistos = new ArrayList<>();
+                Iterator<Integer> it = conjunto.iterator();
+                while (it.hasNext()) {
+                    int valor = it.next();
+                    vistos.add(valor);
+                    if (valor % 3 == 0) {
+                        it.remove();
+                    }
+                }
+                assertEquals(new ArrayList<>(referencia), vistos);
+                referencia.removeIf(v -> v % 3 == 0);
+                assertEquals(referencia, conjunto);
+                ArvoreBinariadeBuscaTest.verificarInvariantes(abb);
+            }
+            Iterator<Integer> it = abb.comoConjunto().iterator();
+            it.next();
+            abb.inserir(-1);
+            assertThrows(ConcurrentModificationException.class, it::next);
+        }
+    }
+
+    @Test
+    void mapaSeComportaComoTreeMap() {
+        Random aleatorio = new Random(61);
+        for (Balanceamento balanceamento : Balanceamento.values()) {
+            NavigableMap<Integer, String> mapa = ArvoreCosturada.<Integer, String>naturais(balanceamento).comoMapa();
+            TreeMap<Integer, String> esperado = new TreeMap<>();
+            for (int i = 0; i < 3000; i++) {
+                int chave = aleatorio.nextInt(1000);
+                if (aleatorio.nextInt(3) == 0) {
+                    assertEquals(esperado.remove(chave), mapa.remove(chave));
+                } else {
+                    assertEquals(esperado.put(chave, "v" + i), mapa.put(chave, "v" + i));
+                }
+            }
+            compararMapas(esperado, mapa, aleatorio);
+            compararMapas(esperado.descendingMap(), mapa.descendingMap(), aleatorio);
+            for (int i = 0; i < 50; i++) {
+                int a = aleatorio.nextInt(1000);
+                int b = a + aleatorio.nextInt(400);
+                boolean ai = aleatorio.nextBoolean();
+                boolean bi = aleatorio.nextBoolean();
+                compararMapas(esperado.subMap(a, ai, b, bi), mapa.subMap(a, ai, b, bi), aleatorio);
+                compararMapas(esperado.descendingMap().headMap(a, ai).tailMap(b, bi),
+                        mapa.descendingMap().headMap(a, ai).tailMap(b, bi), aleatorio);
+                compararConjuntos(esperado.navigableKeySet().subSet(a, ai, b, bi),
+                        mapa.navigableKeySet().subSet(a, ai, b, bi), aleatorio);
+            }
+            Iterator<Map.Entry<Integer, String>> it = mapa.tailMap(500, true).entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Integer, String> e = it.next();
+                if (e.getKey() % 2 == 0) {
+                    it.remove();
+                } else {
+                    e.setValue("alterado");
+                }
+            }
+            esperado.tailMap(500, true).entrySet().removeIf(e -> e.getKey() % 2 == 0);
+            esperado.tailMap(500, true).replaceAll((k, v) -> "alterado");
+            assertEquals(esperado, mapa);
+            assertEquals(esperado.pollLastEntry(), mapa.pollLastEntry());
+            assertEquals(esperado.descendingKeySet().pollLast(), mapa.descendingKeySet().pollLast());
+            assertThrows(IllegalArgumentException.class, () -> mapa.headMap(10, false).put(10, "x"));
+            Iterator<Integer> chaves = mapa.keySet().iterator();
+            chaves.next();
+            mapa.put(-5, "novo");
+            assertThrows(ConcurrentModificationException.class, chaves::next);
+        }
+    }
+
+    private static void compararConjuntos(NavigableSet<Integer> esperado, NavigableSet<Integer> obtido, Random aleatorio) {
+        assertEquals(esperado.size(), obtido.size());
+        assertEquals(new ArrayList<>(esperado), new ArrayList<>(obtido));
+        List<Integer> invertido = new ArrayList<>();
+        obtido.descendingIterator().forEachRemaining(invertido::add);
+        assertEquals(new ArrayList<>(esperado.descendingSet()), invertido);
+        if (!esperado.isEmpty()) {
+            assertEquals(esperado.first(), obtido.first());
+            assertEquals(esperado.last(), obtido.last());
+        }
+        for (int i = 0; i < 40; i++) {
+            int x = aleatorio.nextInt(1600) - 200;
+            assertEquals(esperado.contains(x), obtido.contains(x));
+            assertEquals(esperado.lower(x), obtido.lower(x));
+            assertEquals(esperado.floor(x), obtido.floor(x));
+            assertEquals(esperado.ceiling(x), obtido.ceiling(x));
+            assertEquals(esperado.higher(x), obtido.higher(x));
+        }
+    }
+
+    private static void compararMapas(NavigableMap<Integer, String> esperado, NavigableMap<Integer, String> obtido,
+            Random aleatorio) {
+        assertEquals(esperado.size(), obtido.size());
+        assertEquals(new ArrayList<>(esperado.entrySet()), new ArrayList<>(obtido.entrySet()));
+        assertEquals(esperado.firstEntry(), obtido.firstEntry());
+        assertEquals(esperado.lastEntry(), obtido.lastEntry());
+        compararConjuntos(esperado.navigableKeySet(), obtido.navigableKeySet(), aleatorio);
+        for (int i = 0; i < 40; i++) {
+            int x = aleatorio.nextInt(1600) - 200;
+            assertEquals(esperado.get(x), obtido.get(x));
+            assertEquals(esperado.lowerEntry(x), obtido.lowerEntry(x));
+            assertEquals(esperado.floorEntry(x), obtido.floorEntry(x));
+            assertEquals(esperado.ceilingEntry(x), obtido.ceilingEntry(x));
+            assertEquals(esperado.higherEntry(x), obtido.higherEntry(x));
+        }
+    }
+}
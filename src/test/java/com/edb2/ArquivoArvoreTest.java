@@ -0,0 +1,97 @@
+package com.edb2;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testes do formato binário de {@link ArquivoArvore}: ida e volta com e sem a forma da árvore, e detecção de
+ * arquivos corrompidos.
+ */
+class ArquivoArvoreTest {
+    @TempDir
+    Path pasta;
+
+    @Test
+    void salvarECarregarPreservaValoresEForma() throws IOException {
+        Random aleatorio = new Random(17);
+        for (Balanceamento balanceamento : Balanceamento.values()) {
+            ArvoreBinariadeBusca abb = new ArvoreBinariadeBusca(balanceamento);
+            abb.inserir(Integer.MIN_VALUE);
+            abb.inserir(Integer.MAX_VALUE);
+            for (int i = 0; i < 5000; i++) {
+                abb.inserir(aleatorio.nextInt(20000) - 10000);
+                abb.inserir(aleatorio.nextInt());
+            }
+            Path arquivo = this.pasta.resolve("abb-" + balanceamento + ".bin");
+
+            abb.salvar(arquivo, true);
+            ArvoreBinariadeBusca igual = ArvoreBinariadeBusca.carregar(arquivo);
+            ArvoreBinariadeBuscaTest.verificarInvariantes(igual);
+            assertEquals(abb.preOrdem(), igual.preOrdem());
+            assertEquals(abb.getAltura(), igual.getAltura());
+            assertEquals(balanceamento, igual.getBalanceamento());
+            assertEquals(abb.somaNoIntervalo(Integer.MIN_VALUE, Integer.MAX_VALUE),
+                    igual.somaNoIntervalo(Integer.MIN_VALUE, Integer.MAX_VALUE));
+
+            abb.salvar(arquivo);
+            ArvoreBinariadeBusca balanceada = ArvoreBinariadeBusca.carregar(arquivo);
+            ArvoreBinariadeBuscaTest.verificarInvariantes(balanceada);
+            assertEquals(abb.emOrdem(), balanceada.emOrdem());
+            assertEquals(32 - Integer.numberOfLeadingZeros(abb.getTamanho()), balanceada.getAltura());
+            assertTrue(balanceada.inserir(10001));
+            assertTrue(balanceada.remover(10001));
+            assertFalse(Files.exists(this.pasta.resolve("abb-" + balanceamento + ".bin.tmp")));
+        }
+    }
+
+    @Test
+    void arvoresVaziasEDegeneradasVoltamIguais() throws IOException {
+        Path arquivo = this.pasta.resolve("vazia.bin");
+        new ArvoreBinariadeBusca(Balanceamento.AVL).salvar(arquivo, true);
+        ArvoreBinariadeBusca vazia = ArvoreBinariadeBusca.carregar(arquivo);
+        assertTrue(vazia.vazia());
+        assertEquals(Balanceamento.AVL, vazia.getBalanceamento());
+
+        int n = 10000;
+        int[] valores = new int[n];
+        for (int i = 0; i < n; i++) {
+            valores[i] = n - i;
+        }
+        ArvoreBinariadeBusca degenerada = new ArvoreBinariadeBusca(valores, Balanceamento.NENHUM);
+        degenerada.salvar(arquivo, true);
+        assertEquals(16 + 1 + (n - 1) + n / 4 + 4, Files.size(arquivo));
+        ArvoreBinariadeBusca carregada = ArvoreBinariadeBusca.carregar(arquivo);
+        assertEquals(n, carregada.getAltura());
+        assertEquals(degenerada.preOrdem(), carregada.preOrdem());
+        ArvoreBinariadeBuscaTest.verificarInvariantes(carregada);
+    }
+
+    @Test
+    void arquivoCorrompidoOuTruncadoEhRecusado() throws IOException {
+        ArvoreBinariadeBusca abb = new ArvoreBinariadeBusca(new int[] {32, 13, 41, 5, 20, 60}, Balanceamento.NENHUM);
+        Path arquivo = this.pasta.resolve("abb.bin");
+        abb.salvar(arquivo, true);
+        byte[] bytes = Files.readAllBytes(arquivo);
+        for (int i = 0; i < bytes.length; i++) {
+            byte[] alterado = bytes.clone();
+            alterado[i] ^= 0x10;
+            Files.write(arquivo, alterado);
+            assertThrows(IOException.class, () -> ArvoreBinariadeBusca.carregar(arquivo));
+        }
+        Files.write(arquivo, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> ArvoreBinariadeBusca.carregar(arquivo));
+        Files.write(arquivo, "32 13 41".getBytes("UTF-8"));
+        assertThrows(IOException.class, () -> ArvoreBinariadeBusca.carregar(arquivo));
+    }
+}
@@ -0,0 +1,59 @@
+package com.edb2;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Confere que a árvore em vetores responde igual à árvore de nós.
+ */
+class ArvoreBinariadeBuscaCompactaTest {
+
+    @Test
+    void respondeIgualArvoreDeNos() {
+        for (Balanceamento balanceamento : Balanceamento.values()) {
+            Random aleatorio = new Random(7);
+            ArvoreBinariadeBusca abb = new ArvoreBinariadeBusca(new int[0], balanceamento);
+            ArvoreBinariadeBuscaCompacta compacta = new ArvoreBinariadeBuscaCompacta(balanceamento);
+            for (int i = 0; i < 20000; i++) {
+                int valor = aleatorio.nextInt(4000);
+                if (aleatorio.nextInt(3) == 0) {
+                    assertEquals(abb.remover(valor), compacta.remover(valor));
+                } else {
+                    assertEquals(abb.inserir(valor), compacta.inserir(valor));
+                }
+            }
+            assertTrue(compacta.getCapacidade() < 4000);
+            conferir(abb, compacta);
+            compacta.compactar();
+            assertEquals(compacta.getTamanho(), compacta.getCapacidade());
+            conferir(abb, compacta);
+            assertEquals(abb.inserir(4001), compacta.inserir(4001));
+            assertEquals(abb.remover(abb.mediana()), compacta.remover(compacta.mediana()));
+            conferir(abb, compacta);
+        }
+    }
+
+    private static void conferir(ArvoreBinariadeBusca abb, ArvoreBinariadeBuscaCompacta compacta) {
+        assertEquals(abb.getTamanho(), compacta.getTamanho());
+        assertEquals(abb.getAltura(), compacta.getAltura());
+        assertEquals(abb.emOrdem(), compacta.emOrdem());
+        assertEquals(abb.preOrdem(), compacta.preOrdem());
+        assertEquals(abb.mediana(), compacta.mediana());
+        assertEquals(abb.min().getValor(), compacta.min());
+        assertEquals(abb.max().getValor(), compacta.max());
+        for (int i = 1; i <= abb.getTamanho(); i += 17) {
+            int valor = abb.enesimoElemento(i);
+            assertEquals(valor, compacta.enesimoElemento(i));
+            assertEquals(i, compacta.posicao(valor));
+            assertEquals(abb.media(valor), compacta.media(valor), 1e-9);
+        }
+        //Valores fora da árvore: -1 nunca é inserido.
+        assertNull(abb.media(-1));
+        assertNull(compacta.media(-1));
+    }
+}
@@ -0,0 +1,161 @@
+package com.edb2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Teste de estresse da árvore concorrente: escritores e leitores ao mesmo tempo, seguido da verificação das
+ * costuras, dos ponteiros de pai e do conteúdo final.
+ */
+class ArvoreBinariadeBuscaConcorrenteTest {
+    private static final int ESCRITORES = 4;
+    private static final int LEITORES = 4;
+    private static final int OPERACOES_POR_ESCRITOR = 40000;
+    private static final int CHAVES = 20000;
+    /** Chaves negativas, inseridas antes e nunca removidas: os leitores sempre devem encontrá-las. */
+    private static final int FIXAS = 500;
+
+    @Test
+    void cargaMistaMantemInvariantes() throws Exception {
+        for (Balanceamento balanceamento : Balanceamento.values()) {
+            executarCarga(balanceamento);
+        }
+    }
+
+    private static void executarCarga(Balanceamento balanceamento) throws Exception {
+        ArvoreBinariadeBuscaConcorrente arvore = new ArvoreBinariadeBuscaConcorrente(balanceamento);
+        for (int i = 1; i <= FIXAS; i++) {
+            arvore.inserir(-i);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(ESCRITORES + LEITORES);
+        CountDownLatch largada = new CountDownLatch(1);
+        AtomicBoolean escrevendo = new AtomicBoolean(true);
+        List<Future<TreeSet<Integer>>> escritores = new ArrayList<>();
+        List<Future<?>> leitores = new ArrayList<>();
+        for (int t = 0; t < ESCRITORES; t++) {
+            int escritor = t;
+            escritores.add(executor.submit(() -> {
+                //Cada escritor só mexe nas chaves congruentes a ele, então o resultado final é previsível.
+                Random aleatorio = new Random(escritor);
+                TreeSet<Integer> minhas = new TreeSet<>();
+                largada.await();
+                for (int i = 0; i < OPERACOES_POR_ESCRITOR; i++) {
+                    int chave = aleatorio.nextInt(CHAVES / ESCRITORES) * ESCRITORES + escritor;
+                    if (aleatorio.nextBoolean()) {
+                        assertEquals(minhas.add(chave), arvore.inserir(chave));
+                    } else {
+                        assertEquals(minhas.remove(chave), arvore.remover(chave));
+                    }
+                }
+                return minhas;
+            }));
+        }
+        for (int t = 0; t < LEITORES; t++) {
+            int leitor = t;
+            leitores.add(executor.submit(() -> {
+                Random aleatorio = new Random(100 + leitor);
+                largada.await();
+                while (escrevendo.get()) {
+                    int fixa = -1 - aleatorio.nextInt(FIXAS);
+                    assertTrue(arvore.contains(fixa));
+                    assertEquals(FIXAS + fixa + 1, arvore.posicao(fixa));
+                    assertEquals(Integer.valueOf(-FIXAS), arvore.enesimoElemento(1));
+                    arvore.contains(aleatorio.nextInt(CHAVES));
+                    if (aleatorio.nextInt(50) == 0) {
+                        conferirPercurso(arvore);
+                    }
+                    if (aleatorio.nextInt(200) == 0) {
+                        //Força a cópia persistente a ser montada de novo enquanto os escritores continuam.
+                        arvore.descartarVersoes();
+                        Instantaneo instantaneo = arvore.snapshot();
+                        assertEquals(Integer.valueOf(-FIXAS), instantaneo.enesimoElemento(1));
+                        assertEquals(FIXAS, instantaneo.posicao(-1));
+                    }
+                }
+                return null;
+            }));
+        }
+        largada.countDown();
+        TreeSet<Integer> esperado = new TreeSet<>();
+        for (Future<TreeSet<Integer>> escritor : escritores) {
+            esperado.addAll(escritor.get(2, TimeUnit.MINUTES));
+        }
+        escrevendo.set(false);
+        for (Future<?> leitor : leitores) {
+            leitor.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        ArvoreBinariadeBuscaTest.verificarInvariantes(arvore.arvore());
+        for (int i = 1; i <= FIXAS; i++) {
+            esperado.add(-i);
+        }
+        assertEquals(esperado.size(), arvore.getTamanho());
+        PrimitiveIterator.OfInt it = arvore.iterador();
+        for (Integer chave : esperado) {
+            assertEquals(chave.intValue(), it.nextInt());
+        }
+        assertTrue(!it.hasNext());
+    }
+
+    @Test
+    void snapshotRefazAsEscritasFeitasDuranteAMontagem() throws Exception {
+        int[] pares = new int[300000];
+        for (int i = 0; i < pares.length; i++) {
+            pares[i] = 2 * i;
+        }
+        ArvoreBinariadeBuscaConcorrente arvore =
+                new ArvoreBinariadeBuscaConcorrente(ArvoreBinariadeBusca.construirEmLote(pares, Balanceamento.AVL));
+        AtomicBoolean escrevendo = new AtomicBoolean(true);
+        Thread escritor = new Thread(() -> {
+            Random aleatorio = new Random(7);
+            while (escrevendo.get()) {
+                int valor = aleatorio.nextInt(2 * pares.length);
+                if (!arvore.inserir(valor)) {
+                    arvore.remover(valor);
+                }
+            }
+        });
+        escritor.start();
+        //Cada snapshot monta a cópia persistente de novo, sem a trava exclusiva, enquanto o escritor continua.
+        for (int i = 0; i < 20; i++) {
+            arvore.descartarVersoes();
+            arvore.snapshot();
+        }
+        escrevendo.set(false);
+        escritor.join();
+        assertEquals(arvore.emOrdem(), arvore.snapshot().emOrdem());
+    }
+
+    /**
+     * Durante as escritas, o percurso deve ser estritamente crescente e conter todas as chaves fixas.
+     */
+    private static void conferirPercurso(ArvoreBinariadeBuscaConcorrente arvore) {
+        long anterior = Long.MIN_VALUE;
+        int fixas = 0;
+        PrimitiveIterator.OfInt it = arvore.iterador();
+        while (it.hasNext()) {
+            int valor = it.nextInt();
+            assertTrue(valor > anterior);
+            if (valor < 0) {
+                fixas++;
+            }
+            anterior = valor;
+        }
+        assertEquals(FIXAS, fixas);
+    }
+}
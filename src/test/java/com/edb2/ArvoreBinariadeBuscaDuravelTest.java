@@ -0,0 +1,150 @@
+package com.edb2;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testes da {@link ArvoreBinariadeBuscaDuravel}: recuperação a partir do log, descarte de um lote incompleto,
+ * commit em grupo com várias threads e compactação.
+ */
+class ArvoreBinariadeBuscaDuravelTest {
+    @TempDir
+    Path pasta;
+
+    @Test
+    void escritasConfirmadasSobrevivemSemFechar() throws IOException {
+        Random aleatorio = new Random(18);
+        TreeSet<Integer> esperado = new TreeSet<>();
+        ArvoreBinariadeBuscaDuravel abb = ArvoreBinariadeBuscaDuravel.abrir(this.pasta, Balanceamento.AVL, 0, 1 << 20);
+        for (int i = 0; i < 2000; i++) {
+            int valor = aleatorio.nextInt(600) - 300;
+            if (aleatorio.nextInt(3) == 0) {
+                assertEquals(esperado.remove(valor), abb.remover(valor));
+            } else {
+                assertEquals(esperado.add(valor), abb.inserir(valor));
+            }
+        }
+        abb.inserir(Integer.MIN_VALUE);
+        abb.inserir(Integer.MAX_VALUE);
+        esperado.add(Integer.MIN_VALUE);
+        esperado.add(Integer.MAX_VALUE);
+        //Sem fechar: é o que sobra no disco se o processo cair agora.
+        try (ArvoreBinariadeBuscaDuravel recuperada = ArvoreBinariadeBuscaDuravel.abrir(this.pasta, Balanceamento.AVL)) {
+            assertEquals(emOrdem(esperado), recuperada.emOrdem());
+        }
+        abb.close();
+        assertThrows(IllegalStateException.class, () -> abb.inserir(1));
+    }
+
+    @Test
+    void loteIncompletoNoFimDoLogEhDescartado() throws IOException {
+        try (ArvoreBinariadeBuscaDuravel abb = ArvoreBinariadeBuscaDuravel.abrir(this.pasta, Balanceamento.NENHUM)) {
+            for (int v : new int[] {32, 13, 41, 5, 20, 60}) {
+                abb.inserir(v);
+            }
+        }
+        Path log = this.pasta.resolve(ArvoreBinariadeBuscaDuravel.LOG);
+        byte[] valido = Files.readAllBytes(log);
+        try (ArvoreBinariadeBuscaDuravel abb = ArvoreBinariadeBuscaDuravel.abrir(this.pasta, Balanceamento.NENHUM)) {
+            abb.remover(41);
+            abb.inserir(7);
+        }
+        byte[] completo = Files.readAllBytes(log);
+        for (int corte = valido.length + 1; corte < completo.length; corte++) {
+            Files.write(log, Arrays.copyOf(completo, corte));
+            try (ArvoreBinariadeBuscaDuravel abb = ArvoreBinariadeBuscaDuravel.abrir(this.pasta, Balanceamento.NENHUM)) {
+                String emOrdem = abb.emOrdem();
+                assertTrue(emOrdem.equals("5 13 20 32 41 60") || emOrdem.equals("5 13 20 32 60"), emOrdem);
+            }
+            assertTrue(Files.size(log) <= corte);
+        }
+        byte[] corrompido = completo.clone();
+        corrompido[corrompido.length - 6] ^= 1;
+        Files.write(log, corrompido);
+        try (ArvoreBinariadeBuscaDuravel abb = ArvoreBinariadeBuscaDuravel.abrir(this.pasta, Balanceamento.NENHUM)) {
+            assertFalse(abb.contains(7));
+        }
+    }
+
+    @Test
+    void commitEmGrupoECompactacao() throws Exception {
+        int threads = 8;
+        int porThread = 400;
+        List<Thread> escritoras = new ArrayList<>();
+        try (ArvoreBinariadeBuscaDuravel abb = ArvoreBinariadeBuscaDuravel.abrir(this.pasta, Balanceamento.AVL, 200, 512)) {
+            for (int t = 0; t < threads; t++) {
+                int base = t * porThread;
+                Thread escritora = new Thread(() -> {
+                    for (int i = 0; i < porThread; i++) {
+                        abb.inserir(base + i);
+                        if (i % 4 == 0) {
+                            abb.remover(base + i);
+                        }
+                    }
+                });
+                escritoras.add(escritora);
+                escritora.start();
+            }
+            for (Thread escritora : escritoras) {
+                escritora.join();
+            }
+            assertEquals(threads * porThread * 3 / 4, abb.getTamanho());
+            assertTrue(Files.exists(this.pasta.resolve(ArvoreBinariadeBuscaDuravel.SNAPSHOT)));
+            abb.compactar();
+            assertEquals(4, abb.getTamanhoLog());
+            abb.inserir(-1);
+        }
+        try (ArvoreBinariadeBuscaDuravel abb = ArvoreBinariadeBuscaDuravel.abrir(this.pasta, Balanceamento.NENHUM)) {
+            assertEquals(threads * porThread * 3 / 4 + 1, abb.getTamanho());
+            assertEquals(-1, (int) abb.enesimoElemento(1));
+            assertFalse(abb.contains(porThread));
+            assertTrue(abb.contains(porThread + 1));
+        }
+    }
+
+    @Test
+    void gravadorQueTerminaRecusaAsEscritasSeguintes() throws Exception {
+        ArvoreBinariadeBuscaDuravel abb = ArvoreBinariadeBuscaDuravel.abrir(this.pasta, Balanceamento.NENHUM);
+        assertTrue(abb.inserir(1));
+        Thread gravador = null;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("gravador-" + this.pasta.getFileName())) {
+                gravador = thread;
+            }
+        }
+        //Interrompido, o gravador termina; as escritas não podem ficar esperando por ele.
+        gravador.interrupt();
+        gravador.join();
+        assertTimeoutPreemptively(Duration.ofMinutes(1),
+                () -> assertThrows(UncheckedIOException.class, () -> abb.inserir(2)));
+        assertThrows(IOException.class, abb::close);
+        try (ArvoreBinariadeBuscaDuravel recuperada = ArvoreBinariadeBuscaDuravel.abrir(this.pasta, Balanceamento.NENHUM)) {
+            assertEquals("1", recuperada.emOrdem());
+        }
+    }
+
+    private static String emOrdem(TreeSet<Integer> valores) {
+        StringBuilder s = new StringBuilder();
+        for (int v : valores) {
+            s.append(s.length() == 0 ? "" : " ").append(v);
+        }
+        return s.toString();
+    }
+}
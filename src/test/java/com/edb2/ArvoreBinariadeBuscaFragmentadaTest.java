@@ -0,0 +1,131 @@
+package com.edb2;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Confere as escritas concorrentes, as consultas globais e o rebalanceamento da
+ * {@link ArvoreBinariadeBuscaFragmentada} contra um {@link TreeSet}.
+ */
+class ArvoreBinariadeBuscaFragmentadaTest {
+
+    private static int[] intervalo(int inicio, int fim) {
+        int[] valores = new int[fim - inicio];
+        for (int i = 0; i < valores.length; i++) {
+            valores[i] = inicio + i;
+        }
+        return valores;
+    }
+
+    private static void conferir(TreeSet<Integer> esperado, ArvoreBinariadeBuscaFragmentada arvore) {
+        assertEquals(esperado.size(), arvore.getTamanho());
+        int pos = 1;
+        PrimitiveIterator.OfInt it = arvore.iterador();
+        for (int valor : esperado) {
+            assertEquals(valor, it.nextInt());
+            assertEquals(pos, arvore.posicao(valor));
+            assertEquals(valor, arvore.enesimoElemento(pos));
+            pos++;
+        }
+        assertFalse(it.hasNext());
+        assertNull(arvore.enesimoElemento(pos));
+        assertNull(arvore.enesimoElemento(0));
+        if (!esperado.isEmpty()) {
+            assertEquals(new ArrayList<>(esperado).get((esperado.size() - 1) / 2), arvore.mediana());
+        }
+    }
+
+    @Test
+    void escritasConcorrentesEConsultasGlobais() throws InterruptedException {
+        TreeSet<Integer> esperado = new TreeSet<>();
+        try (ArvoreBinariadeBuscaFragmentada arvore =
+                new ArvoreBinariadeBuscaFragmentada(4, intervalo(0, 40000), Balanceamento.AVL)) {
+            //Cada thread insere os valores com o seu resto por 4 e remove os múltiplos de 3 deles.
+            AtomicInteger alteracoes = new AtomicInteger();
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int resto = t;
+                threads.add(new Thread(() -> {
+                    for (int v = resto; v < 40000; v += 4) {
+                        if (arvore.inserir(v)) {
+                            alteracoes.incrementAndGet();
+                        }
+                    }
+                    for (int v = resto; v < 40000; v += 4) {
+                        if (v % 3 == 0 && arvore.remover(v)) {
+                            alteracoes.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(40000 + 13334, alteracoes.get());
+            for (int v = 0; v < 40000; v++) {
+                if (v % 3 != 0) {
+                    esperado.add(v);
+                }
+            }
+            conferir(esperado, arvore);
+            assertFalse(arvore.contains(3));
+            assertTrue(arvore.contains(39998));
+            assertEquals(-1, arvore.posicao(-5));
+
+            //Os lotes são repartidos entre os fragmentos, e o resultado volta na ordem original.
+            BitSet inseridos = arvore.inserirTodos(new int[] {60000, 3, 4, 3, -7});
+            assertEquals(3, inseridos.cardinality());
+            assertTrue(inseridos.get(1));
+            assertFalse(inseridos.get(2));
+            assertFalse(inseridos.get(3));
+            BitSet removidos = arvore.removerTodos(new int[] {-7, 99999, 60000});
+            assertTrue(removidos.get(0));
+            assertFalse(removidos.get(1));
+            assertTrue(removidos.get(2));
+            esperado.add(3);
+            conferir(esperado, arvore);
+        }
+    }
+
+    @Test
+    void rebalanceiaQuandoOsValoresFogemDaAmostra() {
+        TreeSet<Integer> esperado = new TreeSet<>();
+        ArvoreBinariadeBuscaFragmentada arvore =
+                new ArvoreBinariadeBuscaFragmentada(4, intervalo(0, 1000), Balanceamento.NENHUM);
+        //Todos os valores caem depois do último limite, no mesmo fragmento, até o rebalanceamento automático.
+        for (int v = 100000; v < 108000; v++) {
+            arvore.inserir(v);
+            esperado.add(v);
+        }
+        assertTrue(arvore.getRebalanceamentos() > 0);
+        arvore.rebalancear();
+        for (int tamanho : arvore.tamanhosDosFragmentos()) {
+            assertEquals(2000, tamanho);
+        }
+        arvore.removerTodos(intervalo(100000, 101000));
+        esperado.subSet(100000, 101000).clear();
+        conferir(esperado, arvore);
+
+        arvore.close();
+        assertThrows(IllegalStateException.class, () -> arvore.inserir(1));
+        assertThrows(IllegalStateException.class, arvore::rebalancear);
+        assertTrue(arvore.contains(107999));
+        assertThrows(IllegalArgumentException.class,
+                () -> new ArvoreBinariadeBuscaFragmentada(4, new int[] {1, 2, 2, 2}, Balanceamento.AVL));
+    }
+}
@@ -0,0 +1,494 @@
+package com.edb2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.ConcurrentModificationException;
+import java.util.NavigableSet;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testes da árvore binária de busca com costura.
+ */
+class ArvoreBinariadeBuscaTest {
+    private static final Integer[] EXEMPLO = {32, 13, 5, 41, 20, 60};
+
+    @Test
+    void estatisticasDeOrdemDoExemplo() {
+        ArvoreBinariadeBusca abb = new ArvoreBinariadeBusca(EXEMPLO);
+        assertEquals(20, abb.enesimoElemento(3));
+        assertEquals(4, abb.posicao(32));
+        assertEquals(-1, abb.posicao(50));
+        assertNull(abb.enesimoElemento(0));
+        assertNull(abb.enesimoElemento(7));
+        assertEquals(20, abb.mediana());
+        abb.inserir(36);
+        assertEquals(32, abb.mediana());
+    }
+
+    @Test
+    void percursos() throws IOException {
+        ArvoreBinariadeBusca abb = new ArvoreBinariadeBusca(EXEMPLO);
+        assertEquals("32 13 5 20 41 60", escrever(abb, Percurso.PRE_ORDEM));
+        assertEquals("5 13 20 32 41 60", escrever(abb, Percurso.EM_ORDEM));
+        assertEquals("5 20 13 60 41 32", escrever(abb, Percurso.POS_ORDEM));
+        assertEquals("32 13 41 5 20 60", escrever(abb, Percurso.EM_NIVEL));
+        assertEquals("32 13 5 20 41 60 ", abb.preOrdem());
+        assertEquals(3, abb.getAltura());
+        StringBuilder s = new StringBuilder();
+        abb.escrever(Percurso.POS_ORDEM, s);
+        assertEquals("5 20 13 60 41 32", s.toString());
+        assertEquals("", escrever(new ArvoreBinariadeBusca(Balanceamento.NENHUM), Percurso.PRE_ORDEM));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        abb.imprimir(2, new PrintStream(bytes, true));
+        assertEquals("(32 (13 (5)(20))(41 (60)))", bytes.toString());
+    }
+
+    @Test
+    void percursosNaoEstouramAPilhaEmArvoreDegenerada() {
+        int n = 30000;
+        ArvoreBinariadeBusca abb = new ArvoreBinariadeBusca(Balanceamento.NENHUM);
+        for (int i = n; i > 0; i--) {
+            abb.inserir(i);
+        }
+        assertEquals(n, abb.getAltura());
+        long[] soma = {0};
+        abb.percorrer(Percurso.POS_ORDEM, v -> soma[0] += v);
+        assertEquals((long) n * (n + 1) / 2, soma[0]);
+        assertTrue(abb.preOrdem().startsWith(n + " " + (n - 1) + " "));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        abb.imprimir(2, new PrintStream(bytes, true));
+        assertEquals(n, bytes.size() - bytes.toString().replace(")", "").length());
+    }
+
+    @Test
+    void alturaCheiaECompletaAcompanhamAsEscritas() {
+        ArvoreBinariadeBusca abb = new ArvoreBinariadeBusca(Balanceamento.NENHUM);
+        assertTrue(abb.ehCheia());
+        assertTrue(abb.ehCompleta());
+        for (int valor : new int[] {8, 4, 12, 2, 6, 10, 14}) {
+            abb.inserir(valor);
+        }
+        assertEquals(3, abb.getAltura());
+        assertTrue(abb.ehCheia());
+        assertTrue(abb.ehCompleta());
+        abb.inserir(1);
+        assertEquals(4, abb.getAltura());
+        assertFalse(abb.ehCheia());
+        assertTrue(abb.ehCompleta());
+        abb.inserir(0);
+        assertFalse(abb.ehCompleta());
+        abb.remover(0);
+        abb.remover(1);
+        assertTrue(abb.ehCheia());
+        // 127 nós com altura 71: em um long, 1L << 71 vale 1L << 7 = 128 = 127 + 1
+        ArvoreBinariadeBusca lista = new ArvoreBinariadeBusca(Balanceamento.NENHUM);
+        for (int i = 0; i <= 70; i++) {
+            lista.inserir(i);
+        }
+        for (int i = -1; i >= -56; i--) {
+            lista.inserir(i);
+        }
+        assertEquals(127, lista.getTamanho());
+        assertEquals(71, lista.getAltura());
+        assertFalse(lista.ehCheia());
+        assertFalse(lista.ehCompleta());
+    }
+
+    @Test
+    void agregadosDaSubarvore() {
+        ArvoreBinariadeBusca abb = new ArvoreBinariadeBusca(EXEMPLO);
+        assertEquals(5 + 13 + 20, abb.somaSubarvore(13));
+        assertEquals(3, abb.contagemSubarvore(13));
+        assertEquals(171, abb.somaSubarvore(32));
+        assertEquals(6, abb.contagemSubarvore(32));
+        assertEquals(171 / 6.0, abb.media(32), 1e-9);
+        assertEquals(50.5, abb.media(41), 1e-9);
+        abb.remover(13);
+        assertEquals(5 + 20, abb.somaSubarvore(20));
+        assertEquals(12.5, abb.media(20), 1e-9);
+        assertEquals(0, abb.contagemSubarvore(13));
+        assertNull(abb.media(13));
+    }
+
+    @Test
+    void estatisticasDeOrdemAposInsercoesERemocoes() {
+        Random aleatorio = new Random(42);
+        ArvoreBinariadeBusca abb = new ArvoreBinariadeBusca(new Integer[0]);
+        TreeSet<Integer> esperado = new TreeSet<>();
+        for (int i = 0; i < 5000; i++) {
+            int valor = aleatorio.nextInt(2000) - 1000;
+            if (aleatorio.nextInt(3) == 0) {
+                assertEquals(esperado.remove(valor), abb.remover(valor));
+            } else {
+                assertEquals(esperado.add(valor), abb.inserir(valor));
+            }
+        }
+        assertEquals(esperado.size(), abb.getTamanho());
+        verificarInvariantes(abb);
+        int pos = 1;
+        No no = abb.min();
+        for (Integer valor : esperado) {
+            assertEquals(valor, no.getValor());
+            assertEquals(pos, abb.posicao(valor));
+            assertEquals(valor, abb.enesimoElemento(pos));
+            no = ArvoreBinariadeBusca.sucessor(no);
+            pos++;
+        }
+        assertNull(no);
+        Integer[] ordenado = esperado.toArray(new Integer[0]);
+        assertEquals(ordenado[(ordenado.length - 1) / 2], abb.mediana());
+    }
+
+    @Test
+    void chavesForaDoCacheDeInteger() {
+        ArvoreBinariadeBusca abb = new ArvoreBinariadeBusca(new int[] {1000, -5000, 70000});
+        assertTrue(abb.contains(1000));
+        assertFalse(abb.inserir(Integer.valueOf(70000)));
+        assertFalse(abb.contains(999));
+        assertTrue(abb.remover(Integer.valueOf(-5000)));
+        assertFalse(abb.contains(-5000));
+        assertEquals(2, abb.getTamanho());
+    }
+
+    @Test
+    void modoAvlMantemAlturaLogaritmicaComEntradaOrdenada() {
+        int n = 100000;
+        Integer[] valores = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            valores[i] = i;
+        }
+        ArvoreBinariadeBusca abb = new ArvoreBinariadeBusca(valores, Balanceamento.AVL);
+        assertEquals(n, abb.getTamanho());
+        assertTrue(abb.getAltura() <= 1.45 * Math.log(n) / Math.log(2));
+        verificarInvariantes(abb);
+        for (int i = 0; i < n; i += 3) {
+            assertTrue(abb.remover(i));
+        }
+        assertTrue(abb.getAltura() <= 1.45 * Math.log(n) / Math.log(2));
+        // Para v fora dos múltiplos de 3, restam v - v/3 valores em [0, v]
+        assertEquals(75001 - 75001 / 3, abb.posicao(75001));
+        assertEquals(75001, abb.enesimoElemento(75001 - 75001 / 3));
+        verificarInvariantes(abb);
+    }
+
+    @Test
+    void modoAfunilamentoSobeOValorAcessadoParaARaiz() {
+        int n = 1000;
+        int[] valores = new int[n];
+        for (int i = 0; i < n; i++) {
+            valores[i] = i;
+        }
+        //Cada valor inserido sobe para a raiz: a entrada ordenada deixa uma lista descendo pela esquerda.
+        ArvoreBinariadeBusca abb = new ArvoreBinariadeBusca(valores, Balanceamento.AFUNILAMENTO);
+        assertEquals(n - 1, abb.getRaiz().getValor());
+        assertEquals(n, abb.getAltura());
+
+        //Buscar o valor mais fundo reduz a profundidade do caminho pela metade.
+        assertTrue(abb.contains(0));
+        assertEquals(0, abb.getRaiz().getValor());
+        assertTrue(abb.getAltura() <= n / 2 + 2);
+        verificarInvariantes(abb);
+
+        //Um valor ausente sobe o último nó visitado.
+        assertFalse(abb.contains(n));
+        assertEquals(n - 1, abb.getRaiz().getValor());
+        No no = abb.buscar(400);
+        assertSame(no, abb.getRaiz());
+        assertFalse(abb.inserir(700));
+        assertEquals(700, abb.getRaiz().getValor());
+
+        assertTrue(abb.remover(700));
+        assertTrue(abb.remover(400));
+        assertFalse(abb.remover(400));
+        assertEquals(n - 2, abb.getTamanho());
+        assertEquals(401, abb.posicao(401));
+        verificarInvariantes(abb);
+    }
+
+    @Test
+    void construcaoEmLoteDescartaRepetidosEBalanceia() {
+        Random aleatorio = new Random(3);
+        int[] valores = new int[50000];
+        TreeSet<Integer> esperado = new TreeSet<>();
+        for (int i = 0; i < valores.length; i++) {
+            valores[i] = aleatorio.nextInt(30000);
+            esperado.add(valores[i]);
+        }
+        ArvoreBinariadeBusca abb = ArvoreBinariadeBusca.construirEmLote(valores, Balanceamento.NENHUM);
+        assertEquals(esperado.size(), abb.getTamanho());
+        assertEquals(valores.length - esperado.size(), abb.getDuplicatasDescartadas());
+        assertEquals(32 - Integer.numberOfLeadingZeros(esperado.size()), abb.getAltura());
+        verificarInvariantes(abb);
+        assertEquals(esperado.first(), abb.enesimoElemento(1));
+        assertTrue(abb.inserir(-1));
+        assertTrue(abb.remover(esperado.last()));
+        verificarInvariantes(abb);
+
+        ArvoreBinariadeBusca vazia = ArvoreBinariadeBusca.construirEmLote(new int[0], Balanceamento.AVL);
+        assertTrue(vazia.vazia());
+        assertTrue(vazia.inserir(1));
+    }
+
+    @Test
+    void construcaoEPercursoParalelos() {
+        Random aleatorio = new Random(5);
+        int[] valores = new int[200000];
+        for (int i = 0; i < valores.length; i++) {
+            valores[i] = aleatorio.nextInt(150000) - 75000;
+        }
+        ArvoreBinariadeBusca sequencial = ArvoreBinariadeBusca.construirEmLote(valores.clone(), Balanceamento.AVL);
+        ArvoreBinariadeBusca abb = ArvoreBinariadeBusca.construirEmLoteParalelo(valores, Balanceamento.AVL);
+        assertEquals(sequencial.getTamanho(), abb.getTamanho());
+        assertEquals(sequencial.getDuplicatasDescartadas(), abb.getDuplicatasDescartadas());
+        assertEquals(sequencial.preOrdem(), abb.preOrdem());
+        verificarInvariantes(abb);
+        assertTrue(ArvoreBinariadeBusca.construirEmLoteParalelo(new int[0], Balanceamento.NENHUM).vazia());
+
+        int[] ordenados = sequencial.paraVetor();
+        assertTrue(Arrays.equals(ordenados, abb.valores().parallel().toArray()));
+        assertEquals(abb.getTamanho(), abb.valores().parallel().count());
+        assertEquals(abb.getRaiz().getSoma(), abb.valores().parallel().asLongStream().sum());
+        assertEquals(ordenados[ordenados.length - 1], abb.valores().parallel().max().getAsInt());
+        assertEquals(ordenados[100], abb.valores().skip(100).findFirst().getAsInt());
+
+        PrimitiveIterator.OfInt it = abb.valores().iterator();
+        it.nextInt();
+        abb.inserir(1 << 20);
+        assertThrows(ConcurrentModificationException.class, it::nextInt);
+
+        //Remover durante o forEach falha na hora, antes de seguir a costura de um nó já removido.
+        ArvoreBinariadeBusca pequena = new ArvoreBinariadeBusca(new int[] {2, 1, 3}, Balanceamento.NENHUM);
+        assertThrows(ConcurrentModificationException.class,
+                () -> pequena.valores().forEach(v -> pequena.remover(v + 1)));
+        ArvoreBinariadeBusca ultimo = new ArvoreBinariadeBusca(new int[] {2, 1, 3}, Balanceamento.NENHUM);
+        assertThrows(ConcurrentModificationException.class,
+                () -> ultimo.valores().forEach(v -> ultimo.remover(3)));
+    }
+
+    @Test
+    void snapshotNaoVeEscritasPosteriores() {
+        ArvoreBinariadeBusca abb = new ArvoreBinariadeBusca(EXEMPLO);
+        Instantaneo primeiro = abb.snapshot();
+        abb.inserir(36);
+        abb.remover(32);
+        Instantaneo segundo = abb.snapshot();
+        abb.inserir(1);
+        assertEquals("5 13 20 32 41 60", primeiro.emOrdem());
+        assertEquals("5 13 20 36 41 60", segundo.emOrdem());
+        assertEquals(abb.emOrdem(), abb.snapshot().emOrdem());
+        assertEquals(20, primeiro.mediana());
+        assertEquals(4, segundo.posicao(36));
+        assertEquals(-1, primeiro.posicao(36));
+        assertEquals(36, segundo.enesimoElemento(4));
+        assertEquals((5 + 13 + 20 + 32 + 41 + 60) / 6.0, primeiro.media(), 1e-9);
+        assertTrue(abb.snapshot().contains(1));
+        assertFalse(segundo.contains(1));
+
+        //Sem a cópia persistente, os snapshots antigos continuam valendo e o próximo remonta a cópia.
+        abb.descartarVersoes();
+        abb.remover(60);
+        assertEquals("5 13 20 32 41 60", primeiro.emOrdem());
+        assertEquals(abb.emOrdem(), abb.snapshot().emOrdem());
+        abb.inserir(70);
+        assertFalse(segundo.contains(70));
+        assertEquals(abb.emOrdem(), abb.snapshot().emOrdem());
+
+        Instantaneo vazio = new ArvoreBinariadeBusca(Balanceamento.NENHUM).snapshot();
+        assertNull(vazio.media());
+        assertNull(vazio.mediana());
+        assertEquals(0, vazio.soma());
+    }
+
+    @Test
+    void consultasDeIntervalo() {
+        Random aleatorio = new Random(11);
+        for (Balanceamento balanceamento : Balanceamento.values()) {
+            ArvoreBinariadeBusca abb = new ArvoreBinariadeBusca(balanceamento);
+            TreeSet<Integer> esperado = new TreeSet<>();
+            for (int i = 0; i < 3000; i++) {
+                int valor = aleatorio.nextInt(4000) - 2000;
+                if (aleatorio.nextInt(4) == 0) {
+                    assertEquals(esperado.remove(valor), abb.remover(valor));
+                } else {
+                    assertEquals(esperado.add(valor), abb.inserir(valor));
+                }
+            }
+            verificarInvariantes(abb);
+            for (int i = 0; i < 200; i++) {
+                int inicio = aleatorio.nextInt(4400) - 2200;
+                int fim = inicio + aleatorio.nextInt(1500);
+                NavigableSet<Integer> trecho = esperado.subSet(inicio, true, fim, true);
+                long soma = 0;
+                PrimitiveIterator.OfInt it = abb.intervalo(inicio, fim);
+                for (Integer valor : trecho) {
+                    assertEquals(valor, it.nextInt());
+                    soma += valor;
+                }
+                assertFalse(it.hasNext());
+                assertEquals(trecho.size(), abb.contarNoIntervalo(inicio, fim));
+                assertEquals(soma, abb.somaNoIntervalo(inicio, fim));
+                if (trecho.isEmpty()) {
+                    assertNull(abb.mediaNoIntervalo(inicio, fim));
+                } else {
+                    assertEquals((double) soma / trecho.size(), abb.mediaNoIntervalo(inicio, fim), 1e-9);
+                }
+            }
+        }
+        ArvoreBinariadeBusca extremos = new ArvoreBinariadeBusca(new int[] {Integer.MAX_VALUE, Integer.MIN_VALUE, 0});
+        assertEquals(3, extremos.contarNoIntervalo(Integer.MIN_VALUE, Integer.MAX_VALUE));
+        assertEquals(-1L, extremos.somaNoIntervalo(Integer.MIN_VALUE, Integer.MAX_VALUE));
+        assertEquals(0, extremos.contarNoIntervalo(1, 0));
+    }
+
+    @Test
+    void operacoesDeConjuntoDivisaoEJuncao() {
+        Random aleatorio = new Random(19);
+        ArvoreBinariadeBusca a = new ArvoreBinariadeBusca(Balanceamento.AVL);
+        ArvoreBinariadeBusca b = new ArvoreBinariadeBusca(Balanceamento.NENHUM);
+        TreeSet<Integer> esperadoA = new TreeSet<>();
+        TreeSet<Integer> esperadoB = new TreeSet<>();
+        for (int i = 0; i < 2000; i++) {
+            int x = aleatorio.nextInt(3000);
+            a.inserir(x);
+            esperadoA.add(x);
+            int y = aleatorio.nextInt(3000) + 1000;
+            b.inserir(y);
+            esperadoB.add(y);
+        }
+        TreeSet<Integer> uniao = new TreeSet<>(esperadoA);
+        uniao.addAll(esperadoB);
+        TreeSet<Integer> intersecao = new TreeSet<>(esperadoA);
+        intersecao.retainAll(esperadoB);
+        TreeSet<Integer> diferenca = new TreeSet<>(esperadoA);
+        diferenca.removeAll(esperadoB);
+        verificarConjunto(uniao, a.uniao(b));
+        verificarConjunto(intersecao, a.intersecao(b));
+        verificarConjunto(diferenca, a.diferenca(b));
+        verificarConjunto(esperadoA, a.uniao(a));
+        verificarConjunto(new TreeSet<>(), a.diferenca(a));
+        verificarConjunto(esperadoB, new ArvoreBinariadeBusca(Balanceamento.NENHUM).uniao(b));
+        assertEquals(Balanceamento.AVL, a.uniao(b).getBalanceamento());
+        assertEquals(esperadoA.size(), a.getTamanho());
+
+        ArvoreBinariadeBusca[] partes = a.dividir(1500);
+        verificarConjunto(esperadoA.headSet(1500, false), partes[0]);
+        verificarConjunto(esperadoA.tailSet(1500, true), partes[1]);
+        verificarConjunto(esperadoA, ArvoreBinariadeBusca.juntar(partes[0], partes[1]));
+        verificarConjunto(new TreeSet<>(), a.dividir(Integer.MIN_VALUE)[0]);
+        assertThrows(IllegalArgumentException.class, () -> ArvoreBinariadeBusca.juntar(partes[1], partes[0]));
+    }
+
+    @Test
+    void lotesDeInsercaoERemocao() {
+        Random aleatorio = new Random(20);
+        for (Balanceamento balanceamento : Balanceamento.values()) {
+            ArvoreBinariadeBusca abb = new ArvoreBinariadeBusca(balanceamento);
+            TreeSet<Integer> esperado = new TreeSet<>();
+            for (int rodada = 0; rodada < 60; rodada++) {
+                int[] lote = new int[aleatorio.nextInt(300)];
+                int base = aleatorio.nextInt(5000);
+                for (int i = 0; i < lote.length; i++) {
+                    lote[i] = rodada % 3 == 0 ? aleatorio.nextInt() : base + aleatorio.nextInt(400);
+                }
+                int[] copia = lote.clone();
+                boolean remocao = rodada % 4 == 3;
+                BitSet alterados = remocao ? abb.removerTodos(lote) : abb.inserirTodos(lote);
+                assertTrue(Arrays.equals(copia, lote));
+                for (int i = 0; i < lote.length; i++) {
+                    assertEquals(remocao ? esperado.remove(lote[i]) : esperado.add(lote[i]), alterados.get(i));
+                }
+                verificarInvariantes(abb);
+                assertEquals(esperado.size(), abb.getTamanho());
+            }
+            assertEquals(esperado.size(), abb.removerTodos(abb.paraVetor()).cardinality());
+            assertTrue(abb.vazia());
+        }
+        ArvoreBinariadeBusca abb = new ArvoreBinariadeBusca(new int[] {3, 1, 2});
+        Instantaneo antes = abb.snapshot();
+        abb.inserirTodos(new int[] {5, 4});
+        abb.removerTodos(new int[] {1, 9});
+        assertEquals(3, antes.getTamanho());
+        assertEquals(4, abb.snapshot().getTamanho());
+        assertTrue(abb.snapshot().contains(4));
+        assertFalse(abb.snapshot().contains(1));
+    }
+
+    private static void verificarConjunto(NavigableSet<Integer> esperado, ArvoreBinariadeBusca abb) {
+        verificarInvariantes(abb);
+        assertEquals(esperado.size(), abb.getTamanho());
+        assertEquals(32 - Integer.numberOfLeadingZeros(esperado.size()), abb.getAltura());
+        StringBuilder s = new StringBuilder();
+        for (int v : esperado) {
+            s.append(s.length() == 0 ? "" : " ").append(v);
+        }
+        assertEquals(s.toString(), abb.emOrdem());
+    }
+
+    private static String escrever(ArvoreBinariadeBusca abb, Percurso percurso) throws IOException {
+        StringWriter saida = new StringWriter();
+        abb.escrever(percurso, saida);
+        return saida.toString();
+    }
+
+    /**
+     * Confere, a partir do menor nó, que as costuras formam a ordem simétrica, que os ponteiros de pai
+     * são consistentes com os filhos e que o tamanho, a altura e a soma de cada nó batem com as suas sub-árvores.
+     */
+    static void verificarInvariantes(ArvoreBinariadeBusca abb) {
+        No no = abb.min();
+        No anterior = null;
+        int contagem = 0;
+        while (no != null) {
+            contagem++;
+            if (anterior != null) {
+                assertTrue(anterior.getValor() < no.getValor());
+            }
+            if (no.isCosturaEsquerda()) {
+                assertSame(anterior, no.getFilhoEsquerda());
+            } else {
+                assertSame(no, no.getFilhoEsquerda().getPai());
+            }
+            if (!no.isCosturaDireita()) {
+                assertSame(no, no.getFilhoDireita().getPai());
+            }
+            int tamanho = 1;
+            int altura = 0;
+            long soma = no.getValor();
+            if (!no.isCosturaEsquerda()) {
+                tamanho += no.getFilhoEsquerda().getTamanho();
+                altura = no.getFilhoEsquerda().getAltura();
+                soma += no.getFilhoEsquerda().getSoma();
+            }
+            if (!no.isCosturaDireita()) {
+                tamanho += no.getFilhoDireita().getTamanho();
+                altura = Math.max(altura, no.getFilhoDireita().getAltura());
+                soma += no.getFilhoDireita().getSoma();
+            }
+            assertEquals(tamanho, no.getTamanho());
+            assertEquals(altura + 1, no.getAltura());
+            assertEquals(soma, no.getSoma());
+            No proximo = ArvoreBinariadeBusca.sucessor(no);
+            if (no.isCosturaDireita()) {
+                assertSame(proximo, no.getFilhoDireita());
+            }
+            anterior = no;
+            no = proximo;
+        }
+        assertEquals(abb.getTamanho(), contagem);
+    }
+}
@@ -0,0 +1,101 @@
+package com.edb2;
+
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Confere que a {@link ArvoreCongelada} responde igual à árvore de onde veio, em todos os tamanhos pequenos
+ * (árvores implícitas cheias e incompletas) e em uma árvore aleatória maior.
+ */
+class ArvoreCongeladaTest {
+
+    @Test
+    void respondeIgualArvoreDeNosEmTodosOsTamanhosPequenos() {
+        for (int n = 0; n <= 70; n++) {
+            ArvoreBinariadeBusca abb = new ArvoreBinariadeBusca(Balanceamento.AVL);
+            for (int i = 0; i < n; i++) {
+                abb.inserir(3 * i);
+            }
+            ArvoreCongelada congelada = abb.congelar();
+            assertEquals(n, congelada.getTamanho());
+            assertEquals(abb.mediana(), congelada.mediana());
+            assertEquals(abb.emOrdem(), congelada.emOrdem());
+            for (int v = -2; v <= 3 * n; v++) {
+                assertEquals(abb.contains(v), congelada.contains(v));
+                assertEquals(abb.posicao(v), congelada.posicao(v));
+                assertEquals(Math.min(n, (v + 2) / 3), congelada.contarMenores(v));
+            }
+            for (int i = 0; i <= n + 1; i++) {
+                assertEquals(abb.enesimoElemento(i), congelada.enesimoElemento(i));
+            }
+        }
+    }
+
+    @Test
+    void consultasEmArvoreAleatoria() {
+        Random aleatorio = new Random(23);
+        ArvoreBinariadeBusca abb = new ArvoreBinariadeBusca(Balanceamento.NENHUM);
+        TreeSet<Integer> esperado = new TreeSet<>();
+        abb.inserir(Integer.MIN_VALUE);
+        abb.inserir(Integer.MAX_VALUE);
+        esperado.add(Integer.MIN_VALUE);
+        esperado.add(Integer.MAX_VALUE);
+        for (int i = 0; i < 20000; i++) {
+            int valor = aleatorio.nextInt();
+            abb.inserir(valor);
+            esperado.add(valor);
+        }
+        ArvoreCongelada congelada = abb.congelar();
+        //A árvore congelada não acompanha as escritas seguintes.
+        abb.remover(Integer.MAX_VALUE);
+        assertTrue(congelada.contains(Integer.MAX_VALUE));
+        assertEquals(esperado.size(), congelada.posicao(Integer.MAX_VALUE));
+        assertEquals(1, congelada.posicao(Integer.MIN_VALUE));
+
+        int pos = 1;
+        for (int valor : esperado) {
+            assertEquals(pos, congelada.posicao(valor));
+            assertEquals(valor, congelada.enesimoElemento(pos));
+            pos++;
+        }
+        for (int i = 0; i < 2000; i++) {
+            int valor = aleatorio.nextInt();
+            assertEquals(esperado.contains(valor), congelada.contains(valor));
+            assertEquals(esperado.headSet(valor).size(), congelada.contarMenores(valor));
+            int fim = valor + aleatorio.nextInt(1 << 20);
+            if (fim < valor) {
+                continue;
+            }
+            PrimitiveIterator.OfInt it = congelada.intervalo(valor, fim);
+            for (int esperadoNoTrecho : esperado.subSet(valor, true, fim, true)) {
+                assertEquals(esperadoNoTrecho, it.nextInt());
+            }
+            assertFalse(it.hasNext());
+        }
+        assertFalse(congelada.intervalo(10, 5).hasNext());
+        assertNull(new ArvoreBinariadeBusca(Balanceamento.NENHUM).congelar().mediana());
+    }
+
+    @Test
+    void indicesDaDescidaNaoEstouramEmArvoresEnormes() {
+        //Com 2^27 valores ou mais, 16k passa de 2^31; o índice adiantado deve ficar de fora, não negativo.
+        assertEquals(0, ArvoreCongelada.adiante(1 << 27, (1 << 27) + 1));
+        assertEquals(0, ArvoreCongelada.adiante(Integer.MAX_VALUE / 2, Integer.MAX_VALUE));
+        assertEquals(Integer.MAX_VALUE - 15, ArvoreCongelada.adiante(Integer.MAX_VALUE >>> 4, Integer.MAX_VALUE));
+        assertEquals(16, ArvoreCongelada.adiante(1, 17));
+        assertEquals(0, ArvoreCongelada.adiante(1, 16));
+        //Caminhos de uma descida que passou de 2^31, lidos sem sinal.
+        assertEquals(0, ArvoreCongelada.ultimoDesvioEsquerda(Integer.MAX_VALUE));
+        assertEquals(1 << 29, ArvoreCongelada.ultimoDesvioEsquerda(0x80000001));
+        assertEquals(1, ArvoreCongelada.ultimoDesvioEsquerda(0b10111));
+        assertEquals(3, ArvoreCongelada.ultimoDesvioEsquerda(0b110));
+    }
+}
@@ -0,0 +1,156 @@
+package com.edb2;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testes das árvores costuradas genérica, de long e de double, comparadas com as coleções do Java.
+ */
+class ArvoreCosturadaTest {
+
+    @Test
+    void arvoreGenericaFuncionaComoMapaOrdenado() {
+        Random aleatorio = new Random(5);
+        for (Balanceamento balanceamento : Balanceamento.values()) {
+            ArvoreCosturada<String, Integer> arvore =
+                    new ArvoreCosturada<>(Comparator.<String>reverseOrder(), balanceamento);
+            TreeMap<String, Integer> esperado = new TreeMap<>(Comparator.<String>reverseOrder());
+            for (int i = 0; i < 4000; i++) {
+                String chave = "k" + aleatorio.nextInt(1500);
+                if (aleatorio.nextInt(3) == 0) {
+                    assertEquals(esperado.remove(chave) != null, arvore.remover(chave));
+                } else {
+                    assertEquals(esperado.put(chave, i), arvore.associar(chave, i));
+                }
+            }
+            verificarInvariantes(arvore);
+            assertEquals(esperado.size(), arvore.getTamanho());
+            assertEquals(esperado.firstKey(), arvore.min());
+            assertEquals(esperado.lastKey(), arvore.max());
+            int pos = 1;
+            ArvoreCosturada.Entrada<String, Integer> entrada = arvore.primeiraEntrada();
+            for (Map.Entry<String, Integer> e : esperado.entrySet()) {
+                assertEquals(e, entrada);
+                assertEquals(pos, arvore.posicao(e.getKey()));
+                assertEquals(e.getKey(), arvore.enesimoElemento(pos));
+                assertEquals(e.getValue(), arvore.obter(e.getKey()));
+                entrada = ArvoreCosturada.sucessor(entrada);
+                pos++;
+            }
+            assertNull(entrada);
+            String[] chaves = esperado.keySet().toArray(new String[0]);
+            assertEquals(chaves[(chaves.length - 1) / 2], arvore.mediana());
+            assertEquals(-1, arvore.posicao("ausente"));
+            assertFalse(arvore.inserir(chaves[0]));
+        }
+        ArvoreCosturada<Integer, String> naturais = ArvoreCosturada.naturais(Balanceamento.NENHUM);
+        assertTrue(naturais.inserir(3));
+        assertNull(naturais.obter(3));
+        assertNull(naturais.enesimoElemento(2));
+    }
+
+    @Test
+    void arvoreDeLongNaoPerdeOsBitsAltos() {
+        Random aleatorio = new Random(8);
+        for (Balanceamento balanceamento : Balanceamento.values()) {
+            ArvoreCosturadaLong<Long> arvore = new ArvoreCosturadaLong<>(balanceamento);
+            TreeSet<Long> esperado = new TreeSet<>();
+            long base = 1L << 40;
+            for (int i = 0; i < 4000; i++) {
+                long chave = base + aleatorio.nextInt(1500) * (1L << 33);
+                if (aleatorio.nextInt(3) == 0) {
+                    assertEquals(esperado.remove(chave), arvore.remover(chave));
+                } else {
+                    assertEquals(esperado.add(chave), arvore.inserir(chave));
+                }
+            }
+            verificarInvariantes(arvore);
+            assertEquals(esperado.size(), arvore.getTamanho());
+            int pos = 1;
+            for (long chave : esperado) {
+                assertEquals(pos, arvore.posicao(chave));
+                assertEquals(chave, arvore.enesimoElemento(pos));
+                pos++;
+            }
+            Long[] chaves = esperado.toArray(new Long[0]);
+            assertEquals((long) chaves[(chaves.length - 1) / 2], arvore.mediana());
+            assertEquals((long) esperado.first(), arvore.min());
+            assertEquals((long) esperado.last(), arvore.max());
+            assertNull(arvore.associar(Long.MIN_VALUE, -1L));
+            assertEquals(-1L, arvore.associar(Long.MIN_VALUE, -2L));
+            assertEquals(Long.MIN_VALUE, arvore.min());
+            assertThrows(NoSuchElementException.class, () -> arvore.enesimoElemento(0));
+        }
+        assertThrows(NoSuchElementException.class, () -> new ArvoreCosturadaLong<>(Balanceamento.AVL).mediana());
+    }
+
+    @Test
+    void arvoreDeDoubleSegueDoubleCompare() {
+        double[] valores = {3.5, -0.0, 0.0, Double.NaN, -1e300, Double.NEGATIVE_INFINITY, 1e-320, -2.25,
+            Double.POSITIVE_INFINITY, Double.MIN_VALUE, -Double.MIN_VALUE};
+        ArvoreCosturadaDouble<String> arvore = new ArvoreCosturadaDouble<>(Balanceamento.AVL);
+        TreeSet<Double> esperado = new TreeSet<>();
+        for (double v : valores) {
+            assertEquals(esperado.add(v), arvore.inserir(v));
+        }
+        assertFalse(arvore.inserir(Double.longBitsToDouble(0x7ff8000000000001L)));
+        StringBuilder s = new StringBuilder();
+        for (double v : esperado) {
+            s.append(s.length() == 0 ? "" : " ").append(v);
+        }
+        assertEquals(s.toString(), arvore.emOrdem());
+        assertEquals(Double.NEGATIVE_INFINITY, arvore.min());
+        assertTrue(Double.isNaN(arvore.max()));
+        assertEquals(esperado.headSet(0.0).size() + 1, arvore.posicao(0.0));
+        assertTrue(arvore.remover(-0.0));
+        assertTrue(arvore.contains(0.0));
+        assertFalse(arvore.contains(-0.0));
+        arvore.associar(3.5, "x");
+        assertEquals("x", arvore.obter(3.5));
+        for (double v : new double[] {-7.0, -Double.MAX_VALUE, 1.0, Double.MAX_VALUE, Double.NaN}) {
+            assertEquals(Double.doubleToLongBits(v),
+                    Double.doubleToLongBits(ArvoreCosturadaDouble.real(ArvoreCosturadaDouble.ordenavel(v))));
+        }
+    }
+
+    /**
+     * Confere costuras, pais, tamanhos e alturas, como {@link ArvoreBinariadeBuscaTest#verificarInvariantes}.
+     */
+    private static <N extends NoCosturado<N>> void verificarInvariantes(EstruturaCosturada<N> arvore) {
+        N no = EstruturaCosturada.min(arvore.raiz);
+        N anterior = null;
+        int contagem = 0;
+        while (no != null) {
+            contagem++;
+            if (no.costuraEsquerda) {
+                assertSame(anterior, no.esquerda);
+            } else {
+                assertSame(no, no.esquerda.pai);
+            }
+            if (!no.costuraDireita) {
+                assertSame(no, no.direita.pai);
+            }
+            int tamanho = 1 + (no.costuraEsquerda ? 0 : no.esquerda.tamanho) + (no.costuraDireita ? 0 : no.direita.tamanho);
+            int altura = 1 + Math.max(no.costuraEsquerda ? 0 : no.esquerda.altura, no.costuraDireita ? 0 : no.direita.altura);
+            assertEquals(tamanho, no.tamanho);
+            assertEquals(altura, no.altura);
+            assertEquals(contagem, EstruturaCosturada.posicaoDe(no));
+            anterior = no;
+            no = EstruturaCosturada.sucessor(no);
+        }
+        assertEquals(arvore.getTamanho(), contagem);
+    }
+}
@@ -0,0 +1,55 @@
+package com.edb2;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Testes do leitor de valores.
+ */
+class LeitorValoresTest {
+    @TempDir
+    Path pasta;
+
+    @Test
+    void aceitaQualquerEspacoEmBranco() throws IOException {
+        Path arquivo = escrever("32 13\t5\r\n41\n\n  -20 2147483647 -2147483648");
+        assertArrayEquals(new int[] {32, 13, 5, 41, -20, Integer.MAX_VALUE, Integer.MIN_VALUE},
+                LeitorValores.lerVetor(arquivo));
+    }
+
+    @Test
+    void rejeitaValoresInvalidos() throws IOException {
+        Path foraDoIntervalo = escrever("2147483648");
+        assertThrows(NumberFormatException.class, () -> LeitorValores.lerVetor(foraDoIntervalo));
+        Path letras = escrever("12 a3");
+        assertThrows(NumberFormatException.class, () -> LeitorValores.lerVetor(letras));
+        Path soSinal = escrever("1 - 2");
+        assertThrows(NumberFormatException.class, () -> LeitorValores.lerVetor(soSinal));
+    }
+
+    @Test
+    void rejeitaBytesForaDoAsciiEDeControle() throws IOException {
+        Path separadores = escrever("1\f2\u000B3");
+        assertArrayEquals(new int[] {1, 2, 3}, LeitorValores.lerVetor(separadores));
+        Path acento = escrever("12é3");
+        assertThrows(NumberFormatException.class, () -> LeitorValores.lerVetor(acento));
+        Path bom = escrever("\uFEFF1 2");
+        assertThrows(NumberFormatException.class, () -> LeitorValores.lerVetor(bom));
+        Path nulo = escrever("1\u00002");
+        assertThrows(NumberFormatException.class, () -> LeitorValores.lerVetor(nulo));
+    }
+
+    private Path escrever(String conteudo) throws IOException {
+        Path arquivo = Files.createTempFile(this.pasta, "valores", ".txt");
+        Files.write(arquivo, conteudo.getBytes(StandardCharsets.UTF_8));
+        return arquivo;
+    }
+}
@@ -0,0 +1,152 @@
+package com.edb2;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+
+import javax.management.JMException;
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testes das {@link Metricas} opcionais da árvore: contagens por operação, nós visitados, percentis do
+ * {@link Histograma} e leitura pelo JMX.
+ */
+class MetricasTest {
+    @Test
+    void metricasSoExistemDepoisDeHabilitadas() {
+        ArvoreBinariadeBusca abb = new ArvoreBinariadeBusca(new int[] {50, 30, 70}, Balanceamento.NENHUM);
+        assertNull(abb.getMetricas());
+        Metricas metricas = abb.habilitarMetricas();
+        assertSame(metricas, abb.habilitarMetricas());
+        assertSame(metricas, abb.getMetricas());
+
+        abb.desabilitarMetricas();
+        assertNull(abb.getMetricas());
+        abb.contains(30);
+        assertEquals(0, metricas.getContagem(Metricas.Operacao.BUSCAR));
+    }
+
+    @Test
+    void contaOperacoesENosVisitados() {
+        ArvoreBinariadeBusca abb = new ArvoreBinariadeBusca(new int[] {50, 30, 70, 20, 40, 60, 80}, Balanceamento.NENHUM);
+        Metricas metricas = abb.habilitarMetricas();
+
+        abb.contains(20);
+        abb.buscar(50);
+        abb.contains(45);
+        abb.inserir(45);
+        abb.remover(30);
+        abb.remover(99);
+        abb.posicao(60);
+        abb.enesimoElemento(1);
+        abb.mediana();
+
+        assertEquals(3, metricas.getContagem(Metricas.Operacao.BUSCAR));
+        assertEquals(1, metricas.getContagem(Metricas.Operacao.INSERIR));
+        assertEquals(2, metricas.getContagem(Metricas.Operacao.REMOVER));
+        assertEquals(1, metricas.getContagem(Metricas.Operacao.POSICAO));
+        assertEquals(2, metricas.getContagem(Metricas.Operacao.ENESIMO_ELEMENTO));
+        //30 tinha dois filhos; 99 não estava na árvore.
+        assertEquals(1, metricas.getRemocoesComDoisFilhos());
+
+        //Buscas: 20 a três nós da raiz, 50 na raiz e 45 ausente, parando em 40 no terceiro nível.
+        Metricas.Resumo buscas = metricas.nosVisitados(Metricas.Operacao.BUSCAR);
+        assertEquals(3, buscas.getMaximo());
+        assertEquals(7.0 / 3, buscas.getMedia(), 1e-9);
+        assertEquals(3, buscas.getP50());
+        //Inserir 45 compara com 50, 30 e 40; remover 30 o acha no segundo nível e 99 passa por 50, 70 e 80.
+        assertEquals(3, metricas.nosVisitados(Metricas.Operacao.INSERIR).getMaximo());
+        assertEquals(2.5, metricas.nosVisitados(Metricas.Operacao.REMOVER).getMedia(), 1e-9);
+        assertEquals(3, metricas.nosVisitados(Metricas.Operacao.POSICAO).getMaximo());
+
+        PrimitiveIterator.OfInt percurso = abb.intervalo(40, 70);
+        while (percurso.hasNext()) {
+            percurso.nextInt();
+        }
+        assertEquals(1, metricas.getPercursos());
+        assertEquals(5, metricas.getPassosSucessor());
+        //Percursos vazios ou abandonados também contam: 40, 45 e 50 entregues antes de o laço parar.
+        assertFalse(abb.intervalo(71, 79).hasNext());
+        percurso = abb.intervalo(40, 70);
+        for (int i = 0; i < 3; i++) {
+            percurso.nextInt();
+        }
+        assertEquals(3, metricas.getPercursos());
+        assertEquals(8, metricas.getPassosSucessor());
+        assertEquals(8.0 / 3, metricas.getPassosSucessorMedios(), 1e-9);
+
+        metricas.zerar();
+        assertEquals(0, metricas.getContagem(Metricas.Operacao.BUSCAR));
+        assertEquals(0, metricas.getRemocoesComDoisFilhos());
+        assertEquals(0, metricas.getPercursos());
+        assertEquals(0, metricas.latencia(Metricas.Operacao.INSERIR).getMaximo());
+    }
+
+    @Test
+    void nosVisitadosSaoOsDaDescidaAntesDoAfunilamento() {
+        //Inserções crescentes no modo de afunilamento deixam 4 na raiz e 3, 2 e 1 descendo pela esquerda.
+        ArvoreBinariadeBusca abb = new ArvoreBinariadeBusca(new int[] {1, 2, 3, 4}, Balanceamento.AFUNILAMENTO);
+        Metricas metricas = abb.habilitarMetricas();
+        abb.inserir(0);
+        abb.contains(0);
+        assertEquals(4, metricas.nosVisitados(Metricas.Operacao.INSERIR).getMaximo());
+        assertEquals(1, metricas.nosVisitados(Metricas.Operacao.BUSCAR).getMaximo());
+    }
+
+    @Test
+    void faixasDoHistogramaCobremTodosOsValores() {
+        long anterior = -1;
+        for (int faixa = 0; faixa <= Histograma.faixa(Long.MAX_VALUE); faixa++) {
+            long limite = Histograma.limiteSuperior(faixa);
+            assertEquals(faixa, Histograma.faixa(anterior + 1));
+            assertEquals(faixa, Histograma.faixa(limite));
+            //Erro relativo de no máximo 1/8 dentro de cada faixa.
+            assertTrue(limite - (anterior + 1) <= (anterior + 1) / 8);
+            anterior = limite;
+        }
+        assertEquals(Long.MAX_VALUE, anterior);
+
+        Histograma histograma = new Histograma();
+        for (int i = 1; i <= 1000; i++) {
+            histograma.registrar(i);
+        }
+        Metricas.Resumo resumo = histograma.resumo();
+        assertEquals(1000, resumo.getContagem());
+        assertEquals(500.5, resumo.getMedia(), 1e-9);
+        assertTrue(resumo.getP50() >= 500 && resumo.getP50() <= 500 * 9 / 8);
+        assertTrue(resumo.getP99() >= 990 && resumo.getP99() <= 1000);
+        assertEquals(1000, resumo.getMaximo());
+    }
+
+    @Test
+    void metricasSaoLidasPeloJmx() throws JMException {
+        ArvoreBinariadeBusca abb = new ArvoreBinariadeBusca(new int[] {2, 1, 3}, Balanceamento.AVL);
+        Metricas metricas = abb.habilitarMetricas();
+        abb.contains(1);
+        abb.contains(3);
+        abb.inserir(4);
+
+        MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+        ObjectName nome = metricas.registrarJmx("teste jmx");
+        try {
+            Map<String, Long> contagens = JMX.newMXBeanProxy(servidor, nome, MetricasMXBean.class).getContagens();
+            assertEquals(2L, contagens.get("BUSCAR"));
+            assertEquals(1L, contagens.get("INSERIR"));
+
+            servidor.invoke(nome, "zerar", new Object[0], new String[0]);
+            assertEquals(0, metricas.getContagem(Metricas.Operacao.BUSCAR));
+        } finally {
+            servidor.unregisterMBean(nome);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.edb2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Testes do processador de operações.
+ */
+class ProcessadorComandosTest {
+    private static final String[] OPERACOES = {
+        "CHEIA", "COMPLETA", "PREORDEM", "MEDIANA", "ENESIMO", "INSIRA", "IMPRIMA", "REMOVA", "POSICAO", "BUSCAR",
+    };
+
+    @TempDir
+    Path pasta;
+
+    @Test
+    void reproduzASaidaDoArquivoDeExemplo() throws IOException {
+        String esperado = String.join(System.lineSeparator(),
+                "A árvore não é cheia",
+                "A árvore é completa",
+                "20",
+                "36 adicionado",
+                "A árvore é cheia",
+                "32 13 5 20 41 36 60 ",
+                "32------------------",
+                "    13------------------",
+                "        5------------------",
+                "        20------------------",
+                "    41------------------",
+                "        36------------------",
+                "        60------------------",
+                "",
+                "(32 (13 (5)(20))(41 (36)(60)))",
+                "50 não está na árvore, não pode ser removido",
+                "15 adicionado",
+                "39 adicionado",
+                "32 removido",
+                "3",
+                "39 já está na árvore, não pode ser inserido",
+                "36",
+                "20",
+                "17.5",
+                "Chave encontrada",
+                "25 adicionado",
+                "25") + System.lineSeparator();
+        ArvoreBinariadeBusca abb = new ArvoreBinariadeBusca(new int[] {32, 13, 5, 41, 20, 60});
+        assertEquals(esperado, executar(abb, Paths.get("src/main/java/com/edb2/arquivo2.txt"), false));
+    }
+
+    @Test
+    void lotesDeLeituraMantemASaida() throws IOException {
+        Random aleatorio = new Random(11);
+        StringBuilder operacoes = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            String operacao = OPERACOES[aleatorio.nextInt(OPERACOES.length)];
+            if (operacao.equals("IMPRIMA")) {
+                operacoes.append("imprima ").append(1 + aleatorio.nextInt(2));
+            } else if (operacao.length() > 6 && !operacao.equals("MEDIANA") || operacao.length() == 6) {
+                operacoes.append(operacao).append(' ').append(aleatorio.nextInt(200) - 100);
+            } else {
+                operacoes.append(operacao);
+            }
+            operacoes.append(i % 2 == 0 ? "\n" : "\r\n");
+        }
+        Path arquivo = this.pasta.resolve("operacoes.txt");
+        Files.write(arquivo, operacoes.toString().getBytes(StandardCharsets.US_ASCII));
+        String sequencial = executar(new ArvoreBinariadeBusca(Balanceamento.AVL), arquivo, false);
+        String emLotes = executar(new ArvoreBinariadeBusca(Balanceamento.AVL), arquivo, true);
+        assertEquals(sequencial, emLotes);
+    }
+
+    @Test
+    void linhaComParametrosDemaisInterrompe() throws IOException {
+        Path arquivo = this.pasta.resolve("erro.txt");
+        Files.write(arquivo, "INSIRA 1\nINSIRA 1 2\nINSIRA 3\n".getBytes(StandardCharsets.US_ASCII));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream saida = new PrintStream(bytes);
+        ProcessadorComandos processador = new ProcessadorComandos(new ArvoreBinariadeBusca(Balanceamento.NENHUM), saida);
+        assertThrows(IllegalArgumentException.class, () -> processador.processar(arquivo));
+        saida.flush();
+        assertEquals("1 adicionado" + System.lineSeparator(), bytes.toString());
+    }
+
+    private static String executar(ArvoreBinariadeBusca abb, Path arquivo, boolean agrupar) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream saida = new PrintStream(bytes, false, "UTF-8");
+        new ProcessadorComandos(abb, saida, agrupar, 4).processar(arquivo);
+        saida.flush();
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+}